@@ -3,10 +3,14 @@
  */
 package io.leitstand.commons.db;
 
+import static io.leitstand.commons.jpa.SerializableJsonObjectConverter.parseJson;
 import static java.lang.Boolean.parseBoolean;
+import static java.lang.String.format;
 import static java.lang.System.getProperty;
 import static java.util.Collections.unmodifiableList;
 import static java.util.logging.Level.FINE;
+import static javax.json.Json.createMergePatch;
+import static javax.json.JsonValue.EMPTY_JSON_OBJECT;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -22,6 +26,8 @@ import java.util.UUID;
 import java.util.function.Predicate;
 import java.util.logging.Logger;
 
+import javax.json.JsonObject;
+import javax.json.JsonValue;
 import javax.sql.DataSource;
 
 import io.leitstand.commons.model.Scalar;
@@ -121,22 +127,32 @@ public class DatabaseService {
 	public static StatementPreparator prepare(final String statement, Object... params){
 		return  c -> {
 			PreparedStatement ps = c.prepareStatement(regexp(statement));
-			if(params == null){
-				return ps;
-			}
-			for(int i=0; i < params.length; i++){
-				// Iterate over all mappings...
-				for(Map.Entry<Predicate<Object>,Mapping<Object>> mapping : PARAMETER_MAPPINGS.entrySet()) {
-					if(mapping.getKey().test(params[i])) {
-						mapping.getValue().apply(ps, i+1, params[i]);
-						// ... and break iteration, if a mappings was applied.
-						break;
-					}
-				}
-			}
+			bind(ps,params);
 			return ps;
 		};
 	}
+	
+	/**
+	 * Binds the specified parameters to the parameter markers of the specified prepared statement.
+	 * @param ps the prepared statement
+	 * @param params the parameters for all parameter markers in the prepared statement.
+	 * @throws SQLException if a parameter cannot be bound to the statement
+	 */
+	static void bind(PreparedStatement ps, Object... params) throws SQLException {
+		if(params == null){
+			return;
+		}
+		for(int i=0; i < params.length; i++){
+			// Iterate over all mappings...
+			for(Map.Entry<Predicate<Object>,Mapping<Object>> mapping : PARAMETER_MAPPINGS.entrySet()) {
+				if(mapping.getKey().test(params[i])) {
+					mapping.getValue().apply(ps, i+1, params[i]);
+					// ... and break iteration, if a mappings was applied.
+					break;
+				}
+			}
+		}
+	}
 
 	public static boolean convertToString(Object param) {
 		return param instanceof UUID || param instanceof StringBuilder || param instanceof StringBuffer;
@@ -161,6 +177,23 @@ public class DatabaseService {
 	}
 	
 	
+	/**
+	 * Obtains a database connection to execute the specified batch of SQL statements.
+	 * Returns the number of affected database records.
+	 * 
+	 * @param batch the batch of SQL statements
+	 * @return the number of modified records.
+	 * @see UpdateBatch
+	 */
+	public int executeBatch(UpdateBatch batch) {
+		try(Connection c = ds.getConnection()){
+			return batch.execute(c);
+		} catch(SQLException e){
+			LOG.log(FINE, e.getMessage(),e);
+			throw new DatabaseException(e);
+		}
+	}
+	
 	/**
 	 * Obtains a database connection to prepare and execute the specified preparable SQL statement and
 	 * processes the returned resulset with the passed processor.
@@ -208,6 +241,100 @@ public class DatabaseService {
 		}
 	}
 	
+	/**
+	 * Applies a JSON merge patch as defined by RFC 7386 to the JSON document stored in the specified column of the specified record.
+	 * <p>
+	 * On PostgreSQL, the patch is applied by the database by means of <code>jsonb_set</code> and the <code>#-</code> operator 
+	 * such that only the patch is sent to the database.
+	 * The patched document is cast to the specified column type.
+	 * On all other databases, the JSON document is read, patched and written back to the database 
+	 * on the same connection and in the same transaction, 
+	 * such that the record remains locked until the patched document is written.
+	 * Table and column names as well as the column type are added to the SQL statement as is and must not be taken from user input.
+	 * </p>
+	 * @param table the table name
+	 * @param column the name of the JSON column
+	 * @param columnType the PostgreSQL type of the JSON column, which is either <code>json</code> or <code>jsonb</code>
+	 * @param keyColumn the name of the key column
+	 * @param key the key of the record to be updated
+	 * @param patch the JSON merge patch
+	 * @return the number of modified records.
+	 */
+	public int applyJsonMergePatch(String table, 
+								   String column,
+								   String columnType,
+								   String keyColumn, 
+								   Object key, 
+								   JsonObject patch) {
+		if(POSTGRES) {
+			JsonbMergePatch update = new JsonbMergePatch(table, column, keyColumn, columnType, patch);
+			return executeUpdate(prepare(update.getStatement(), 
+										 update.getParameters(key)));
+		}
+		try(Connection c = ds.getConnection()){
+			return applyJsonMergePatch(c, table, column, keyColumn, key, patch);
+		} catch(SQLException e){
+			LOG.log(FINE, e.getMessage(),e);
+			throw new DatabaseException(e);
+		}
+	}
+	
+	/**
+	 * Reads, patches and writes the JSON document on the specified connection.
+	 * Starts a local transaction if the connection is in auto-commit mode,
+	 * in order to hold the lock acquired by <code>SELECT FOR UPDATE</code> until the patched document is written.
+	 */
+	static int applyJsonMergePatch(Connection c, 
+								   String table, 
+								   String column, 
+								   String keyColumn, 
+								   Object key, 
+								   JsonObject patch) throws SQLException {
+		boolean autoCommit = c.getAutoCommit();
+		if(autoCommit) {
+			c.setAutoCommit(false);
+		}
+		try {
+			int updated = mergeJson(c, table, column, keyColumn, key, patch);
+			if(autoCommit) {
+				c.commit();
+			}
+			return updated;
+		} catch(SQLException | RuntimeException e) {
+			if(autoCommit) {
+				c.rollback();
+			}
+			throw e;
+		} finally {
+			if(autoCommit) {
+				c.setAutoCommit(true);
+			}
+		}
+	}
+	
+	private static int mergeJson(Connection c, 
+								 String table, 
+								 String column, 
+								 String keyColumn, 
+								 Object key, 
+								 JsonObject patch) throws SQLException {
+		String json = null;
+		try(PreparedStatement ps = prepare(format("SELECT %s FROM %s WHERE %s=? FOR UPDATE",column,table,keyColumn),key).apply(c);
+			ResultSet rs = ps.executeQuery()){
+			if(!rs.next()) {
+				return 0;
+			}
+			json = rs.getString(1);
+		}
+		JsonObject doc = parseJson(json);
+		JsonValue patched = createMergePatch(patch).apply(doc != null ? doc : EMPTY_JSON_OBJECT);
+		try(PreparedStatement ps = prepare(format("UPDATE %s SET %s=? WHERE %s=?",table,column,keyColumn),
+										   patched.toString(),
+										   key).apply(c)){
+			return ps.executeUpdate();
+		}
+	}
+	
 	public <T> T getSingleResult(StatementPreparator stmt, ResultSetMapping<T> mapper){
 		List<T> items = executeQuery(stmt, mapper);
 		if(items.isEmpty()) {
@@ -0,0 +1,127 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.db;
+
+import static java.lang.String.format;
+import static javax.json.JsonValue.ValueType.NULL;
+import static javax.json.JsonValue.ValueType.OBJECT;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+
+/**
+ * Translates a JSON merge patch as defined by RFC 7386 into a PostgreSQL <code>UPDATE</code> statement, 
+ * which applies the patch to the JSON document in the database.
+ * <p>
+ * Every patch operation transforms the JSON document of the previous operation.
+ * An operation is expressed as scalar subselect on the result of the previous operation:
+ * <ul>
+ * <li>A <code>null</code> value removes the property by means of the <code>#-</code> operator,</li>
+ * <li>an object value replaces the property by an empty object, unless the property is already an object, 
+ * 	   and merges the nested properties afterwards,</li>
+ * <li>all other values set the property value by means of <code>jsonb_set</code>.</li>
+ * </ul>
+ * All property paths and values are passed as statement parameters. 
+ * Table and column names are added to the statement as is and must not be taken from user input.
+ * </p>
+ */
+final class JsonbMergePatch {
+
+	private final String statement;
+	private final List<Object> params;
+	
+	/**
+	 * Creates the <code>UPDATE</code> statement to apply a merge patch.
+	 * @param table the table name
+	 * @param column the name of the JSON column
+	 * @param keyColumn the name of the key column
+	 * @param type the JSON column type, which is either <code>json</code> or <code>jsonb</code>
+	 * @param patch the merge patch
+	 */
+	JsonbMergePatch(String table, String column, String keyColumn, String type, JsonObject patch){
+		this.params = new ArrayList<>();
+		String doc = merge(format("COALESCE(%s::jsonb,'{}'::jsonb)",column), 
+						   new ArrayList<>(),
+						   patch);
+		this.statement = format("UPDATE %s SET %s=CAST(%s AS %s) WHERE %s=?",
+								table,
+								column,
+								doc,
+								type,
+								keyColumn);
+	}
+	
+	private String merge(String doc, List<String> path, JsonObject patch) {
+		for(Map.Entry<String,JsonValue> property : patch.entrySet()) {
+			List<String> nested = new ArrayList<>(path);
+			nested.add(property.getKey());
+			JsonValue value = property.getValue();
+			if(value.getValueType() == NULL) {
+				doc = apply(doc, "j #- "+path(nested), nested);
+			} else if(value.getValueType() == OBJECT) {
+				List<Object> args = new ArrayList<>(nested);
+				args.addAll(nested);
+				doc = apply(doc, 
+							format("CASE WHEN jsonb_typeof(j #> %s)='object' THEN j ELSE jsonb_set(j,%s,'{}'::jsonb) END",
+								   path(nested),
+								   path(nested)),
+							args);
+				doc = merge(doc, nested, (JsonObject) value);
+			} else {
+				List<Object> args = new ArrayList<>(nested);
+				args.add(value.toString());
+				doc = apply(doc, "jsonb_set(j,"+path(nested)+",CAST(? AS jsonb))", args);
+			}
+		}
+		return doc;
+	}
+	
+	/**
+	 * Applies an operation on the document of the previous operation. 
+	 * The operation refers to the document as <code>j</code>.
+	 * The operation parameters precede the parameters of the previous operations.
+	 */
+	private String apply(String doc, String operation, List<?> args) {
+		params.addAll(0, args);
+		return format("(SELECT %s FROM (SELECT %s AS j) AS p%d)", 
+					  operation, 
+					  doc, 
+					  params.size());
+	}
+	
+	private static String path(List<String> path) {
+		StringBuilder array = new StringBuilder("ARRAY[");
+		for(int i=0; i < path.size(); i++) {
+			if(i > 0) {
+				array.append(',');
+			}
+			array.append('?');
+		}
+		return array.append("]::text[]").toString();
+	}
+	
+	/**
+	 * Returns the <code>UPDATE</code> statement.
+	 * @return the <code>UPDATE</code> statement.
+	 */
+	String getStatement() {
+		return statement;
+	}
+	
+	/**
+	 * Returns the statement parameters for the specified key.
+	 * @param key the key of the updated record
+	 * @return the statement parameters.
+	 */
+	List<Object> getParameters(Object key){
+		List<Object> all = new ArrayList<>(params);
+		all.add(key);
+		return all;
+	}
+	
+}
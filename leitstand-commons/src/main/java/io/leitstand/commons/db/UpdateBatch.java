@@ -0,0 +1,173 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.db;
+
+import static io.leitstand.commons.db.DatabaseService.bind;
+import static io.leitstand.commons.db.DatabaseService.regexp;
+import static java.util.logging.Level.FINE;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.model.Update;
+
+/**
+ * A batch of parameterized SQL statements executed as JDBC batches.
+ * <p>
+ * The <code>UpdateBatch</code> collects SQL statements along with their parameters. 
+ * Consecutive parameter sets of the same SQL statement are sent as a single JDBC batch to the database, 
+ * which reduces the number of database round-trips significantly when many records are updated individually.
+ * The statements are executed in the order they were added to the batch, 
+ * such that later statements can depend on earlier statements (e.g. delete before insert or insert parent before child).
+ * </p>
+ * The listing below updates the operational state of many elements in one batch:
+ * <pre><code>
+ * UpdateBatch batch = updateBatch();
+ * for(Element element : elements){
+ *   batch.add("UPDATE inventory.element SET opstate=? WHERE uuid=?", OPERATIONAL, element.getElementId());
+ * }
+ * int count = repository.execute(batch);
+ * </code></pre>
+ * An <code>UpdateBatch</code> is an {@link Update} and can be executed by the {@link Repository}, 
+ * which flushes all pending changes before the batch is executed on the connection of the entity manager.
+ * This requires a JPA provider that exposes the JDBC connection by means of <code>EntityManager.unwrap(Connection.class)</code>.
+ * EclipseLink only exposes the connection within an active transaction, Hibernate does not expose the connection at all.
+ * The batch fails with an <code>IllegalStateException</code> if the connection is not available.
+ * Entities that were loaded before are not refreshed by the batch.
+ * Alternatively, a batch can be executed by the {@link DatabaseService}.
+ * @see DatabaseService#executeBatch(UpdateBatch)
+ */
+public final class UpdateBatch implements Update {
+
+	private static final Logger LOG = Logger.getLogger(UpdateBatch.class.getName());
+	
+	/**
+	 * Creates an empty <code>UpdateBatch</code>.
+	 * @return an empty update batch.
+	 */
+	public static UpdateBatch updateBatch() {
+		return new UpdateBatch();
+	}
+	
+	/**
+	 * A run of consecutive parameter sets of the same SQL statement.
+	 */
+	private static final class Run {
+		private final String statement;
+		private final List<Object[]> params = new ArrayList<>();
+		
+		Run(String statement){
+			this.statement = statement;
+		}
+	}
+	
+	private final List<Run> runs = new ArrayList<>();
+	private int size;
+	
+	/**
+	 * Adds a SQL statement to this batch.
+	 * @param statement the SQL statement
+	 * @param params the parameters for all parameter markers in the specified SQL statement.
+	 * @return this batch to add further statements
+	 */
+	public UpdateBatch add(String statement, Object... params) {
+		Run run = runs.isEmpty() ? null : runs.get(runs.size()-1);
+		if(run == null || !run.statement.equals(statement)) {
+			run = new Run(statement);
+			runs.add(run);
+		}
+		run.params.add(params);
+		size++;
+		return this;
+	}
+	
+	/**
+	 * Returns the number of statements in this batch.
+	 * @return the number of statements in this batch.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Returns <code>true</code> if this batch is empty.
+	 * @return <code>true</code> if this batch is empty.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Flushes all pending changes of the entity manager and executes this batch on the connection of the entity manager.
+	 * @param em the entity manager
+	 * @return the number of modified records
+	 * @throws IllegalStateException if the JPA provider does not expose the JDBC connection of the entity manager
+	 */
+	@Override
+	public int execute(EntityManager em) {
+		if(isEmpty()) {
+			return 0;
+		}
+		em.flush();
+		try {
+			return execute(connection(em));
+		} catch (SQLException e) {
+			LOG.log(FINE, e.getMessage(),e);
+			throw new DatabaseException(e);
+		}
+	}
+	
+	/**
+	 * Returns the JDBC connection of the specified entity manager.
+	 * @param em the entity manager
+	 * @return the JDBC connection
+	 * @throws IllegalStateException if the JPA provider does not expose the JDBC connection
+	 */
+	private static Connection connection(EntityManager em) {
+		try {
+			Connection c = em.unwrap(Connection.class);
+			if(c != null) {
+				return c;
+			}
+		} catch (PersistenceException | IllegalArgumentException e) {
+			LOG.log(FINE, e.getMessage(), e);
+		}
+		throw new IllegalStateException("JPA provider does not expose the JDBC connection of the entity manager. "+
+										"Execute the batch within an active transaction or by means of DatabaseService.executeBatch(UpdateBatch).");
+	}
+	
+	/**
+	 * Executes this batch on the specified connection.
+	 * Statements reporting an unknown number of affected rows are not considered in the returned count.
+	 * @param c the connection
+	 * @return the number of modified records
+	 * @throws SQLException if a statement cannot be executed
+	 */
+	int execute(Connection c) throws SQLException {
+		int count = 0;
+		for(Run run : runs) {
+			try(PreparedStatement ps = c.prepareStatement(regexp(run.statement))){
+				for(Object[] params : run.params) {
+					bind(ps,params);
+					ps.addBatch();
+				}
+				for(int rows : ps.executeBatch()) {
+					if(rows > 0) {
+						count += rows;
+					}
+				}
+			}
+		}
+		return count;
+	}
+	
+}
@@ -3,7 +3,7 @@
  */
 package io.leitstand.commons.jpa;
 
-import static io.leitstand.commons.json.SerializableJsonObject.serializable;
+import static io.leitstand.commons.json.SerializableJsonObject.fromString;
 import static java.lang.Boolean.parseBoolean;
 import static java.lang.System.getProperty;
 import static javax.json.Json.createReader;
@@ -18,8 +18,21 @@ import javax.persistence.Converter;
 
 import org.postgresql.util.PGobject;
 
+import io.leitstand.commons.json.JsonDeduplication;
 import io.leitstand.commons.json.SerializableJsonObject;
 
+/**
+ * Converts a {@link SerializableJsonObject} to a PostgreSQL <code>json</code> column or to a string for other databases.
+ * <p>
+ * The <code>POSTGRES_JSON_TYPE</code> system property sets the default PostgreSQL column type,
+ * which is either <code>json</code> or <code>jsonb</code> and defaults to <code>json</code>.
+ * The {@link SerializableJsonbObjectConverter} maps an attribute to a <code>jsonb</code> column regardless of the default column type.
+ * </p>
+ * <p>
+ * The JSON text read from the database is passed to the {@link SerializableJsonObject} as is and only parsed when the JSON object is accessed.
+ * Likewise, the JSON text of an unmodified JSON object is written to the database without formatting the JSON object again.
+ * </p>
+ */
 @Converter(autoApply = true)
 public class SerializableJsonObjectConverter implements AttributeConverter<SerializableJsonObject, Object>{
 
@@ -33,12 +46,24 @@ public class SerializableJsonObjectConverter implements AttributeConverter<Seria
 		POSTGRES = parseBoolean(test);
 	}
 	
+	static final String JSON_TYPE = getProperty("POSTGRES_JSON_TYPE","json");
+	
+	private final String type;
+	
+	public SerializableJsonObjectConverter() {
+		this(JSON_TYPE);
+	}
+	
+	protected SerializableJsonObjectConverter(String type) {
+		this.type = type;
+	}
+	
 	@Override
 	public Object convertToDatabaseColumn(SerializableJsonObject json) {
 		if(POSTGRES) {
 			try{
 				PGobject object = new PGobject();
-				object.setType("json");
+				object.setType(type);
 				object.setValue(json != null ? json.toString() : null);
 				return object;
 			} catch (SQLException e){
@@ -60,13 +85,18 @@ public class SerializableJsonObjectConverter implements AttributeConverter<Seria
 		if(POSTGRES) {
 			json = ((PGobject)value).getValue();
 		}
-		return serializable(parseJson(json));
+		return fromString(json);
 	}
 
 	public static JsonObject parseJson(String json) {
 		if(json == null || json.isEmpty()) {
 			return null;
 		}
+		if(JsonDeduplication.isEnabled()) {
+			try(JsonReader reader = JsonDeduplication.provider().createReader(new StringReader(json))){
+				return reader.readObject();
+			}
+		}
 		try(JsonReader reader = createReader(new StringReader(json))){
 			return reader.readObject();
 		}
@@ -0,0 +1,27 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.jpa;
+
+import javax.persistence.Converter;
+
+import io.leitstand.commons.json.SerializableJsonObject;
+
+/**
+ * Converts a {@link SerializableJsonObject} to a PostgreSQL <code>jsonb</code> column or to a string for other databases.
+ * <p>
+ * The converter must be declared explicitly for every attribute stored in a <code>jsonb</code> column:
+ * <pre><code>
+ * {@literal @Convert(converter=SerializableJsonbObjectConverter.class)}
+ * private SerializableJsonObject config;
+ * </code></pre>
+ * </p>
+ */
+@Converter(autoApply = false)
+public class SerializableJsonbObjectConverter extends SerializableJsonObjectConverter {
+
+	public SerializableJsonbObjectConverter() {
+		super("jsonb");
+	}
+	
+}
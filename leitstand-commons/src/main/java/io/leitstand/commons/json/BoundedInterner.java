@@ -0,0 +1,57 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.json;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A bounded, thread-safe interner for strings.
+ * <p>
+ * Unlike <code>String.intern()</code>, the interner is bounded. 
+ * Strings are returned as is when the interner is full.
+ * The bound is approximate, because concurrent threads may add strings at the same time.
+ * The interner keeps strong references to the interned strings, 
+ * which is acceptable for a bounded set of JSON property names.
+ * Lookups are lock-free, so that concurrent readers do not contend on the interner.
+ * </p>
+ */
+final class BoundedInterner {
+
+	private final ConcurrentMap<String,String> strings;
+	private final int capacity;
+	
+	BoundedInterner(int capacity){
+		this.strings = new ConcurrentHashMap<>();
+		this.capacity = capacity;
+	}
+	
+	/**
+	 * Returns the canonical representation of the specified string.
+	 * @param value the string
+	 * @return the canonical representation or the specified string if no canonical representation exists and the interner is full.
+	 */
+	String intern(String value) {
+		String canonical = strings.get(value);
+		if(canonical != null) {
+			return canonical;
+		}
+		if(strings.size() < capacity) {
+			canonical = strings.putIfAbsent(value, value);
+			if(canonical != null) {
+				return canonical;
+			}
+		}
+		return value;
+	}
+	
+	/**
+	 * Returns the number of interned strings.
+	 * @return the number of interned strings.
+	 */
+	int size() {
+		return strings.size();
+	}
+	
+}
@@ -0,0 +1,370 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.json;
+
+import static io.leitstand.commons.json.JsonDeduplication.intern;
+import static io.leitstand.commons.json.JsonDeduplication.saved;
+import static javax.json.JsonValue.EMPTY_JSON_ARRAY;
+import static javax.json.JsonValue.EMPTY_JSON_OBJECT;
+import static javax.json.JsonValue.FALSE;
+import static javax.json.JsonValue.NULL;
+import static javax.json.JsonValue.TRUE;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonException;
+import javax.json.JsonMergePatch;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonPatch;
+import javax.json.JsonPatchBuilder;
+import javax.json.JsonPointer;
+import javax.json.JsonReader;
+import javax.json.JsonReaderFactory;
+import javax.json.JsonString;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.spi.JsonProvider;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParserFactory;
+import javax.json.stream.JsonParsingException;
+
+/**
+ * A <code>JsonProvider</code> that creates canonical JSON trees.
+ * <p>
+ * The readers created by this provider intern all property names and share immutable leaf values, 
+ * namely <code>true</code>, <code>false</code>, <code>null</code>, small integers, empty arrays and empty objects.
+ * All other operations are forwarded to the default provider.
+ * </p>
+ * @see JsonDeduplication
+ */
+public class CanonicalJsonProvider extends JsonProvider {
+	
+	static final int MIN_CACHED_INT = -128;
+	static final int MAX_CACHED_INT = 1024;
+	
+	/** 
+	 * Estimated size of a JSON number with its <code>BigDecimal</code> value.
+	 */
+	static final long NUMBER_SIZE = 16 + 40;
+	
+	/**
+	 * Estimated size of an empty JSON object or array with its backing collection.
+	 */
+	static final long STRUCTURE_SIZE = 16 + 48;
+
+	private final JsonProvider provider;
+	private final JsonNumber[] ints;
+	
+	CanonicalJsonProvider(JsonProvider provider){
+		this.provider = provider;
+		this.ints = new JsonNumber[MAX_CACHED_INT - MIN_CACHED_INT + 1];
+		for(int i=0; i < ints.length; i++) {
+			ints[i] = provider.createValue(MIN_CACHED_INT + i);
+		}
+	}
+	
+	/**
+	 * Reads canonical JSON trees from a JSON parser.
+	 */
+	private final class CanonicalJsonReader implements JsonReader {
+		
+		private final JsonParser parser;
+		private boolean read;
+		
+		CanonicalJsonReader(JsonParser parser){
+			this.parser = parser;
+		}
+		
+		@Override
+		public JsonStructure read() {
+			JsonValue value = readValue();
+			if(value instanceof JsonStructure) {
+				return (JsonStructure) value;
+			}
+			throw new JsonException("JSON object or JSON array expected");
+		}
+
+		@Override
+		public JsonObject readObject() {
+			JsonValue value = readValue();
+			if(value instanceof JsonObject) {
+				return (JsonObject) value;
+			}
+			throw new JsonException("JSON object expected");
+		}
+
+		@Override
+		public JsonArray readArray() {
+			JsonValue value = readValue();
+			if(value instanceof JsonArray) {
+				return (JsonArray) value;
+			}
+			throw new JsonException("JSON array expected");
+		}
+		
+		@Override
+		public JsonValue readValue() {
+			if(read) {
+				throw new IllegalStateException("JSON value already read");
+			}
+			read = true;
+			if(!parser.hasNext()) {
+				throw new JsonParsingException("No JSON value available", parser.getLocation());
+			}
+			return value(parser.next());
+		}
+
+		@Override
+		public void close() {
+			parser.close();
+		}
+		
+		private JsonValue value(Event event) {
+			switch(event) {
+				case START_OBJECT: return object();
+				case START_ARRAY: return array();
+				case VALUE_STRING: return provider.createValue(parser.getString());
+				case VALUE_NUMBER: return number();
+				case VALUE_TRUE: return TRUE;
+				case VALUE_FALSE: return FALSE;
+				case VALUE_NULL: return NULL;
+				default: throw new JsonParsingException("Unexpected JSON event: "+event, parser.getLocation());
+			}
+		}
+		
+		private JsonValue object() {
+			JsonObjectBuilder object = null;
+			while(parser.hasNext()) {
+				Event event = parser.next();
+				if(event == Event.END_OBJECT) {
+					if(object == null) {
+						saved(STRUCTURE_SIZE);
+						return EMPTY_JSON_OBJECT;
+					}
+					return object.build();
+				}
+				if(object == null) {
+					object = provider.createObjectBuilder();
+				}
+				String key = intern(parser.getString());
+				object.add(key, value(parser.next()));
+			}
+			throw new JsonParsingException("Unexpected end of JSON object", parser.getLocation());
+		}
+		
+		private JsonValue array() {
+			JsonArrayBuilder array = null;
+			while(parser.hasNext()) {
+				Event event = parser.next();
+				if(event == Event.END_ARRAY) {
+					if(array == null) {
+						saved(STRUCTURE_SIZE);
+						return EMPTY_JSON_ARRAY;
+					}
+					return array.build();
+				}
+				if(array == null) {
+					array = provider.createArrayBuilder();
+				}
+				array.add(value(event));
+			}
+			throw new JsonParsingException("Unexpected end of JSON array", parser.getLocation());
+		}
+		
+		private JsonValue number() {
+			BigDecimal value = parser.getBigDecimal();
+			if(parser.isIntegralNumber() && value.scale() == 0) {
+				try {
+					return createValue(value.intValueExact());
+				} catch (ArithmeticException e) {
+					// Not an int value.
+				}
+			}
+			return provider.createValue(value);
+		}
+		
+	}
+	
+	@Override
+	public JsonReader createReader(Reader reader) {
+		return new CanonicalJsonReader(provider.createParser(reader));
+	}
+
+	@Override
+	public JsonReader createReader(InputStream in) {
+		return new CanonicalJsonReader(provider.createParser(in));
+	}
+	
+	@Override
+	public JsonNumber createValue(int value) {
+		if(MIN_CACHED_INT <= value && value <= MAX_CACHED_INT) {
+			saved(NUMBER_SIZE);
+			return ints[value - MIN_CACHED_INT];
+		}
+		return provider.createValue(value);
+	}
+
+	@Override
+	public JsonParser createParser(Reader reader) {
+		return provider.createParser(reader);
+	}
+
+	@Override
+	public JsonParser createParser(InputStream in) {
+		return provider.createParser(in);
+	}
+
+	@Override
+	public JsonParserFactory createParserFactory(Map<String, ?> config) {
+		return provider.createParserFactory(config);
+	}
+
+	@Override
+	public JsonGenerator createGenerator(Writer writer) {
+		return provider.createGenerator(writer);
+	}
+
+	@Override
+	public JsonGenerator createGenerator(OutputStream out) {
+		return provider.createGenerator(out);
+	}
+
+	@Override
+	public JsonGeneratorFactory createGeneratorFactory(Map<String, ?> config) {
+		return provider.createGeneratorFactory(config);
+	}
+
+	@Override
+	public JsonWriter createWriter(Writer writer) {
+		return provider.createWriter(writer);
+	}
+
+	@Override
+	public JsonWriter createWriter(OutputStream out) {
+		return provider.createWriter(out);
+	}
+
+	@Override
+	public JsonWriterFactory createWriterFactory(Map<String, ?> config) {
+		return provider.createWriterFactory(config);
+	}
+
+	@Override
+	public JsonReaderFactory createReaderFactory(Map<String, ?> config) {
+		return provider.createReaderFactory(config);
+	}
+
+	@Override
+	public JsonObjectBuilder createObjectBuilder() {
+		return provider.createObjectBuilder();
+	}
+	
+	@Override
+	public JsonObjectBuilder createObjectBuilder(JsonObject object) {
+		return provider.createObjectBuilder(object);
+	}
+	
+	@Override
+	public JsonObjectBuilder createObjectBuilder(Map<String, Object> map) {
+		return provider.createObjectBuilder(map);
+	}
+
+	@Override
+	public JsonArrayBuilder createArrayBuilder() {
+		return provider.createArrayBuilder();
+	}
+	
+	@Override
+	public JsonArrayBuilder createArrayBuilder(JsonArray array) {
+		return provider.createArrayBuilder(array);
+	}
+	
+	@Override
+	public JsonArrayBuilder createArrayBuilder(Collection<?> collection) {
+		return provider.createArrayBuilder(collection);
+	}
+
+	@Override
+	public JsonBuilderFactory createBuilderFactory(Map<String, ?> config) {
+		return provider.createBuilderFactory(config);
+	}
+	
+	@Override
+	public JsonPointer createPointer(String pointer) {
+		return provider.createPointer(pointer);
+	}
+	
+	@Override
+	public JsonPatchBuilder createPatchBuilder() {
+		return provider.createPatchBuilder();
+	}
+	
+	@Override
+	public JsonPatchBuilder createPatchBuilder(JsonArray array) {
+		return provider.createPatchBuilder(array);
+	}
+	
+	@Override
+	public JsonPatch createPatch(JsonArray array) {
+		return provider.createPatch(array);
+	}
+	
+	@Override
+	public JsonPatch createDiff(JsonStructure source, JsonStructure target) {
+		return provider.createDiff(source, target);
+	}
+	
+	@Override
+	public JsonMergePatch createMergePatch(JsonValue patch) {
+		return provider.createMergePatch(patch);
+	}
+	
+	@Override
+	public JsonMergePatch createMergeDiff(JsonValue source, JsonValue target) {
+		return provider.createMergeDiff(source, target);
+	}
+	
+	@Override
+	public JsonString createValue(String value) {
+		return provider.createValue(value);
+	}
+	
+	@Override
+	public JsonNumber createValue(long value) {
+		return provider.createValue(value);
+	}
+	
+	@Override
+	public JsonNumber createValue(double value) {
+		return provider.createValue(value);
+	}
+	
+	@Override
+	public JsonNumber createValue(BigDecimal value) {
+		return provider.createValue(value);
+	}
+	
+	@Override
+	public JsonNumber createValue(BigInteger value) {
+		return provider.createValue(value);
+	}
+	
+}
@@ -0,0 +1,272 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.json;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.json.Json.createBuilderFactory;
+import static javax.json.Json.createValue;
+import static javax.json.JsonValue.EMPTY_JSON_ARRAY;
+import static javax.json.JsonValue.EMPTY_JSON_OBJECT;
+import static javax.json.JsonValue.FALSE;
+import static javax.json.JsonValue.NULL;
+import static javax.json.JsonValue.TRUE;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * Compact binary encoding of a <code>JsonObject</code> for Java serialization.
+ * <p>
+ * The encoding starts with a version byte followed by the encoded object.
+ * Every value starts with a tag byte. Integral numbers are written as zig-zag encoded variable length integers,
+ * strings as UTF-8 bytes prefixed by the variable length byte count.
+ * Object keys are written once and referenced by their index afterwards, 
+ * which shrinks arrays of objects with the same keys considerably.
+ * </p>
+ */
+final class JsonBinaryCodec {
+
+	static final byte VERSION = 1;
+	
+	private static final int TAG_NULL 	 = 0;
+	private static final int TAG_TRUE 	 = 1;
+	private static final int TAG_FALSE   = 2;
+	private static final int TAG_INTEGER = 3;
+	private static final int TAG_DECIMAL = 4;
+	private static final int TAG_STRING  = 5;
+	private static final int TAG_ARRAY   = 6;
+	private static final int TAG_OBJECT  = 7;
+	
+	private static final JsonBuilderFactory BUILDERS = createBuilderFactory(null);
+
+	/**
+	 * Encodes the specified JSON object.
+	 * @param object the JSON object
+	 * @return the binary representation including the version byte.
+	 */
+	static byte[] encode(JsonObject object) {
+		Encoder encoder = new Encoder();
+		encoder.write(VERSION);
+		encoder.value(object);
+		return encoder.toByteArray();
+	}
+
+	/**
+	 * Decodes the specified binary representation.
+	 * @param data the binary representation including the version byte
+	 * @return the decoded JSON object.
+	 * @throws IOException if the binary representation is invalid.
+	 */
+	static JsonObject decode(byte[] data) throws IOException {
+		if(data.length == 0 || data[0] != VERSION) {
+			throw new InvalidObjectException("Unsupported JSON binary encoding version");
+		}
+		try {
+			Decoder decoder = new Decoder(data);
+			JsonValue value = decoder.value();
+			if(value instanceof JsonObject) {
+				return (JsonObject) value;
+			}
+			throw new InvalidObjectException("JSON object expected");
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new InvalidObjectException("Truncated JSON binary encoding");
+		}
+	}
+	
+	private static final class Encoder extends ByteArrayOutputStream {
+		
+		private final Map<String,Integer> keys = new HashMap<>();
+		
+		Encoder(){
+			super(256);
+		}
+		
+		void value(JsonValue value) {
+			switch(value.getValueType()) {
+				case NULL: write(TAG_NULL); break;
+				case TRUE: write(TAG_TRUE); break;
+				case FALSE: write(TAG_FALSE); break;
+				case NUMBER: number((JsonNumber)value); break;
+				case STRING: {
+					write(TAG_STRING); 
+					string(((JsonString)value).getString()); 
+					break;
+				}
+				case ARRAY: {
+					JsonArray array = (JsonArray) value;
+					write(TAG_ARRAY);
+					varint(array.size());
+					for(JsonValue item : array) {
+						value(item);
+					}
+					break;
+				}
+				default: {
+					JsonObject object = (JsonObject) value;
+					write(TAG_OBJECT);
+					varint(object.size());
+					for(Map.Entry<String,JsonValue> entry : object.entrySet()) {
+						key(entry.getKey());
+						value(entry.getValue());
+					}
+				}
+			}
+		}
+		
+		private void number(JsonNumber number) {
+			if(number.isIntegral()) {
+				try {
+					long value = number.bigDecimalValue().longValueExact();
+					write(TAG_INTEGER);
+					varint((value << 1) ^ (value >> 63));
+					return;
+				} catch (ArithmeticException e) {
+					// Exceeds long range. Continue with decimal encoding.
+				}
+			}
+			write(TAG_DECIMAL);
+			string(number.bigDecimalValue().toString());
+		}
+		
+		private void key(String key) {
+			Integer index = keys.get(key);
+			if(index != null) {
+				varint(index + 1L);
+				return;
+			}
+			keys.put(key, keys.size());
+			varint(0);
+			string(key);
+		}
+		
+		private void string(String value) {
+			byte[] bytes = value.getBytes(UTF_8);
+			varint(bytes.length);
+			write(bytes, 0, bytes.length);
+		}
+		
+		private void varint(long value) {
+			while((value & ~0x7FL) != 0) {
+				write((int)((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			write((int)value);
+		}
+		
+	}
+	
+	private static final class Decoder {
+		
+		private final byte[] data;
+		private final List<String> keys = new ArrayList<>();
+		private int pos = 1;
+		
+		Decoder(byte[] data){
+			this.data = data;
+		}
+		
+		JsonValue value() throws IOException {
+			int tag = data[pos++];
+			switch(tag) {
+				case TAG_NULL: return NULL;
+				case TAG_TRUE: return TRUE;
+				case TAG_FALSE: return FALSE;
+				case TAG_INTEGER: {
+					long value = varint();
+					return createValue((value >>> 1) ^ -(value & 1));
+				}
+				case TAG_DECIMAL: return createValue(new BigDecimal(string()));
+				case TAG_STRING: return createValue(string());
+				case TAG_ARRAY: {
+					int size = size();
+					if(size == 0) {
+						return EMPTY_JSON_ARRAY;
+					}
+					JsonArrayBuilder array = BUILDERS.createArrayBuilder();
+					for(int i=0; i < size; i++) {
+						array.add(value());
+					}
+					return array.build();
+				}
+				case TAG_OBJECT: {
+					int size = size();
+					if(size == 0) {
+						return EMPTY_JSON_OBJECT;
+					}
+					JsonObjectBuilder object = BUILDERS.createObjectBuilder();
+					for(int i=0; i < size; i++) {
+						String key = key();
+						object.add(key, value());
+					}
+					return object.build();
+				}
+				default: throw new InvalidObjectException("Unknown JSON binary tag "+tag);
+			}
+		}
+		
+		private String key() throws IOException {
+			int index = size();
+			if(index == 0) {
+				String key = string();
+				keys.add(key);
+				return key;
+			}
+			if(index > keys.size()) {
+				throw new InvalidObjectException("Unknown JSON key reference "+index);
+			}
+			return keys.get(index-1);
+		}
+		
+		private String string() throws IOException {
+			int length = size();
+			if(pos + length > data.length) {
+				throw new InvalidObjectException("Truncated JSON binary encoding");
+			}
+			String value = new String(data, pos, length, UTF_8);
+			pos += length;
+			return value;
+		}
+		
+		private int size() throws IOException {
+			long size = varint();
+			if(size < 0 || size > Integer.MAX_VALUE) {
+				throw new InvalidObjectException("Invalid JSON binary size "+size);
+			}
+			return (int) size;
+		}
+		
+		private long varint() throws IOException {
+			long value = 0;
+			for(int shift = 0; shift < 64; shift += 7) {
+				byte b = data[pos++];
+				value |= (long)(b & 0x7F) << shift;
+				if((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new InvalidObjectException("Malformed variable length integer");
+		}
+		
+	}
+	
+	private JsonBinaryCodec() {
+		// No instances allowed
+	}
+	
+}
@@ -0,0 +1,93 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.json;
+
+import static io.leitstand.commons.metrics.Metrics.counter;
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.Integer.getInteger;
+import static java.lang.System.getProperty;
+
+import javax.json.spi.JsonProvider;
+
+import io.leitstand.commons.metrics.Counter;
+
+/**
+ * Deduplicates JSON trees held in memory.
+ * <p>
+ * Many JSON objects kept in memory, like configurations and template models, use the same property names and
+ * contain the same leaf values. 
+ * The deduplication interns property names in a bounded interner and shares immutable leaf values,
+ * namely <code>true</code>, <code>false</code>, <code>null</code>, small integers, empty arrays and empty objects.
+ * The deduplication is disabled by default and enabled by setting the <code>JSON_DEDUPLICATION</code> system property to <code>true</code>.
+ * The <code>JSON_INTERNER_CAPACITY</code> system property sets the maximum number of interned property names and defaults to 65536.
+ * </p>
+ * <p>
+ * The estimated number of saved bytes is reported by the <code>json.deduplication.bytes_saved</code> counter.
+ * </p>
+ * @see CanonicalJsonProvider
+ */
+public final class JsonDeduplication {
+
+	static final boolean ENABLED = parseBoolean(getProperty("JSON_DEDUPLICATION","false"));
+	
+	private static final BoundedInterner KEYS = new BoundedInterner(getInteger("JSON_INTERNER_CAPACITY",65536));
+	
+	private static final CanonicalJsonProvider PROVIDER = new CanonicalJsonProvider(JsonProvider.provider());
+	
+	private static final Counter BYTES_SAVED = counter("json.deduplication.bytes_saved");
+	
+	/**
+	 * Returns whether JSON deduplication is enabled.
+	 * @return <code>true</code> if JSON deduplication is enabled, <code>false</code> otherwise.
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+	
+	/**
+	 * Returns the canonicalising JSON provider.
+	 * @return the canonicalising JSON provider.
+	 */
+	public static JsonProvider provider() {
+		return PROVIDER;
+	}
+	
+	/**
+	 * Returns the canonical representation of the specified property name.
+	 * @param key the property name
+	 * @return the canonical representation of the property name.
+	 */
+	public static String intern(String key) {
+		String canonical = KEYS.intern(key);
+		if(canonical != key) {
+			saved(stringSize(key));
+		}
+		return canonical;
+	}
+	
+	/**
+	 * Returns the estimated number of bytes saved by the deduplication.
+	 * @return the estimated number of saved bytes.
+	 */
+	public static long getBytesSaved() {
+		return BYTES_SAVED.getCount();
+	}
+	
+	static void saved(long bytes) {
+		BYTES_SAVED.add(bytes);
+	}
+	
+	/**
+	 * Estimates the retained size of a string, 
+	 * i.e. the string object with its hash code field and the character array with two bytes per character.
+	 */
+	static long stringSize(String value) {
+		return 24 + 16 + 2L * value.length();
+	}
+	
+	private JsonDeduplication() {
+		// No instances allowed
+	}
+	
+}
@@ -3,16 +3,17 @@
  */
 package io.leitstand.commons.json;
 
-import static io.leitstand.commons.jsonb.JsonbDefaults.jsonb;
-import static javax.json.Json.createReader;
-
-import java.io.StringReader;
+import static io.leitstand.commons.json.JsonbTreeBinding.toJsonValue;
 
+import javax.json.JsonException;
 import javax.json.JsonObject;
-import javax.json.JsonReader;
+import javax.json.JsonValue;
 
 /**
  * A utility to convert a Java object to a JSON object.
+ * <p>
+ * The Java object is converted to a JSON object without formatting and parsing JSON text.
+ * </p>
  */
 public final class JsonMarshaller {
 
@@ -26,11 +27,11 @@ public final class JsonMarshaller {
 		if(object == null) {
 			return null;
 		}
-		String json = jsonb().toJson(object);
-		try(StringReader buffer = new StringReader(json);
-			JsonReader reader = createReader(buffer)){
-			return reader.readObject();
+		JsonValue value = toJsonValue(object);
+		if(value instanceof JsonObject) {
+			return (JsonObject) value;
 		}
+		throw new JsonException("JSON object expected");
 	}
 	
 	private JsonMarshaller() {
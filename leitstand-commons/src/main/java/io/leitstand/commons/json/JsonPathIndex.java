@@ -0,0 +1,112 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.json;
+
+import static java.lang.Integer.getInteger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+
+/**
+ * A lazily populated index of the values of an immutable JSON object.
+ * <p>
+ * The index resolves a path once and returns the cached value for all subsequent lookups of the same path.
+ * A path is either a JSON pointer as defined by RFC 6901 (e.g. <code>/interfaces/3/vlans/12/name</code>)
+ * or a dotted path (e.g. <code>interfaces.3.vlans.12.name</code>). 
+ * Array elements are addressed by their index in both notations.
+ * Property names that contain a dot can only be addressed by a JSON pointer.
+ * </p>
+ * <p>
+ * The number of cached paths is limited by the <code>JSON_PATH_INDEX_CAPACITY</code> system property, which defaults to 1024.
+ * Paths are still resolved but no longer cached when the index is full.
+ * </p>
+ */
+final class JsonPathIndex {
+
+	static final int CAPACITY = getInteger("JSON_PATH_INDEX_CAPACITY",1024);
+	
+	private static final Object MISSING = new Object();
+	
+	private final JsonObject root;
+	private final ConcurrentMap<String,Object> values;
+	
+	JsonPathIndex(JsonObject root){
+		this.root = root;
+		this.values = new ConcurrentHashMap<>();
+	}
+	
+	/**
+	 * Returns the value of the specified path.
+	 * @param path the JSON pointer or dotted path
+	 * @return the value or <code>null</code> if the path does not exist.
+	 */
+	JsonValue get(String path) {
+		Object value = values.get(path);
+		if(value == null) {
+			value = resolve(root, tokens(path));
+			if(values.size() < CAPACITY) {
+				values.putIfAbsent(path, value);
+			}
+		}
+		return value == MISSING ? null : (JsonValue) value;
+	}
+	
+	private static Object resolve(JsonValue value, List<String> tokens) {
+		JsonValue current = value;
+		for(String token : tokens) {
+			if(current instanceof JsonObject) {
+				current = ((JsonObject)current).get(token);
+			} else if (current instanceof JsonArray) {
+				JsonArray array = (JsonArray) current;
+				int index = index(token);
+				current = 0 <= index && index < array.size() ? array.get(index) : null;
+			} else {
+				return MISSING;
+			}
+			if(current == null) {
+				return MISSING;
+			}
+		}
+		return current;
+	}
+	
+	private static int index(String token) {
+		if(token.isEmpty() || token.length() > 9 || (token.length() > 1 && token.charAt(0) == '0')) {
+			return -1;
+		}
+		int index = 0;
+		for(int i=0; i < token.length(); i++) {
+			char c = token.charAt(i);
+			if(c < '0' || c > '9') {
+				return -1;
+			}
+			index = 10 * index + (c - '0');
+		}
+		return index;
+	}
+	
+	static List<String> tokens(String path) {
+		List<String> tokens = new ArrayList<>();
+		if(path.isEmpty()) {
+			return tokens;
+		}
+		if(path.charAt(0) == '/') {
+			for(String token : path.substring(1).split("/",-1)) {
+				tokens.add(token.replace("~1", "/").replace("~0", "~"));
+			}
+			return tokens;
+		}
+		for(String token : path.split("\\.",-1)) {
+			tokens.add(token);
+		}
+		return tokens;
+	}
+	
+}
@@ -0,0 +1,266 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.json;
+
+import static javax.json.Json.createBuilderFactory;
+import static javax.json.Json.createValue;
+import static javax.json.JsonValue.FALSE;
+import static javax.json.JsonValue.NULL;
+import static javax.json.JsonValue.TRUE;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonValue;
+import javax.json.stream.JsonGenerationException;
+import javax.json.stream.JsonGenerator;
+
+/**
+ * A <code>JsonGenerator</code> that builds a JSON tree instead of writing JSON text.
+ * <p>
+ * The generator allows a JSON binding to create a <code>JsonValue</code> without formatting and parsing JSON text.
+ * </p>
+ */
+final class JsonTreeGenerator implements JsonGenerator {
+
+	private static final JsonBuilderFactory BUILDERS = createBuilderFactory(null);
+	
+	/**
+	 * A JSON object or JSON array under construction.
+	 */
+	private static final class Frame {
+		private final String name;
+		private final JsonObjectBuilder object;
+		private final JsonArrayBuilder array;
+		private String key;
+		
+		Frame(String name, JsonObjectBuilder object, JsonArrayBuilder array){
+			this.name = name;
+			this.object = object;
+			this.array = array;
+		}
+		
+		void add(JsonValue value) {
+			if(array != null) {
+				array.add(value);
+				return;
+			}
+			if(key == null) {
+				throw new JsonGenerationException("Property name expected");
+			}
+			object.add(key, value);
+			key = null;
+		}
+		
+		JsonValue build() {
+			return array != null ? array.build() : object.build();
+		}
+	}
+	
+	private final Deque<Frame> frames = new ArrayDeque<>();
+	private JsonValue root;
+	
+	/**
+	 * Returns the generated JSON value.
+	 * @return the generated JSON value or <code>null</code> if the JSON value is not complete.
+	 */
+	JsonValue getValue() {
+		return frames.isEmpty() ? root : null;
+	}
+	
+	private JsonGenerator value(JsonValue value) {
+		Frame frame = frames.peek();
+		if(frame == null) {
+			if(root != null) {
+				throw new JsonGenerationException("JSON value already generated");
+			}
+			root = value;
+		} else {
+			frame.add(value);
+		}
+		return this;
+	}
+	
+	private JsonGenerator value(String name, JsonValue value) {
+		writeKey(name);
+		return value(value);
+	}
+	
+	private String nextName() {
+		Frame frame = frames.peek();
+		if(frame == null || frame.array != null) {
+			return null;
+		}
+		if(frame.key == null) {
+			throw new JsonGenerationException("Property name expected");
+		}
+		String name = frame.key;
+		frame.key = null;
+		return name;
+	}
+	
+	private JsonGenerator start(JsonObjectBuilder object, JsonArrayBuilder array) {
+		if(frames.isEmpty() && root != null) {
+			throw new JsonGenerationException("JSON value already generated");
+		}
+		frames.push(new Frame(nextName(), object, array));
+		return this;
+	}
+
+	@Override
+	public JsonGenerator writeStartObject() {
+		return start(BUILDERS.createObjectBuilder(), null);
+	}
+
+	@Override
+	public JsonGenerator writeStartObject(String name) {
+		writeKey(name);
+		return writeStartObject();
+	}
+
+	@Override
+	public JsonGenerator writeKey(String name) {
+		Frame frame = frames.peek();
+		if(frame == null || frame.array != null) {
+			throw new JsonGenerationException("Property name not allowed outside of a JSON object");
+		}
+		frame.key = name;
+		return this;
+	}
+
+	@Override
+	public JsonGenerator writeStartArray() {
+		return start(null, BUILDERS.createArrayBuilder());
+	}
+
+	@Override
+	public JsonGenerator writeStartArray(String name) {
+		writeKey(name);
+		return writeStartArray();
+	}
+
+	@Override
+	public JsonGenerator write(String name, JsonValue value) {
+		return value(name, value);
+	}
+
+	@Override
+	public JsonGenerator write(String name, String value) {
+		return value(name, createValue(value));
+	}
+
+	@Override
+	public JsonGenerator write(String name, BigInteger value) {
+		return value(name, createValue(value));
+	}
+
+	@Override
+	public JsonGenerator write(String name, BigDecimal value) {
+		return value(name, createValue(value));
+	}
+
+	@Override
+	public JsonGenerator write(String name, int value) {
+		return value(name, createValue(value));
+	}
+
+	@Override
+	public JsonGenerator write(String name, long value) {
+		return value(name, createValue(value));
+	}
+
+	@Override
+	public JsonGenerator write(String name, double value) {
+		return value(name, createValue(value));
+	}
+
+	@Override
+	public JsonGenerator write(String name, boolean value) {
+		return value(name, value ? TRUE : FALSE);
+	}
+
+	@Override
+	public JsonGenerator writeNull(String name) {
+		return value(name, NULL);
+	}
+
+	@Override
+	public JsonGenerator writeEnd() {
+		Frame frame = frames.poll();
+		if(frame == null) {
+			throw new JsonGenerationException("No JSON object or JSON array to end");
+		}
+		JsonValue value = frame.build();
+		Frame parent = frames.peek();
+		if(parent == null) {
+			root = value;
+		} else if (parent.array != null) {
+			parent.array.add(value);
+		} else {
+			parent.object.add(frame.name, value);
+		}
+		return this;
+	}
+
+	@Override
+	public JsonGenerator write(JsonValue value) {
+		return value(value);
+	}
+
+	@Override
+	public JsonGenerator write(String value) {
+		return value(createValue(value));
+	}
+
+	@Override
+	public JsonGenerator write(BigDecimal value) {
+		return value(createValue(value));
+	}
+
+	@Override
+	public JsonGenerator write(BigInteger value) {
+		return value(createValue(value));
+	}
+
+	@Override
+	public JsonGenerator write(int value) {
+		return value(createValue(value));
+	}
+
+	@Override
+	public JsonGenerator write(long value) {
+		return value(createValue(value));
+	}
+
+	@Override
+	public JsonGenerator write(double value) {
+		return value(createValue(value));
+	}
+
+	@Override
+	public JsonGenerator write(boolean value) {
+		return value(value ? TRUE : FALSE);
+	}
+
+	@Override
+	public JsonGenerator writeNull() {
+		return value(NULL);
+	}
+
+	@Override
+	public void close() {
+		// Nothing to close
+	}
+
+	@Override
+	public void flush() {
+		// Nothing to flush
+	}
+
+}
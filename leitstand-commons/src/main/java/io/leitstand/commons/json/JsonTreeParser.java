@@ -0,0 +1,261 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.json;
+
+import static javax.json.Json.createValue;
+import static javax.json.stream.JsonParser.Event.END_ARRAY;
+import static javax.json.stream.JsonParser.Event.END_OBJECT;
+import static javax.json.stream.JsonParser.Event.KEY_NAME;
+import static javax.json.stream.JsonParser.Event.START_ARRAY;
+import static javax.json.stream.JsonParser.Event.START_OBJECT;
+import static javax.json.stream.JsonParser.Event.VALUE_FALSE;
+import static javax.json.stream.JsonParser.Event.VALUE_NULL;
+import static javax.json.stream.JsonParser.Event.VALUE_NUMBER;
+import static javax.json.stream.JsonParser.Event.VALUE_STRING;
+import static javax.json.stream.JsonParser.Event.VALUE_TRUE;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import javax.json.JsonArray;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.json.stream.JsonLocation;
+import javax.json.stream.JsonParser;
+
+/**
+ * A <code>JsonParser</code> that reads a JSON tree instead of parsing JSON text.
+ * <p>
+ * The parser allows a JSON binding to read a Java object from a <code>JsonObject</code> without formatting and parsing JSON text.
+ * The stream offset reported by {@link #getLocation()} is the number of events read so far,
+ * i.e. the offset is <code>0</code> until the first event was read. 
+ * Line and column number are unknown.
+ * </p>
+ */
+final class JsonTreeParser implements JsonParser {
+	
+	/**
+	 * A JSON object or JSON array being read.
+	 */
+	private static final class Frame {
+		private final Iterator<Map.Entry<String,JsonValue>> entries;
+		private final Iterator<JsonValue> values;
+		
+		Frame(Iterator<Map.Entry<String,JsonValue>> entries, Iterator<JsonValue> values){
+			this.entries = entries;
+			this.values = values;
+		}
+		
+		boolean isObject() {
+			return entries != null;
+		}
+		
+		boolean hasNext() {
+			return isObject() ? entries.hasNext() : values.hasNext();
+		}
+	}
+	
+	/**
+	 * The location of the parser in the event stream.
+	 */
+	private static final class Location implements JsonLocation {
+		
+		private final long offset;
+		
+		Location(long offset){
+			this.offset = offset;
+		}
+
+		@Override
+		public long getLineNumber() {
+			return -1;
+		}
+
+		@Override
+		public long getColumnNumber() {
+			return -1;
+		}
+
+		@Override
+		public long getStreamOffset() {
+			return offset;
+		}
+	}
+
+	private final Deque<Frame> frames = new ArrayDeque<>();
+	private JsonValue root;
+	private JsonValue pending;
+	private JsonValue value;
+	private String key;
+	private Event event;
+	private long events;
+	
+	JsonTreeParser(JsonValue root){
+		this.root = root;
+	}
+	
+	@Override
+	public boolean hasNext() {
+		return root != null || pending != null || !frames.isEmpty();
+	}
+
+	@Override
+	public Event next() {
+		if(!hasNext()) {
+			throw new NoSuchElementException("No more JSON events available");
+		}
+		events++;
+		if(root != null) {
+			JsonValue next = root;
+			root = null;
+			return event = enter(next);
+		}
+		if(pending != null) {
+			JsonValue next = pending;
+			pending = null;
+			return event = enter(next);
+		}
+		Frame frame = frames.peek();
+		if(!frame.hasNext()) {
+			frames.pop();
+			return event = frame.isObject() ? END_OBJECT : END_ARRAY;
+		}
+		if(frame.isObject()) {
+			Map.Entry<String,JsonValue> entry = frame.entries.next();
+			key = entry.getKey();
+			pending = entry.getValue();
+			return event = KEY_NAME;
+		}
+		return event = enter(frame.values.next());
+	}
+	
+	private Event enter(JsonValue next) {
+		value = next;
+		switch(next.getValueType()) {
+			case OBJECT:
+				frames.push(new Frame(((JsonObject) next).entrySet().iterator(), null));
+				return START_OBJECT;
+			case ARRAY:
+				frames.push(new Frame(null, ((JsonArray) next).iterator()));
+				return START_ARRAY;
+			case STRING: return VALUE_STRING;
+			case NUMBER: return VALUE_NUMBER;
+			case TRUE: return VALUE_TRUE;
+			case FALSE: return VALUE_FALSE;
+			default: return VALUE_NULL;
+		}
+	}
+	
+	private JsonNumber number() {
+		if(event != VALUE_NUMBER) {
+			throw new IllegalStateException("JSON number expected but parser is at "+event);
+		}
+		return (JsonNumber) value;
+	}
+
+	@Override
+	public String getString() {
+		if(event == KEY_NAME) {
+			return key;
+		}
+		if(event == VALUE_STRING) {
+			return ((JsonString) value).getString();
+		}
+		if(event == VALUE_NUMBER) {
+			return value.toString();
+		}
+		throw new IllegalStateException("JSON string expected but parser is at "+event);
+	}
+
+	@Override
+	public boolean isIntegralNumber() {
+		return number().isIntegral();
+	}
+
+	@Override
+	public int getInt() {
+		return number().intValue();
+	}
+
+	@Override
+	public long getLong() {
+		return number().longValue();
+	}
+
+	@Override
+	public BigDecimal getBigDecimal() {
+		return number().bigDecimalValue();
+	}
+
+	@Override
+	public JsonLocation getLocation() {
+		return new Location(events);
+	}
+	
+	@Override
+	public JsonObject getObject() {
+		if(event != START_OBJECT) {
+			throw new IllegalStateException("JSON object expected but parser is at "+event);
+		}
+		frames.pop();
+		event = END_OBJECT;
+		return (JsonObject) value;
+	}
+	
+	@Override
+	public JsonArray getArray() {
+		if(event != START_ARRAY) {
+			throw new IllegalStateException("JSON array expected but parser is at "+event);
+		}
+		frames.pop();
+		event = END_ARRAY;
+		return (JsonArray) value;
+	}
+	
+	@Override
+	public JsonValue getValue() {
+		if(event == null) {
+			throw new IllegalStateException("No JSON event read");
+		}
+		switch(event) {
+			case START_OBJECT: return getObject();
+			case START_ARRAY: return getArray();
+			case KEY_NAME: return createValue(key);
+			case END_OBJECT:
+			case END_ARRAY: throw new IllegalStateException("JSON value expected but parser is at "+event);
+			default: return value;
+		}
+	}
+	
+	@Override
+	public void skipObject() {
+		skip(true);
+	}
+	
+	@Override
+	public void skipArray() {
+		skip(false);
+	}
+	
+	private void skip(boolean object) {
+		Frame frame = frames.peek();
+		if(frame != null && frame.isObject() == object) {
+			frames.pop();
+			pending = null;
+			event = object ? END_OBJECT : END_ARRAY;
+		}
+	}
+
+	@Override
+	public void close() {
+		// Nothing to close
+	}
+	
+}
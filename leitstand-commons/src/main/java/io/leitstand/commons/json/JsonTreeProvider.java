@@ -0,0 +1,359 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.json;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Map;
+
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonMergePatch;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonPatch;
+import javax.json.JsonPatchBuilder;
+import javax.json.JsonPointer;
+import javax.json.JsonReader;
+import javax.json.JsonReaderFactory;
+import javax.json.JsonString;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.spi.JsonProvider;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParserFactory;
+
+/**
+ * A <code>JsonProvider</code> that lets a JSON binding write to and read from JSON trees.
+ * <p>
+ * The JSON-B API binds objects to JSON text only, 
+ * but a JSON-B implementation creates all generators and parsers by means of its configured <code>JsonProvider</code>.
+ * This provider returns a {@link JsonTreeGenerator} for a {@link JsonTreeSink} 
+ * and a {@link JsonTreeParser} for a {@link JsonTreeSource}.
+ * Both the sink and the source reject all attempts to write or read JSON text, 
+ * i.e. the binding fails if the JSON-B implementation bypasses the provider.
+ * All other operations are forwarded to the delegate provider.
+ * </p>
+ * @see JsonbTreeBinding
+ */
+final class JsonTreeProvider extends JsonProvider {
+	
+	/**
+	 * A <code>Writer</code> that stands for a JSON tree under construction.
+	 */
+	static final class JsonTreeSink extends Writer {
+		
+		private final JsonTreeGenerator generator = new JsonTreeGenerator();
+		
+		JsonValue getValue() {
+			return generator.getValue();
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			throw new IllegalStateException("JSON text written to JSON tree sink. The JSON-B implementation bypassed the JSON tree provider.");
+		}
+
+		@Override
+		public void flush() {
+			// Nothing to flush
+		}
+
+		@Override
+		public void close() {
+			// Nothing to close
+		}
+		
+	}
+	
+	/**
+	 * A <code>Reader</code> that stands for a JSON object to be read.
+	 */
+	static final class JsonTreeSource extends Reader {
+		
+		private final JsonObject object;
+		
+		JsonTreeSource(JsonObject object){
+			this.object = object;
+		}
+		
+		@Override
+		public int read(char[] cbuf, int off, int len) {
+			throw new IllegalStateException("JSON text read from JSON tree source. The JSON-B implementation bypassed the JSON tree provider.");
+		}
+		
+		@Override
+		public void close() {
+			// Nothing to close
+		}
+		
+	}
+	
+	/**
+	 * Creates tree generators for tree sinks and forwards all other calls to the delegate factory.
+	 */
+	private static final class JsonTreeGeneratorFactory implements JsonGeneratorFactory {
+		
+		private final JsonGeneratorFactory delegate;
+		
+		JsonTreeGeneratorFactory(JsonGeneratorFactory delegate){
+			this.delegate = delegate;
+		}
+
+		@Override
+		public JsonGenerator createGenerator(Writer writer) {
+			if(writer instanceof JsonTreeSink) {
+				return ((JsonTreeSink) writer).generator;
+			}
+			return delegate.createGenerator(writer);
+		}
+
+		@Override
+		public JsonGenerator createGenerator(OutputStream out) {
+			return delegate.createGenerator(out);
+		}
+
+		@Override
+		public JsonGenerator createGenerator(OutputStream out, Charset charset) {
+			return delegate.createGenerator(out, charset);
+		}
+
+		@Override
+		public Map<String, ?> getConfigInUse() {
+			return delegate.getConfigInUse();
+		}
+		
+	}
+	
+	/**
+	 * Creates tree parsers for tree sources and forwards all other calls to the delegate factory.
+	 */
+	private static final class JsonTreeParserFactory implements JsonParserFactory {
+		
+		private final JsonParserFactory delegate;
+		
+		JsonTreeParserFactory(JsonParserFactory delegate){
+			this.delegate = delegate;
+		}
+
+		@Override
+		public JsonParser createParser(Reader reader) {
+			if(reader instanceof JsonTreeSource) {
+				return new JsonTreeParser(((JsonTreeSource) reader).object);
+			}
+			return delegate.createParser(reader);
+		}
+
+		@Override
+		public JsonParser createParser(InputStream in) {
+			return delegate.createParser(in);
+		}
+
+		@Override
+		public JsonParser createParser(InputStream in, Charset charset) {
+			return delegate.createParser(in, charset);
+		}
+
+		@Override
+		public JsonParser createParser(JsonObject obj) {
+			return delegate.createParser(obj);
+		}
+
+		@Override
+		public JsonParser createParser(JsonArray array) {
+			return delegate.createParser(array);
+		}
+
+		@Override
+		public Map<String, ?> getConfigInUse() {
+			return delegate.getConfigInUse();
+		}
+		
+	}
+	
+	private final JsonProvider delegate;
+	
+	JsonTreeProvider(JsonProvider delegate){
+		this.delegate = delegate;
+	}
+	
+	@Override
+	public JsonParser createParser(Reader reader) {
+		if(reader instanceof JsonTreeSource) {
+			return new JsonTreeParser(((JsonTreeSource) reader).object);
+		}
+		return delegate.createParser(reader);
+	}
+	
+	@Override
+	public JsonParser createParser(InputStream in) {
+		return delegate.createParser(in);
+	}
+
+	@Override
+	public JsonParserFactory createParserFactory(Map<String, ?> config) {
+		return new JsonTreeParserFactory(delegate.createParserFactory(config));
+	}
+
+	@Override
+	public JsonGenerator createGenerator(Writer writer) {
+		if(writer instanceof JsonTreeSink) {
+			return ((JsonTreeSink) writer).generator;
+		}
+		return delegate.createGenerator(writer);
+	}
+
+	@Override
+	public JsonGenerator createGenerator(OutputStream out) {
+		return delegate.createGenerator(out);
+	}
+
+	@Override
+	public JsonGeneratorFactory createGeneratorFactory(Map<String, ?> config) {
+		return new JsonTreeGeneratorFactory(delegate.createGeneratorFactory(config));
+	}
+
+	@Override
+	public JsonReader createReader(Reader reader) {
+		return delegate.createReader(reader);
+	}
+
+	@Override
+	public JsonReader createReader(InputStream in) {
+		return delegate.createReader(in);
+	}
+
+	@Override
+	public JsonWriter createWriter(Writer writer) {
+		return delegate.createWriter(writer);
+	}
+
+	@Override
+	public JsonWriter createWriter(OutputStream out) {
+		return delegate.createWriter(out);
+	}
+
+	@Override
+	public JsonWriterFactory createWriterFactory(Map<String, ?> config) {
+		return delegate.createWriterFactory(config);
+	}
+
+	@Override
+	public JsonReaderFactory createReaderFactory(Map<String, ?> config) {
+		return delegate.createReaderFactory(config);
+	}
+
+	@Override
+	public JsonObjectBuilder createObjectBuilder() {
+		return delegate.createObjectBuilder();
+	}
+	
+	@Override
+	public JsonObjectBuilder createObjectBuilder(JsonObject object) {
+		return delegate.createObjectBuilder(object);
+	}
+	
+	@Override
+	public JsonObjectBuilder createObjectBuilder(Map<String, Object> map) {
+		return delegate.createObjectBuilder(map);
+	}
+
+	@Override
+	public JsonArrayBuilder createArrayBuilder() {
+		return delegate.createArrayBuilder();
+	}
+	
+	@Override
+	public JsonArrayBuilder createArrayBuilder(JsonArray array) {
+		return delegate.createArrayBuilder(array);
+	}
+	
+	@Override
+	public JsonArrayBuilder createArrayBuilder(Collection<?> collection) {
+		return delegate.createArrayBuilder(collection);
+	}
+
+	@Override
+	public JsonBuilderFactory createBuilderFactory(Map<String, ?> config) {
+		return delegate.createBuilderFactory(config);
+	}
+	
+	@Override
+	public JsonPointer createPointer(String pointer) {
+		return delegate.createPointer(pointer);
+	}
+	
+	@Override
+	public JsonPatchBuilder createPatchBuilder() {
+		return delegate.createPatchBuilder();
+	}
+	
+	@Override
+	public JsonPatchBuilder createPatchBuilder(JsonArray array) {
+		return delegate.createPatchBuilder(array);
+	}
+	
+	@Override
+	public JsonPatch createPatch(JsonArray array) {
+		return delegate.createPatch(array);
+	}
+	
+	@Override
+	public JsonPatch createDiff(JsonStructure source, JsonStructure target) {
+		return delegate.createDiff(source, target);
+	}
+	
+	@Override
+	public JsonMergePatch createMergePatch(JsonValue patch) {
+		return delegate.createMergePatch(patch);
+	}
+	
+	@Override
+	public JsonMergePatch createMergeDiff(JsonValue source, JsonValue target) {
+		return delegate.createMergeDiff(source, target);
+	}
+	
+	@Override
+	public JsonString createValue(String value) {
+		return delegate.createValue(value);
+	}
+	
+	@Override
+	public JsonNumber createValue(int value) {
+		return delegate.createValue(value);
+	}
+	
+	@Override
+	public JsonNumber createValue(long value) {
+		return delegate.createValue(value);
+	}
+	
+	@Override
+	public JsonNumber createValue(double value) {
+		return delegate.createValue(value);
+	}
+	
+	@Override
+	public JsonNumber createValue(BigDecimal value) {
+		return delegate.createValue(value);
+	}
+	
+	@Override
+	public JsonNumber createValue(BigInteger value) {
+		return delegate.createValue(value);
+	}
+	
+}
@@ -3,13 +3,15 @@
  */
 package io.leitstand.commons.json;
 
-import static io.leitstand.commons.jsonb.JsonbDefaults.jsonb;
+import static io.leitstand.commons.json.JsonbTreeBinding.fromJsonObject;
 
 import javax.json.JsonObject;
 
 /**
  * A utility to convert a JSON object to a Java object.
- *
+ * <p>
+ * The JSON object is read by a parser over the JSON tree without formatting and parsing JSON text.
+ * </p>
  */
 public final class JsonUnmarshaller {
 
@@ -24,7 +26,7 @@ public final class JsonUnmarshaller {
 		if(json == null) {
 			return null;
 		}
-		return jsonb().fromJson(json.toString(), type);
+		return fromJsonObject(type, json);
 	}
 	
 	private JsonUnmarshaller() {
@@ -0,0 +1,54 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.json;
+
+import static io.leitstand.commons.jsonb.JsonbDefaults.jsonb;
+import static javax.json.spi.JsonProvider.provider;
+
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+import javax.json.bind.Jsonb;
+
+import io.leitstand.commons.json.JsonTreeProvider.JsonTreeSink;
+import io.leitstand.commons.json.JsonTreeProvider.JsonTreeSource;
+
+/**
+ * Binds Java objects to JSON trees without formatting and parsing JSON text.
+ * <p>
+ * The JSON-B API only binds objects to JSON text. 
+ * The tree binding therefore uses a dedicated <code>Jsonb</code> with the default configuration and a {@link JsonTreeProvider}.
+ * The provider creates a {@link JsonTreeGenerator} when the binding writes to a {@link JsonTreeSink} 
+ * and a {@link JsonTreeParser} when the binding reads from a {@link JsonTreeSource}.
+ * </p>
+ */
+final class JsonbTreeBinding {
+
+	//Jsonb is thread-safe
+	private static final Jsonb JSONB = jsonb(new JsonTreeProvider(provider()));
+	
+	/**
+	 * Converts a Java object to a JSON value.
+	 * @param object the Java object
+	 * @return the JSON value
+	 */
+	static JsonValue toJsonValue(Object object) {
+		JsonTreeSink sink = new JsonTreeSink();
+		JSONB.toJson(object, sink);
+		return sink.getValue();
+	}
+	
+	/**
+	 * Converts a JSON object to a Java object.
+	 * @param type the Java type
+	 * @param json the JSON object
+	 * @return the Java object
+	 */
+	static <T> T fromJsonObject(Class<T> type, JsonObject json) {
+		return JSONB.fromJson(new JsonTreeSource(json), type);
+	}
+	
+	private JsonbTreeBinding() {
+		// No instances allowed
+	}
+}
@@ -3,6 +3,7 @@
  */
 package io.leitstand.commons.json;
 
+import static javax.json.Json.createParserFactory;
 import static javax.json.JsonValue.ValueType.ARRAY;
 import static javax.json.JsonValue.ValueType.FALSE;
 import static javax.json.JsonValue.ValueType.NULL;
@@ -10,17 +11,28 @@ import static javax.json.JsonValue.ValueType.NUMBER;
 import static javax.json.JsonValue.ValueType.OBJECT;
 import static javax.json.JsonValue.ValueType.STRING;
 import static javax.json.JsonValue.ValueType.TRUE;
+import static javax.json.stream.JsonParser.Event.END_ARRAY;
+import static javax.json.stream.JsonParser.Event.END_OBJECT;
+import static javax.json.stream.JsonParser.Event.START_OBJECT;
 
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import javax.json.JsonArray;
 import javax.json.JsonNumber;
 import javax.json.JsonObject;
 import javax.json.JsonString;
 import javax.json.JsonValue;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParserFactory;
+import javax.json.stream.JsonParsingException;
 
 /**
  * A utility to convert a <code>javax.json.JsonObject</code> object to a <code>java.util.Map</code>.
@@ -33,9 +45,20 @@ import javax.json.JsonValue;
  * Map<String,Object> map = adaptFromJson(json).toMap();
  * </code></pre>
  * </p>
- * 
+ * <p>
+ * Use {@link #unmarshal(Reader)} or {@link #unmarshal(InputStream)} to convert a JSON document to a map
+ * without creating a <code>JsonObject</code> first. 
+ * The JSON document is read by a streaming <code>JsonParser</code> and the reader or input stream is closed afterwards.
+ * </p>
+ * <p>
+ * Integral numbers are mapped to <code>BigInteger</code>, all other numbers to <code>BigDecimal</code> by default.
+ * {@link #withNarrowedNumbers()} maps numbers to <code>Integer</code>, <code>Long</code> or <code>Double</code> if the value fits.
+ * {@link #withInternedKeys()} interns all property names to share the names of objects with the same properties.
+ * </p>
  */
 public class MapUnmarshaller {
+	
+	private static final JsonParserFactory PARSERS = createParserFactory(null);
 
 	/**
 	 * Create a <code>MapUnadaptToJsonler</code> to adaptFromJson the specified JSON object as map.
@@ -46,24 +69,77 @@ public class MapUnmarshaller {
 		return new MapUnmarshaller(json);
 	}
 	
+	/**
+	 * Creates a <code>MapUnmarshaller</code> to read the JSON object from the specified reader.
+	 * @param reader - the reader to read the JSON object from
+	 * @return an initialized map unmarshaller
+	 */
+	public static MapUnmarshaller unmarshal(Reader reader) {
+		return new MapUnmarshaller(() -> PARSERS.createParser(reader));
+	}
+	
+	/**
+	 * Creates a <code>MapUnmarshaller</code> to read the JSON object from the specified input stream.
+	 * The character encoding is detected as specified by RFC 7159.
+	 * @param in - the input stream to read the JSON object from
+	 * @return an initialized map unmarshaller
+	 */
+	public static MapUnmarshaller unmarshal(InputStream in) {
+		return new MapUnmarshaller(() -> PARSERS.createParser(in));
+	}
+	
 	private JsonObject json;
+	private Supplier<JsonParser> parser;
+	private boolean narrowNumbers;
+	private boolean internKeys;
 	
 	protected MapUnmarshaller(JsonObject json) {
 		this.json = json;
 	}
 	
+	protected MapUnmarshaller(Supplier<JsonParser> parser) {
+		this.parser = parser;
+	}
+	
+	/**
+	 * Maps numbers to <code>Integer</code>, <code>Long</code> or <code>Double</code> if the number fits into the respective type.
+	 * @return a reference to this unmarshaller
+	 */
+	public MapUnmarshaller withNarrowedNumbers() {
+		this.narrowNumbers = true;
+		return this;
+	}
+	
+	/**
+	 * Interns all property names in the bounded interner of the {@link JsonDeduplication}.
+	 * Property names are always interned, if JSON deduplication is enabled.
+	 * @return a reference to this unmarshaller
+	 */
+	public MapUnmarshaller withInternedKeys() {
+		this.internKeys = true;
+		return this;
+	}
+	
 	/**
 	 * Returns a map representation of the specified JSON object.
 	 * @return a map representation of the specified JSON object.
 	 */
 	public Map<String,Object> toMap() {
-		return toMap(json);
+		if(json != null) {
+			return toMap(json);
+		}
+		try(JsonParser stream = parser.get()){
+			if(!stream.hasNext() || stream.next() != START_OBJECT) {
+				throw new JsonParsingException("JSON object expected", stream.getLocation());
+			}
+			return readObject(stream);
+		}
 	}
 	
 	private Map<String,Object> toMap(JsonObject json) {
 		Map<String,Object> map = new LinkedHashMap<>();
 		for(Map.Entry<String, JsonValue> property : json.entrySet()) {
-			map.put(property.getKey(),
+			map.put(key(property.getKey()),
 					readValue(property.getValue()));
 
 		}
@@ -87,8 +163,8 @@ public class MapUnmarshaller {
 			return Boolean.FALSE;
 		}
 		if(value.getValueType() == ARRAY) {
-			List<Object> items = new LinkedList<>();
 			JsonArray array = (JsonArray)value;
+			List<Object> items = new ArrayList<>(array.size());
 			for(int i=0; i < array.size(); i++) {
 				items.add(readValue(array.get(i)));
 			}
@@ -96,13 +172,77 @@ public class MapUnmarshaller {
 		}
 		if(value.getValueType() == NUMBER) {
 			JsonNumber number = (JsonNumber) value;
-			if(number.isIntegral()) {
-				return number.bigIntegerValue();
-			}
-			return number.bigDecimalValue();
+			return number(number.bigDecimalValue(), number.isIntegral());
 		}
 		
 		throw new IllegalStateException("Unknown JSON type: "+value.getValueType());
 	}
 	
+	private Map<String,Object> readObject(JsonParser stream) {
+		Map<String,Object> map = new LinkedHashMap<>();
+		while(stream.hasNext()) {
+			Event event = stream.next();
+			if(event == END_OBJECT) {
+				return map;
+			}
+			String key = key(stream.getString());
+			map.put(key, readValue(stream, stream.next()));
+		}
+		throw new JsonParsingException("Unexpected end of JSON object", stream.getLocation());
+	}
+	
+	private List<Object> readArray(JsonParser stream){
+		List<Object> items = new ArrayList<>();
+		while(stream.hasNext()) {
+			Event event = stream.next();
+			if(event == END_ARRAY) {
+				return items;
+			}
+			items.add(readValue(stream, event));
+		}
+		throw new JsonParsingException("Unexpected end of JSON array", stream.getLocation());
+	}
+	
+	private Object readValue(JsonParser stream, Event event) {
+		switch(event) {
+			case START_OBJECT: return readObject(stream);
+			case START_ARRAY: return readArray(stream);
+			case VALUE_STRING: return stream.getString();
+			case VALUE_NUMBER: return number(stream.getBigDecimal(), stream.isIntegralNumber());
+			case VALUE_TRUE: return Boolean.TRUE;
+			case VALUE_FALSE: return Boolean.FALSE;
+			case VALUE_NULL: return null;
+			default: throw new JsonParsingException("Unexpected JSON event: "+event, stream.getLocation());
+		}
+	}
+	
+	private String key(String key) {
+		if(internKeys || JsonDeduplication.isEnabled()) {
+			return JsonDeduplication.intern(key);
+		}
+		return key;
+	}
+	
+	private Object number(BigDecimal number, boolean integral) {
+		if(!narrowNumbers) {
+			return integral ? number.toBigInteger() : number;
+		}
+		if(integral) {
+			try {
+				long value = number.longValueExact();
+				if(value == (int) value) {
+					return (int) value;
+				}
+				return value;
+			} catch (ArithmeticException e) {
+				return number.toBigInteger();
+			}
+		}
+		double value = number.doubleValue();
+		if(!Double.isInfinite(value) && BigDecimal.valueOf(value).compareTo(number) == 0) {
+			return value;
+		}
+		return number;
+	}
+	
 }
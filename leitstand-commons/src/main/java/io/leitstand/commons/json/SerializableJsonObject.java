@@ -4,6 +4,10 @@
 package io.leitstand.commons.json;
 
 import static io.leitstand.commons.jpa.SerializableJsonObjectConverter.parseJson;
+import static io.leitstand.commons.json.JsonBinaryCodec.decode;
+import static io.leitstand.commons.json.JsonBinaryCodec.encode;
+import static javax.json.Json.createDiff;
+import static javax.json.Json.createMergeDiff;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
@@ -17,8 +21,11 @@ import java.util.function.BiFunction;
 import java.util.function.Function;
 
 import javax.json.JsonArray;
+import javax.json.JsonException;
+import javax.json.JsonMergePatch;
 import javax.json.JsonNumber;
 import javax.json.JsonObject;
+import javax.json.JsonPatch;
 import javax.json.JsonString;
 import javax.json.JsonValue;
 
@@ -37,7 +44,26 @@ import javax.json.JsonValue;
  * </p>
  * This wrapper forwards all method invocations to the wrapped <code>JsonObject</code> and implements serialization as outlined before.
  * By that, a <code>SerializableJsonObject</code> does not have to be transient and will not be ignored by JPA and JSON-B respectively.
- *
+ * <p>
+ * A <code>SerializableJsonObject</code> created from JSON text by {@link #fromString(String)} keeps the JSON text and
+ * parses the text when a <code>JsonObject</code> method is called for the first time.
+ * {@link #toString()} and the serialization return the JSON text without parsing it. 
+ * By that, JSON attributes of loaded entities are only parsed when they are actually read.
+ * </p>
+ * <p>
+ * A parsed JSON object is serialized in a compact binary encoding, that avoids formatting and parsing JSON text.
+ * The encoding starts with a version byte to allow future modifications of the encoding.
+ * Objects serialized as JSON text by a former release can still be read.
+ * </p>
+ * <p>
+ * A JSON patch (RFC 6902) or a JSON merge patch (RFC 7386) can be computed from two JSON objects and applied to a JSON object.
+ * {@link io.leitstand.commons.db.DatabaseService#applyJsonMergePatch(String, String, String, String, Object, JsonObject)} applies
+ * a merge patch to a JSON document stored in the database.
+ * </p>
+ * <p>
+ * The <code>get...At</code> methods read values by a JSON pointer or a dotted path. 
+ * The values are cached by path, such that repeated lookups of the same path do not walk the JSON tree again.
+ * </p>
  */
 public class SerializableJsonObject implements JsonObject, Serializable{
 	
@@ -60,221 +86,409 @@ public class SerializableJsonObject implements JsonObject, Serializable{
 		return new SerializableJsonObject(object);
 	}
 	
+	/**
+	 * Creates a <code>SerializableJsonObject</code> from the specified JSON text.
+	 * The JSON text is parsed when a <code>JsonObject</code> method is invoked for the first time.
+	 * @param json the JSON text
+	 * @return the <code>SerializableJsonObject</code> or <code>null</code> if the specified JSON text is <code>null</code> or empty.
+	 */
+	public static SerializableJsonObject fromString(String json) {
+		if(json == null || json.isEmpty()) {
+			return null;
+		}
+		return new SerializableJsonObject(json);
+	}
 
 	private transient JsonObject object;
+	private transient String json;
+	private transient volatile JsonPathIndex index;
 
 	public SerializableJsonObject(JsonObject object) {
 		this.object = object;
 	}
+	
+	private SerializableJsonObject(String json) {
+		this.json = json;
+	}
 
 	@Override
 	public JsonArray getJsonArray(String name) {
-		return object.getJsonArray(name);
+		return object().getJsonArray(name);
 	}
 
 	@Override
 	public JsonObject getJsonObject(String name) {
-		return object.getJsonObject(name);
+		return object().getJsonObject(name);
 	}
 
 	@Override
 	public int size() {
-		return object.size();
+		return object().size();
 	}
 
 	@Override
 	public boolean isEmpty() {
-		return object.isEmpty();
+		return object().isEmpty();
 	}
 
 	@Override
 	public JsonNumber getJsonNumber(String name) {
-		return object.getJsonNumber(name);
+		return object().getJsonNumber(name);
 	}
 
 	@Override
 	public boolean containsKey(Object key) {
-		return object.containsKey(key);
+		return object().containsKey(key);
 	}
 
 	@Override
 	public JsonString getJsonString(String name) {
-		return object.getJsonString(name);
+		return object().getJsonString(name);
 	}
 
 	@Override
 	public boolean containsValue(Object value) {
-		return object.containsValue(value);
+		return object().containsValue(value);
 	}
 
 	@Override
 	public String getString(String name) {
-		return object.getString(name);
+		return object().getString(name);
 	}
 
 	@Override
 	public ValueType getValueType() {
-		return object.getValueType();
+		return object().getValueType();
 	}
 
+	/**
+	 * Returns the JSON text of this object. 
+	 * The JSON text read from the database is returned as is without parsing the JSON object.
+	 * @return the JSON text of this object.
+	 */
 	@Override
 	public String toString() {
+		if(json != null) {
+			return json;
+		}
 		return object.toString();
 	}
 
 	@Override
 	public String getString(String name, String defaultValue) {
-		return object.getString(name, defaultValue);
+		return object().getString(name, defaultValue);
 	}
 
 	@Override
 	public JsonValue get(Object key) {
-		return object.get(key);
+		return object().get(key);
 	}
 
 	@Override
 	public int getInt(String name) {
-		return object.getInt(name);
+		return object().getInt(name);
 	}
 
 	@Override
 	public int getInt(String name, int defaultValue) {
-		return object.getInt(name, defaultValue);
+		return object().getInt(name, defaultValue);
 	}
 
 	@Override
 	public boolean getBoolean(String name) {
-		return object.getBoolean(name);
+		return object().getBoolean(name);
 	}
 
 	@Override
 	public JsonValue put(String key, JsonValue value) {
-		return object.put(key, value);
+		return object().put(key, value);
 	}
 
 	@Override
 	public boolean getBoolean(String name, boolean defaultValue) {
-		return object.getBoolean(name, defaultValue);
+		return object().getBoolean(name, defaultValue);
 	}
 
 	@Override
 	public boolean isNull(String name) {
-		return object.isNull(name);
+		return object().isNull(name);
 	}
 
 	@Override
 	public JsonValue remove(Object key) {
-		return object.remove(key);
+		return object().remove(key);
 	}
 
 	@Override
 	public void putAll(Map<? extends String, ? extends JsonValue> m) {
-		object.putAll(m);
+		object().putAll(m);
 	}
 
 	@Override
 	public void clear() {
-		object.clear();
+		object().clear();
 	}
 
 	@Override
 	public Set<String> keySet() {
-		return object.keySet();
+		return object().keySet();
 	}
 
 	@Override
 	public Collection<JsonValue> values() {
-		return object.values();
+		return object().values();
 	}
 
 
 	@Override
 	public Set<Entry<String, JsonValue>> entrySet() {
-		return object.entrySet();
+		return object().entrySet();
 	}
 
 	@Override
 	public boolean equals(Object o) {
-		return object.equals(o);
+		return object().equals(o);
 	}
 
 	@Override
 	public int hashCode() {
-		return object.hashCode();
+		return object().hashCode();
 	}
 
 	@Override
 	public JsonValue getOrDefault(Object key, JsonValue defaultValue) {
-		return object.getOrDefault(key, defaultValue);
+		return object().getOrDefault(key, defaultValue);
 	}
 
 	@Override
 	public void forEach(BiConsumer<? super String, ? super JsonValue> action) {
-		object.forEach(action);
+		object().forEach(action);
 	}
 
 	@Override
 	public void replaceAll(BiFunction<? super String, ? super JsonValue, ? extends JsonValue> function) {
-		object.replaceAll(function);
+		object().replaceAll(function);
 	}
 
 	@Override
 	public JsonValue putIfAbsent(String key, JsonValue value) {
-		return object.putIfAbsent(key, value);
+		return object().putIfAbsent(key, value);
 	}
 
 	@Override
 	public boolean remove(Object key, Object value) {
-		return object.remove(key, value);
+		return object().remove(key, value);
 	}
 
 	@Override
 	public boolean replace(String key, JsonValue oldValue, JsonValue newValue) {
-		return object.replace(key, oldValue, newValue);
+		return object().replace(key, oldValue, newValue);
 	}
 
 	@Override
 	public JsonValue replace(String key, JsonValue value) {
-		return object.replace(key, value);
+		return object().replace(key, value);
 	}
 
 	@Override
 	public JsonValue computeIfAbsent(String key,
 			Function<? super String, ? extends JsonValue> mappingFunction) {
-		return object.computeIfAbsent(key, mappingFunction);
+		return object().computeIfAbsent(key, mappingFunction);
 	}
 
 	@Override
 	public JsonValue computeIfPresent(String key,
 			BiFunction<? super String, ? super JsonValue, ? extends JsonValue> remappingFunction) {
-		return object.computeIfPresent(key, remappingFunction);
+		return object().computeIfPresent(key, remappingFunction);
 	}
 
 	@Override
 	public JsonValue compute(String key,
 			BiFunction<? super String, ? super JsonValue, ? extends JsonValue> remappingFunction) {
-		return object.compute(key, remappingFunction);
+		return object().compute(key, remappingFunction);
 	}
 
 	@Override
 	public JsonValue merge(String key, JsonValue value,
 			BiFunction<? super JsonValue, ? super JsonValue, ? extends JsonValue> remappingFunction) {
-		return object.merge(key, value, remappingFunction);
+		return object().merge(key, value, remappingFunction);
 	}
 	
 	public JsonObject unwrap() {
+		return object();
+	}
+	
+	/**
+	 * Returns the value of the specified path.
+	 * The path is either a JSON pointer (e.g. <code>/interfaces/3/name</code>) or a dotted path (e.g. <code>interfaces.3.name</code>).
+	 * The value of a path is cached and returned for subsequent lookups of the same path.
+	 * @param path the JSON pointer or dotted path
+	 * @return the value or <code>null</code> if the path does not exist.
+	 */
+	public JsonValue getValueAt(String path) {
+		JsonPathIndex paths = index;
+		if(paths == null) {
+			paths = new JsonPathIndex(object());
+			index = paths;
+		}
+		return paths.get(path);
+	}
+	
+	/**
+	 * Returns the string value of the specified path or the default value if the path does not exist or is not a string.
+	 * @param path the JSON pointer or dotted path
+	 * @param defaultValue the default value
+	 * @return the string value or the default value.
+	 */
+	public String getStringAt(String path, String defaultValue) {
+		JsonValue value = getValueAt(path);
+		if(value instanceof JsonString) {
+			return ((JsonString)value).getString();
+		}
+		return defaultValue;
+	}
+	
+	/**
+	 * Returns the int value of the specified path or the default value if the path does not exist or is not a number.
+	 * @param path the JSON pointer or dotted path
+	 * @param defaultValue the default value
+	 * @return the int value or the default value.
+	 */
+	public int getIntAt(String path, int defaultValue) {
+		JsonValue value = getValueAt(path);
+		if(value instanceof JsonNumber) {
+			return ((JsonNumber)value).intValue();
+		}
+		return defaultValue;
+	}
+	
+	/**
+	 * Returns the long value of the specified path or the default value if the path does not exist or is not a number.
+	 * @param path the JSON pointer or dotted path
+	 * @param defaultValue the default value
+	 * @return the long value or the default value.
+	 */
+	public long getLongAt(String path, long defaultValue) {
+		JsonValue value = getValueAt(path);
+		if(value instanceof JsonNumber) {
+			return ((JsonNumber)value).longValue();
+		}
+		return defaultValue;
+	}
+	
+	/**
+	 * Returns the boolean value of the specified path or the default value if the path does not exist or is not a boolean.
+	 * @param path the JSON pointer or dotted path
+	 * @param defaultValue the default value
+	 * @return the boolean value or the default value.
+	 */
+	public boolean getBooleanAt(String path, boolean defaultValue) {
+		JsonValue value = getValueAt(path);
+		if(value != null && value.getValueType() == ValueType.TRUE) {
+			return true;
+		}
+		if(value != null && value.getValueType() == ValueType.FALSE) {
+			return false;
+		}
+		return defaultValue;
+	}
+	
+	/**
+	 * Returns the JSON object of the specified path or <code>null</code> if the path does not exist or is not an object.
+	 * @param path the JSON pointer or dotted path
+	 * @return the JSON object or <code>null</code>.
+	 */
+	public JsonObject getJsonObjectAt(String path) {
+		JsonValue value = getValueAt(path);
+		return value instanceof JsonObject ? (JsonObject) value : null;
+	}
+	
+	/**
+	 * Returns the JSON array of the specified path or <code>null</code> if the path does not exist or is not an array.
+	 * @param path the JSON pointer or dotted path
+	 * @return the JSON array or <code>null</code>.
+	 */
+	public JsonArray getJsonArrayAt(String path) {
+		JsonValue value = getValueAt(path);
+		return value instanceof JsonArray ? (JsonArray) value : null;
+	}
+	
+	/**
+	 * Creates a JSON patch as defined by RFC 6902 to transform this JSON object into the specified target object.
+	 * @param target the target JSON object
+	 * @return the JSON patch to transform this object into the target object.
+	 */
+	public JsonPatch createPatch(JsonObject target) {
+		return createDiff(object(), unwrap(serializable(target)));
+	}
+	
+	/**
+	 * Creates a JSON merge patch as defined by RFC 7386 to transform this JSON object into the specified target object.
+	 * @param target the target JSON object
+	 * @return the JSON merge patch to transform this object into the target object.
+	 */
+	public JsonMergePatch createMergePatch(JsonObject target) {
+		return createMergeDiff(object(), unwrap(serializable(target)));
+	}
+	
+	/**
+	 * Applies the specified JSON patch as defined by RFC 6902 to this JSON object.
+	 * @param patch the JSON patch
+	 * @return the patched JSON object
+	 */
+	public SerializableJsonObject applyPatch(JsonPatch patch) {
+		return serializable(patch.apply(object()));
+	}
+	
+	/**
+	 * Applies the specified JSON merge patch as defined by RFC 7386 to this JSON object.
+	 * @param patch the JSON merge patch
+	 * @return the patched JSON object
+	 * @throws JsonException if the patch does not yield a JSON object
+	 */
+	public SerializableJsonObject applyMergePatch(JsonMergePatch patch) {
+		JsonValue patched = patch.apply(object());
+		if(patched instanceof JsonObject) {
+			return serializable((JsonObject) patched);
+		}
+		throw new JsonException("Merge patch does not yield a JSON object");
+	}
+	
+	/**
+	 * Returns whether the JSON text has already been parsed.
+	 * @return <code>true</code> if the JSON object is available, <code>false</code> if the JSON text has not been parsed yet.
+	 */
+	public boolean isParsed() {
+		return object != null;
+	}
+	
+	private JsonObject object() {
+		if(object == null) {
+			object = parseJson(json);
+		}
 		return object;
 	}
 	
 	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
 		in.defaultReadObject();
-		this.object = parseJson((String)in.readObject());
+		Object data = in.readObject();
+		if(data instanceof byte[]) {
+			this.object = decode((byte[]) data);
+		} else {
+			// JSON text written by a former release or an unparsed JSON object
+			this.json = (String) data;
+		}
 	}
 	
 	
 	private void writeObject(ObjectOutputStream out) throws IOException {
 		out.defaultWriteObject();
-		out.writeObject(object.toString());
+		if(object == null) {
+			// Write JSON text of an unparsed JSON object as is.
+			out.writeObject(json);
+		} else {
+			out.writeObject(encode(object));
+		}
 	}
 
 }
@@ -0,0 +1,44 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.jsonb;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Protects the entity stream of a <code>MessageBodyWriter</code> from being flushed or closed by a JSON writer, JSON generator or JSON-B instance.
+ * <p>
+ * JSON writers, JSON generators and JSON-B close the output stream when they are done and might flush it after every value.
+ * The entity stream is owned by the message body writer and the JAX-RS runtime though.
+ * The message body writer decides whether and when the entity stream is flushed: 
+ * a message body writer that writes a single entity never flushes and leaves it to the JAX-RS runtime to commit the response,
+ * whereas a message body writer that streams many elements flushes periodically to send the elements already written to the client.
+ * The JAX-RS runtime closes the entity stream when the response is complete.
+ * Flushing or closing the entity output stream therefore has no effect on the entity stream.
+ * The message body writer flushes the entity stream itself, if needed.
+ * </p>
+ */
+final class EntityOutputStream extends FilterOutputStream {
+
+	EntityOutputStream(OutputStream out) {
+		super(out);
+	}
+	
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		out.write(b, off, len);
+	}
+	
+	@Override
+	public void flush() {
+		// Flushed by the message body writer, if needed
+	}
+	
+	@Override
+	public void close() {
+		// Closed by the JAX-RS runtime
+	}
+	
+}
@@ -0,0 +1,149 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.jsonb;
+
+import static java.lang.String.format;
+import static javax.json.stream.JsonParser.Event.START_ARRAY;
+import static javax.json.stream.JsonParser.Event.START_OBJECT;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+
+import javax.json.bind.JsonbException;
+import javax.json.bind.serializer.JsonbDeserializer;
+import javax.json.bind.serializer.JsonbSerializer;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+
+/**
+ * Base class of all JSON-B bindings generated for {@link PrecompiledJsonb} value objects.
+ * <p>
+ * A generated binding is a <code>JsonbSerializer</code> and a <code>JsonbDeserializer</code> for the bound type.
+ * All generated bindings are listed in <code>META-INF/services/io.leitstand.commons.jsonb.GeneratedJsonbBinding</code>
+ * and registered by {@link JsonbDefaults}.
+ * </p>
+ * This class provides the utilities shared by all generated bindings to access private members of the bound type.
+ * All reflective lookups are executed once when the generated binding gets initialized.
+ * @param <T> the bound value object type
+ */
+public abstract class GeneratedJsonbBinding<T> implements JsonbSerializer<T>, JsonbDeserializer<T> {
+
+	/**
+	 * Returns the accessible field of the specified name declared by the specified type.
+	 * @param type the declaring type
+	 * @param name the field name
+	 * @return the accessible field
+	 * @throws IllegalStateException if the field does not exist
+	 */
+	protected static Field field(Class<?> type, String name) {
+		try {
+			Field field = type.getDeclaredField(name);
+			field.setAccessible(true);
+			return field;
+		} catch (NoSuchFieldException e) {
+			throw new IllegalStateException(format("Field %s.%s does not exist. Recompile %s to update the generated JSON-B binding.",
+												   type.getName(),
+												   name,
+												   type.getName()),
+											e);
+		}
+	}
+	
+	/**
+	 * Returns the accessible default constructor of the specified type.
+	 * @param type the type
+	 * @return the accessible default constructor
+	 * @throws IllegalStateException if the type has no default constructor
+	 */
+	protected static <T> Constructor<T> constructor(Class<T> type) {
+		try {
+			Constructor<T> constructor = type.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			return constructor;
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException(format("%s has no default constructor.",type.getName()),e);
+		}
+	}
+	
+	/**
+	 * Creates a new instance by the specified constructor.
+	 * @param constructor the default constructor
+	 * @return the created instance
+	 * @throws JsonbException if the instance cannot be created
+	 */
+	protected static <T> T newInstance(Constructor<T> constructor) {
+		try {
+			return constructor.newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new JsonbException(format("Cannot create %s instance: %s",
+											constructor.getDeclaringClass().getName(),
+											e.getMessage()),
+									 e);
+		}
+	}
+	
+	/**
+	 * Reads the value of the specified field.
+	 * @param field the field
+	 * @param instance the instance to read the field from
+	 * @return the field value
+	 */
+	protected static Object get(Field field, Object instance) {
+		try {
+			return field.get(instance);
+		} catch (IllegalAccessException e) {
+			throw new JsonbException(e.getMessage(),e);
+		}
+	}
+	
+	/**
+	 * Sets the value of the specified field.
+	 * @param field the field
+	 * @param instance the instance to be modified
+	 * @param value the field value
+	 */
+	protected static void set(Field field, Object instance, Object value) {
+		try {
+			field.set(instance, value);
+		} catch (IllegalAccessException e) {
+			throw new JsonbException(e.getMessage(),e);
+		}
+	}
+	
+	/**
+	 * Skips the value of an unknown property.
+	 * @param parser the JSON parser
+	 * @param event the first event of the value to be skipped
+	 */
+	protected static void skipValue(JsonParser parser, Event event) {
+		if(event == START_OBJECT) {
+			parser.skipObject();
+		} else if(event == START_ARRAY) {
+			parser.skipArray();
+		}
+	}
+	
+	/**
+	 * Creates an exception to report that a <code>JsonbAdapter</code> has failed.
+	 * @param property the property mapped by the adapter
+	 * @param e the adapter exception
+	 * @return the exception to be thrown
+	 */
+	protected static JsonbException adapterFailed(String property, Exception e) {
+		if(e instanceof JsonbException) {
+			return (JsonbException) e;
+		}
+		return new JsonbException(format("Cannot adapt property %s: %s", 
+										 property,
+										 e.getMessage()),
+								  e);
+	}
+	
+	/**
+	 * Returns the bound type.
+	 * @return the bound type.
+	 */
+	public abstract Class<T> getType();
+	
+}
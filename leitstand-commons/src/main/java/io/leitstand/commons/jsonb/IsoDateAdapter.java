@@ -5,7 +5,6 @@ package io.leitstand.commons.jsonb;
 
 import static java.util.logging.Level.FINE;
 
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.logging.Logger;
 
@@ -15,6 +14,7 @@ import javax.ws.rs.ext.Provider;
 /**
  * Maps a <code>java.util.Date</code> to a string in ISO format (<code>yyyy-MM-dd'T'HH:mm:ss.SSSXXX</code>)
  * and creates a <code>java.util.Date</code> instance from a string in ISO format.
+ * @see IsoDateCodec
  */
 @Provider
 public class IsoDateAdapter implements JsonbAdapter<Date,String> {
@@ -22,7 +22,6 @@ public class IsoDateAdapter implements JsonbAdapter<Date,String> {
 
 	protected static final String ISO_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX";
 	public static final String ISO_PATTERN = "\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}.\\d{3}[+|-]\\d{2}:\\d{2}";
-	private static final ThreadLocal<SimpleDateFormat> FORMAT = new ThreadLocal<>();
 
 	/**
 	 * Formats the specified date in ISO date format.
@@ -30,10 +29,7 @@ public class IsoDateAdapter implements JsonbAdapter<Date,String> {
 	 * @return returns the date in ISO format or <code>null</code> if the specified date is <code>null</code>.
 	 */
 	public static final String isoDateFormat(Date date){
-		if(date == null) {
-			return null;
-		}
-		return format().format(date);
+		return IsoDateCodec.format(date);
 	}
 	
 	/**
@@ -43,14 +39,11 @@ public class IsoDateAdapter implements JsonbAdapter<Date,String> {
 	 * @return the date object or <code>null</code> if the specified date is <code>null</code> or empty.
 	 */
 	public static Date parseIsoDate(String date) {
-		if(date == null || date.isEmpty()){
-			return null;
-		}
 		try{
-			return format().parse(date);
-		} catch (Exception e){
+			return IsoDateCodec.parseDate(date);
+		} catch (IllegalArgumentException e){
 			LOG.log(FINE,e.getMessage(),e);
-			throw new IllegalArgumentException(e);
+			throw e;
 		}
 	}
 	
@@ -75,14 +68,5 @@ public class IsoDateAdapter implements JsonbAdapter<Date,String> {
 	public String adaptToJson(Date date) throws Exception {
 		return isoDateFormat(date);
 	}
-	
-	static SimpleDateFormat format(){
-		SimpleDateFormat format = FORMAT.get();
-		if(format == null){
-			format = new SimpleDateFormat(ISO_FORMAT);
-			FORMAT.set(format);
-		}
-		return format;
-	}
 
 }
\ No newline at end of file
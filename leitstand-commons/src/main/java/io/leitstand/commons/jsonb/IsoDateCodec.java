@@ -0,0 +1,324 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.jsonb;
+
+import static java.lang.Math.floorDiv;
+import static java.lang.Math.floorMod;
+import static java.time.ZoneOffset.ofTotalSeconds;
+import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Formats and parses timestamps in ISO format (<code>yyyy-MM-dd'T'HH:mm:ss.SSSXXX</code>).
+ * <p>
+ * The codec writes into a reusable per-thread character buffer and parses the fixed-width ISO representation
+ * without <code>SimpleDateFormat</code> or regular expressions.
+ * The date-time prefix of the last formatted second is cached per thread,
+ * such that formatting timestamps of the same second only writes the milliseconds.
+ * </p>
+ * <p>
+ * <code>java.util.Date</code> and <code>java.time.Instant</code> values are formatted in the current default time zone of the JVM.
+ * <code>java.time.OffsetDateTime</code> values are formatted with their own offset.
+ * Timestamps outside the years 1583 to 9999, offsets beyond +/-18:00 and strings not in the strict ISO format are delegated to
+ * <code>SimpleDateFormat</code> and <code>DateTimeFormatter</code> respectively,
+ * in order to retain the behavior of the former <code>SimpleDateFormat</code> based implementation.
+ * </p>
+ */
+public final class IsoDateCodec {
+
+	private static final String ISO_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX";
+	private static final DateTimeFormatter ISO_FORMATTER = DateTimeFormatter.ofPattern(ISO_FORMAT);
+	private static final int MIN_YEAR = 1583;
+	private static final int MAX_YEAR = 9999;
+	private static final int DAYS_0000_TO_1970 = 719468;
+	private static final ThreadLocal<Codec> CODEC = ThreadLocal.withInitial(Codec::new);
+
+	/**
+	 * Per-thread codec state.
+	 */
+	private static final class Codec {
+
+		private final char[] chars = new char[29];
+		private long second = Long.MIN_VALUE;
+		private int offsetMinutes;
+		private int length;
+
+		// Parsed fields
+		private int year;
+		private int month;
+		private int day;
+		private int hour;
+		private int minute;
+		private int sec;
+		private int millis;
+		private int offsetSeconds;
+
+		String format(long epochMillis, int offsetMillis) {
+			long local = epochMillis + offsetMillis;
+			long localSecond = floorDiv(local, 1000);
+			int offset = offsetMillis / 60000;
+			if(localSecond != second || offset != offsetMinutes) {
+				if(!writePrefix(localSecond, offset)) {
+					return null;
+				}
+			}
+			writeDigits(chars, 20, 3, (int) floorMod(local, 1000L));
+			return new String(chars, 0, length);
+		}
+
+		private boolean writePrefix(long localSecond, int offset) {
+			long days = floorDiv(localSecond, 86400);
+			int secondOfDay = (int) floorMod(localSecond, 86400L);
+
+			// Civil date from days since epoch (proleptic Gregorian calendar)
+			long z = days + DAYS_0000_TO_1970;
+			long era = floorDiv(z, 146097);
+			int doe = (int) (z - era * 146097);
+			int yoe = (doe - doe/1460 + doe/36524 - doe/146096) / 365;
+			int doy = doe - (365*yoe + yoe/4 - yoe/100);
+			int mp = (5*doy + 2) / 153;
+			int d = doy - (153*mp + 2)/5 + 1;
+			int m = mp < 10 ? mp + 3 : mp - 9;
+			long y = yoe + era * 400 + (m <= 2 ? 1 : 0);
+			if(y < MIN_YEAR || y > MAX_YEAR) {
+				second = Long.MIN_VALUE;
+				return false;
+			}
+
+			writeDigits(chars, 0, 4, (int) y);
+			chars[4] = '-';
+			writeDigits(chars, 5, 2, m);
+			chars[7] = '-';
+			writeDigits(chars, 8, 2, d);
+			chars[10] = 'T';
+			writeDigits(chars, 11, 2, secondOfDay / 3600);
+			chars[13] = ':';
+			writeDigits(chars, 14, 2, (secondOfDay / 60) % 60);
+			chars[16] = ':';
+			writeDigits(chars, 17, 2, secondOfDay % 60);
+			chars[19] = '.';
+			if(offset == 0) {
+				chars[23] = 'Z';
+				length = 24;
+			} else {
+				chars[23] = offset < 0 ? '-' : '+';
+				int abs = Math.abs(offset);
+				writeDigits(chars, 24, 2, abs / 60);
+				chars[26] = ':';
+				writeDigits(chars, 27, 2, abs % 60);
+				length = 29;
+			}
+			second = localSecond;
+			offsetMinutes = offset;
+			return true;
+		}
+
+		boolean parse(String s) {
+			int len = s.length();
+			if(len != 24 && len != 29) {
+				return false;
+			}
+			if(s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != 'T' ||
+			   s.charAt(13) != ':' || s.charAt(16) != ':' || s.charAt(19) != '.') {
+				return false;
+			}
+			year   = readDigits(s, 0, 4);
+			month  = readDigits(s, 5, 2);
+			day    = readDigits(s, 8, 2);
+			hour   = readDigits(s, 11, 2);
+			minute = readDigits(s, 14, 2);
+			sec    = readDigits(s, 17, 2);
+			millis = readDigits(s, 20, 3);
+			if(year < MIN_YEAR || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month) ||
+			   hour < 0 || hour > 23 || minute < 0 || minute > 59 || sec < 0 || sec > 59 || millis < 0) {
+				return false;
+			}
+			char sign = s.charAt(23);
+			if(len == 24) {
+				offsetSeconds = 0;
+				return sign == 'Z';
+			}
+			if((sign != '+' && sign != '-') || s.charAt(26) != ':') {
+				return false;
+			}
+			int offsetHours = readDigits(s, 24, 2);
+			int offsetMins  = readDigits(s, 27, 2);
+			// ZoneOffset supports offsets up to +/-18:00
+			if(offsetHours < 0 || offsetMins < 0 || offsetMins > 59 || offsetHours * 60 + offsetMins > 18 * 60) {
+				return false;
+			}
+			offsetSeconds = (offsetHours * 3600 + offsetMins * 60) * (sign == '-' ? -1 : 1);
+			return true;
+		}
+
+		long epochMillis() {
+			// Days since epoch from civil date (proleptic Gregorian calendar)
+			int y = month <= 2 ? year - 1 : year;
+			int era = y / 400;
+			int yoe = y - era * 400;
+			int doy = (153 * (month + (month > 2 ? -3 : 9)) + 2)/5 + day - 1;
+			int doe = yoe * 365 + yoe/4 - yoe/100 + doy;
+			long days = era * 146097L + doe - DAYS_0000_TO_1970;
+			long seconds = days * 86400 + hour * 3600 + minute * 60 + sec - offsetSeconds;
+			return seconds * 1000 + millis;
+		}
+
+		OffsetDateTime offsetDateTime() {
+			return OffsetDateTime.of(year,
+									 month,
+									 day,
+									 hour,
+									 minute,
+									 sec,
+									 millis * 1_000_000,
+									 ofTotalSeconds(offsetSeconds));
+		}
+
+	}
+
+	private static void writeDigits(char[] chars, int offset, int count, int value) {
+		for(int i = offset + count - 1; i >= offset; i--) {
+			chars[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+	}
+
+	private static int readDigits(String s, int offset, int count) {
+		int value = 0;
+		for(int i = offset; i < offset + count; i++) {
+			char c = s.charAt(i);
+			if(c < '0' || c > '9') {
+				return -1;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	private static int lengthOfMonth(int year, int month) {
+		switch(month) {
+			case 2: return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+			case 4:
+			case 6:
+			case 9:
+			case 11: return 30;
+			default: return 31;
+		}
+	}
+
+	/**
+	 * Formats the specified date in ISO date format.
+	 * @param date the date to be formatted
+	 * @return the date in ISO format or <code>null</code> if the specified date is <code>null</code>.
+	 */
+	public static String format(Date date) {
+		if(date == null) {
+			return null;
+		}
+		long epochMillis = date.getTime();
+		String iso = CODEC.get().format(epochMillis, TimeZone.getDefault().getOffset(epochMillis));
+		if(iso == null) {
+			return new SimpleDateFormat(ISO_FORMAT).format(date);
+		}
+		return iso;
+	}
+
+	/**
+	 * Formats the specified instant in ISO date format with millisecond precision.
+	 * @param instant the instant to be formatted
+	 * @return the instant in ISO format or <code>null</code> if the specified instant is <code>null</code>.
+	 */
+	public static String format(Instant instant) {
+		if(instant == null) {
+			return null;
+		}
+		return format(Date.from(instant));
+	}
+
+	/**
+	 * Formats the specified date-time with its offset in ISO date format with millisecond precision.
+	 * @param dateTime the date-time to be formatted
+	 * @return the date-time in ISO format or <code>null</code> if the specified date-time is <code>null</code>.
+	 */
+	public static String format(OffsetDateTime dateTime) {
+		if(dateTime == null) {
+			return null;
+		}
+		long epochMillis = dateTime.toEpochSecond() * 1000 + dateTime.getNano() / 1_000_000;
+		String iso = CODEC.get().format(epochMillis, dateTime.getOffset().getTotalSeconds() * 1000);
+		if(iso == null) {
+			return ISO_FORMATTER.format(dateTime);
+		}
+		return iso;
+	}
+
+	/**
+	 * Parses a date from the specified string in ISO date format.
+	 * @param iso the date in ISO format
+	 * @return the date or <code>null</code> if the specified string is <code>null</code> or empty.
+	 * @throws IllegalArgumentException if the specified string is not a valid ISO date.
+	 */
+	public static Date parseDate(String iso) {
+		if(iso == null || iso.isEmpty()) {
+			return null;
+		}
+		Codec codec = CODEC.get();
+		if(codec.parse(iso)) {
+			return new Date(codec.epochMillis());
+		}
+		try {
+			return new SimpleDateFormat(ISO_FORMAT).parse(iso);
+		} catch (ParseException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * Parses an instant from the specified string in ISO date format.
+	 * @param iso the instant in ISO format
+	 * @return the instant or <code>null</code> if the specified string is <code>null</code> or empty.
+	 * @throws IllegalArgumentException if the specified string is not a valid ISO date.
+	 */
+	public static Instant parseInstant(String iso) {
+		Date date = parseDate(iso);
+		if(date == null) {
+			return null;
+		}
+		return date.toInstant();
+	}
+
+	/**
+	 * Parses a date-time with offset from the specified string in ISO date format.
+	 * @param iso the date-time in ISO format
+	 * @return the date-time or <code>null</code> if the specified string is <code>null</code> or empty.
+	 * @throws IllegalArgumentException if the specified string is not a valid ISO date.
+	 */
+	public static OffsetDateTime parseOffsetDateTime(String iso) {
+		if(iso == null || iso.isEmpty()) {
+			return null;
+		}
+		Codec codec = CODEC.get();
+		if(codec.parse(iso)) {
+			return codec.offsetDateTime();
+		}
+		try {
+			return OffsetDateTime.parse(iso, ISO_OFFSET_DATE_TIME);
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	private IsoDateCodec() {
+		// No instances allowed
+	}
+
+}
@@ -3,15 +3,17 @@
  */
 package io.leitstand.commons.jsonb;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.json.Json.createWriterFactory;
+
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.StringWriter;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 
-import javax.json.Json;
 import javax.json.JsonStructure;
 import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
@@ -25,8 +27,10 @@ import javax.ws.rs.ext.Provider;
 @Produces(MediaType.APPLICATION_JSON)
 public class JsonMessageBodyWriter implements MessageBodyWriter<JsonStructure> {
 
+	private static final JsonWriterFactory WRITERS = createWriterFactory(null);
+	
 	/**
-	 * Returns always <code>0</code>.
+	 * Returns always <code>-1</code>, because the JSON structure is streamed to the entity stream.
 	 * {@inheritDoc}
 	 */
 	@Override
@@ -35,7 +39,7 @@ public class JsonMessageBodyWriter implements MessageBodyWriter<JsonStructure> {
 						Type genericType, 
 						Annotation[] annotations, 
 						MediaType mediaType) {
-		return 0;
+		return -1;
 	}
 
 	/**
@@ -51,7 +55,7 @@ public class JsonMessageBodyWriter implements MessageBodyWriter<JsonStructure> {
 	}
 
 	/**
-	 * Marshals <code>javax.json.JsonObject</code> to a string in <code>UTF-8</code> character encoding.
+	 * Writes the <code>javax.json.JsonObject</code> to the entity stream in <code>UTF-8</code> character encoding.
 	 * {@inheritDoc}
 	 */
 	@Override
@@ -63,11 +67,9 @@ public class JsonMessageBodyWriter implements MessageBodyWriter<JsonStructure> {
 						MultivaluedMap<String, Object> httpHeaders,
 						OutputStream entityStream)
 						throws IOException {
-		StringWriter json = new StringWriter();
-		JsonWriter jsonWriter = Json.createWriter(json);
-		jsonWriter.write(object);
-		jsonWriter.close();
-		entityStream.write(json.toString().getBytes("UTF-8"));
+		try(JsonWriter writer = WRITERS.createWriter(new EntityOutputStream(entityStream), UTF_8)){
+			writer.write(object);
+		}
 	}
 
 }
@@ -0,0 +1,135 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.jsonb;
+
+import static io.leitstand.commons.jsonb.JsonbDefaults.jsonb;
+import static java.lang.Integer.getInteger;
+import static java.util.logging.Level.FINE;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import javax.json.bind.Jsonb;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Streams the elements of a <code>java.util.stream.Stream</code> or <code>java.util.Iterator</code> 
+ * as newline-delimited JSON (<code>application/x-ndjson</code>) or as JSON text sequence (<code>application/json-seq</code>).
+ * <p>
+ * Each element is serialized by the {@link JsonbDefaults} JSON-B instance as soon as it is produced by the source.
+ * The element is written on a single line, terminated by a line feed.
+ * A JSON text sequence additionally prefixes each element with the record separator character (<code>0x1E</code>).
+ * The entity stream is flushed after every <code>NDJSON_FLUSH_INTERVAL</code> elements (defaults to 100), such that
+ * the client receives the elements while the source is still producing them.
+ * The source is closed when all elements have been written or the response has been aborted.
+ * Combined with a streaming database query, large collections can be exported in constant memory.
+ * </p>
+ */
+@Provider
+@Produces({JsonStreamMessageBodyWriter.APPLICATION_NDJSON, 
+		   JsonStreamMessageBodyWriter.APPLICATION_JSON_SEQ})
+public class JsonStreamMessageBodyWriter implements MessageBodyWriter<Object> {
+
+	private static final Logger LOG = Logger.getLogger(JsonStreamMessageBodyWriter.class.getName());
+	
+	/** Newline-delimited JSON media type. */
+	public static final String APPLICATION_NDJSON = "application/x-ndjson";
+	
+	/** JSON text sequence media type. */
+	public static final String APPLICATION_JSON_SEQ = "application/json-seq";
+
+	/** Newline-delimited JSON media type. */
+	public static final MediaType APPLICATION_NDJSON_TYPE = MediaType.valueOf(APPLICATION_NDJSON);
+	
+	/** JSON text sequence media type. */
+	public static final MediaType APPLICATION_JSON_SEQ_TYPE = MediaType.valueOf(APPLICATION_JSON_SEQ);
+
+	static final int FLUSH_INTERVAL = Math.max(1,getInteger("NDJSON_FLUSH_INTERVAL",100));
+
+	private static final int RECORD_SEPARATOR = 0x1E;
+	private static final int LINE_FEED = '\n';
+	
+	/**
+	 * Returns always <code>-1</code>, because the elements are streamed to the entity stream.
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getSize(Object source, 
+						Class<?> type, 
+						Type genericType, 
+						Annotation[] annotations,
+						MediaType mediaType) {
+		return -1;
+	}
+
+	/**
+	 * Returns <code>true</code> for <code>Stream</code> and <code>Iterator</code> entities 
+	 * requested as <code>application/x-ndjson</code> or <code>application/json-seq</code>.
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isWriteable(Class<?> type, 
+							   Type genericType, 
+							   Annotation[] annotations, 
+							   MediaType mediaType) {
+		return (Stream.class.isAssignableFrom(type) || Iterator.class.isAssignableFrom(type)) 
+			   && mediaType != null
+			   && (APPLICATION_NDJSON_TYPE.isCompatible(mediaType) || APPLICATION_JSON_SEQ_TYPE.isCompatible(mediaType));
+	}
+
+	/**
+	 * Writes all elements of the stream or iterator in <code>UTF-8</code> character encoding and closes the source afterwards.
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeTo(Object source,
+						Class<?> type,
+						Type genericType,
+						Annotation[] annotations,
+						MediaType mediaType,
+						MultivaluedMap<String, Object> httpHeaders,
+						OutputStream entityStream)
+						throws IOException {
+		boolean sequence = APPLICATION_JSON_SEQ_TYPE.isCompatible(mediaType) && !APPLICATION_NDJSON_TYPE.isCompatible(mediaType);
+		try {
+			Iterator<?> elements = source instanceof Stream ? ((Stream<?>) source).iterator() : (Iterator<?>) source;
+			Jsonb jsonb = jsonb();
+			OutputStream out = new EntityOutputStream(entityStream);
+			int count = 0;
+			while(elements.hasNext()) {
+				if(sequence) {
+					entityStream.write(RECORD_SEPARATOR);
+				}
+				jsonb.toJson(elements.next(), out);
+				entityStream.write(LINE_FEED);
+				if(++count % FLUSH_INTERVAL == 0) {
+					entityStream.flush();
+				}
+			}
+			entityStream.flush();
+		} finally {
+			close(source);
+		}
+	}
+	
+	private static void close(Object source) {
+		if(source instanceof AutoCloseable) {
+			try {
+				((AutoCloseable) source).close();
+			} catch (Exception e) {
+				LOG.log(FINE, "Cannot close stream source: "+e.getMessage(), e);
+			}
+		}
+	}
+
+}
@@ -3,13 +3,27 @@
  */
 package io.leitstand.commons.jsonb;
 
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.String.format;
+import static java.lang.System.getProperty;
+import static java.util.logging.Level.WARNING;
 import static javax.json.bind.JsonbBuilder.newBuilder;
 import static javax.json.bind.config.PropertyNamingStrategy.LOWER_CASE_WITH_UNDERSCORES;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.logging.Logger;
+
 import javax.json.bind.Jsonb;
 import javax.json.bind.JsonbConfig;
 import javax.json.bind.config.PropertyNamingStrategy;
 import javax.json.bind.config.PropertyOrderStrategy;
+import javax.json.bind.serializer.JsonbDeserializer;
+import javax.json.bind.serializer.JsonbSerializer;
+import javax.json.spi.JsonProvider;
 import javax.ws.rs.ext.ContextResolver;
 import javax.ws.rs.ext.Provider;
 
@@ -23,33 +37,81 @@ import io.leitstand.commons.model.CompositeValue;
  * All properties are serialized in lexicographical order.
  * Finally, the default date format is set to ISO date format (<code>yyyy-MM-dd'T'HH:mm.ss.SSSXXX</code>) for all REST services.
  * </p>
+ * <p>
+ * All {@link GeneratedJsonbBinding} bindings listed in <code>META-INF/services</code> are registered as serializers and deserializers.
+ * Set the <code>JSONB_GENERATED_BINDINGS</code> system property to <code>false</code> to fall back to the reflective bindings.
+ * </p>
  * @see PropertyNamingStrategy#LOWER_CASE_WITH_UNDERSCORES
  * @see PropertyOrderStrategy#LEXICOGRAPHICAL
  * @see FieldAccessVisibilityStrategy
  * @see CompositeValue
+ * @see PrecompiledJsonb
  */
 @Provider
 public class JsonbDefaults implements ContextResolver<Jsonb> {
 	
+	private static final Logger LOG = Logger.getLogger(JsonbDefaults.class.getName());
+	
+	static final boolean GENERATED_BINDINGS = parseBoolean(getProperty("JSONB_GENERATED_BINDINGS","true"));
+	
 	//Jsonb is thread-safe
 	private static final Jsonb JSONB;
 
 	static {
+        JSONB = newBuilder()
+        		.withConfig(defaultConfig())
+        		.build();
+	}
+	
+	private static JsonbConfig defaultConfig() {
         JsonbConfig config = new JsonbConfig()
 				 			 .withPropertyVisibilityStrategy(new FieldAccessVisibilityStrategy())
 				 			 .withPropertyNamingStrategy(LOWER_CASE_WITH_UNDERSCORES)
 				 			 .withEncoding("utf8")
 				 			 .withDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", null);
-        JSONB = newBuilder()
-        		.withConfig(config)
-        		.build();
+        if(GENERATED_BINDINGS) {
+        	List<GeneratedJsonbBinding<?>> bindings = loadGeneratedBindings();
+        	if(!bindings.isEmpty()) {
+        		config.withSerializers(bindings.toArray(new JsonbSerializer<?>[bindings.size()]))
+        			  .withDeserializers(bindings.toArray(new JsonbDeserializer<?>[bindings.size()]));
+        	}
+        	LOG.fine(() -> format("Registered %d generated JSON-B bindings",bindings.size()));
+        }
+        return config;
 	}
 	
 
+	@SuppressWarnings("rawtypes")
+	static List<GeneratedJsonbBinding<?>> loadGeneratedBindings(){
+		List<GeneratedJsonbBinding<?>> bindings = new ArrayList<>();
+		Iterator<GeneratedJsonbBinding> i = ServiceLoader.load(GeneratedJsonbBinding.class).iterator();
+		while(i.hasNext()) {
+			try {
+				bindings.add(i.next());
+			} catch (ServiceConfigurationError e) {
+				LOG.log(WARNING, "Cannot load generated JSON-B binding: "+e.getMessage(), e);
+			}
+		}
+		return bindings;
+	}
+
 	public static Jsonb jsonb() {
 		return new JsonbDefaults().getContext(null);
 	}
 	
+	/**
+	 * Creates a new <code>Jsonb</code> with the default configuration that reads and writes JSON by means of the specified JSON-P provider.
+	 * Creating a <code>Jsonb</code> is expensive. The caller is expected to create the instance once and to reuse it.
+	 * @param provider the JSON-P provider
+	 * @return <code>Jsonb</code> context with the default configuration and the specified JSON-P provider.
+	 */
+	public static Jsonb jsonb(JsonProvider provider) {
+		return newBuilder()
+			   .withProvider(provider)
+			   .withConfig(defaultConfig())
+			   .build();
+	}
+	
 	/**
 	 * Creates a <code>Jsonb</code> configuration in order to support field access and to switch to snake case property naming scheme.
 	 * @see PropertyNamingStrategy#LOWER_CASE_WITH_UNDERSCORES
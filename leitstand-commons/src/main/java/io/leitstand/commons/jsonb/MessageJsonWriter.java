@@ -0,0 +1,112 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.jsonb;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.json.Json.createGeneratorFactory;
+
+import java.io.OutputStream;
+
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+
+import io.leitstand.commons.messages.Message;
+import io.leitstand.commons.messages.Messages;
+
+/**
+ * Streams {@link Message} and {@link Messages} to an entity stream.
+ * <p>
+ * A message is written as JSON object with the <code>severity</code>, <code>reason</code>, <code>property</code> 
+ * and <code>message</code> properties, where properties with <code>null</code> values are omitted.
+ * All messages are written by a <code>JsonGenerator</code> directly to the entity stream, 
+ * without creating a JSON object first.
+ * </p>
+ * <p>
+ * The {@link MessagesMessageBodyWriter} writes the {@link Messages} container without the <code>property</code> property,
+ * as all previous releases did.
+ * </p>
+ */
+public final class MessageJsonWriter {
+
+	private static final JsonGeneratorFactory GENERATORS = createGeneratorFactory(null);
+	
+	/**
+	 * Creates a JSON generator to write to the specified entity stream.
+	 * Closing the generator writes all buffered output but neither flushes nor closes the entity stream.
+	 * @param entityStream the entity stream
+	 * @return the JSON generator
+	 */
+	public static JsonGenerator createGenerator(OutputStream entityStream) {
+		return GENERATORS.createGenerator(new EntityOutputStream(entityStream), UTF_8);
+	}
+	
+	/**
+	 * Writes the specified message to the specified entity stream.
+	 * @param entityStream the entity stream
+	 * @param message the message
+	 */
+	public static void writeMessage(OutputStream entityStream, Message message) {
+		try(JsonGenerator generator = createGenerator(entityStream)){
+			writeMessage(generator, message);
+		}
+	}
+	
+	/**
+	 * Writes the specified messages as JSON array to the specified entity stream.
+	 * @param entityStream the entity stream
+	 * @param messages the messages
+	 */
+	public static void writeMessages(OutputStream entityStream, Iterable<Message> messages) {
+		writeMessages(entityStream, messages, true);
+	}
+	
+	/**
+	 * Writes the specified messages as JSON array to the specified entity stream.
+	 * @param entityStream the entity stream
+	 * @param messages the messages
+	 * @param withProperty whether to write the <code>property</code> property of each message
+	 */
+	static void writeMessages(OutputStream entityStream, Iterable<Message> messages, boolean withProperty) {
+		try(JsonGenerator generator = createGenerator(entityStream)){
+			generator.writeStartArray();
+			for(Message message : messages) {
+				writeMessage(generator, message, withProperty);
+			}
+			generator.writeEnd();
+		}
+	}
+	
+	/**
+	 * Writes the specified message as JSON object.
+	 * @param generator the JSON generator
+	 * @param message the message
+	 */
+	public static void writeMessage(JsonGenerator generator, Message message) {
+		writeMessage(generator, message, true);
+	}
+	
+	private static void writeMessage(JsonGenerator generator, Message message, boolean withProperty) {
+		generator.writeStartObject();
+		if(message.getSeverity() != null) {
+			generator.write("severity", message.getSeverity().name());
+		}
+		writeIfNotNull(generator, "reason", message.getReason());
+		if(withProperty) {
+			writeIfNotNull(generator, "property", message.getProperty());
+		}
+		writeIfNotNull(generator, "message", message.getMessage());
+		generator.writeEnd();
+	}
+	
+	private static void writeIfNotNull(JsonGenerator generator, String name, String value) {
+		if(value != null) {
+			generator.write(name, value);
+		}
+	}
+	
+	private MessageJsonWriter() {
+		// No instances allowed
+	}
+	
+}
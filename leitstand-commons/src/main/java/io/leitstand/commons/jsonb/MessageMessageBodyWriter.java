@@ -0,0 +1,74 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.jsonb;
+
+import static io.leitstand.commons.jsonb.MessageJsonWriter.writeMessage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import io.leitstand.commons.messages.Message;
+
+/**
+ * Marshals a single {@link Message} in proper JSON.
+ * <p>
+ * This writer takes precedence over the JSON-B provider for {@link Message} entities and
+ * writes the same properties as the JSON-B provider, namely <code>severity</code>, <code>reason</code>, 
+ * <code>property</code> and <code>message</code>, and omits properties with <code>null</code> values.
+ * Subclasses of {@link Message} might declare additional properties and are therefore left to the JSON-B provider.
+ * </p>
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class MessageMessageBodyWriter implements MessageBodyWriter<Message> {
+
+	/**
+	 * Returns always <code>-1</code>, because the message is streamed to the entity stream.
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getSize(Message message, 
+						Class<?> type, 
+						Type genericType, 
+						Annotation[] annotations,
+						MediaType mediaType) {
+		return -1;
+	}
+
+	/**
+	 * Returns <code>true</code> for {@link Message} entities and <code>false</code> for all subclasses of {@link Message}.
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isWriteable(Class<?> type, 
+							   Type genericType, 
+							   Annotation[] annotations, 
+							   MediaType mediaType) {
+		return Message.class == type;
+	}
+
+	/**
+	 * Writes the message in <code>JSON</code> using <code>UTF-8</code> character encoding.
+	 */
+	@Override
+	public void writeTo(Message message,
+						Class<?> type,
+						Type genericType,
+						Annotation[] annotations,
+						MediaType mediaType,
+						MultivaluedMap<String, Object> httpHeaders,
+						OutputStream entityStream)
+						throws IOException {
+		writeMessage(entityStream, message);
+	}
+
+}
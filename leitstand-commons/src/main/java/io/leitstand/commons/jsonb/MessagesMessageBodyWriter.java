@@ -3,23 +3,19 @@
  */
 package io.leitstand.commons.jsonb;
 
+import static io.leitstand.commons.jsonb.MessageJsonWriter.writeMessages;
+
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.StringWriter;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 
-import javax.json.Json;
-import javax.json.JsonArrayBuilder;
-import javax.json.JsonObjectBuilder;
-import javax.json.JsonWriter;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
 
-import io.leitstand.commons.messages.Message;
 import io.leitstand.commons.messages.Messages;
 
 /**
@@ -30,7 +26,7 @@ import io.leitstand.commons.messages.Messages;
 public class MessagesMessageBodyWriter implements MessageBodyWriter<Messages> {
 
 	/**
-	 * Returns always <code>0</code>.
+	 * Returns always <code>-1</code>, because the messages are streamed to the entity stream.
 	 * {@inheritDoc}
 	 */
 	@Override
@@ -39,7 +35,7 @@ public class MessagesMessageBodyWriter implements MessageBodyWriter<Messages> {
 						Type genericType, 
 						Annotation[] annotations,
 						MediaType mediaType) {
-		return 0;
+		return -1;
 	}
 
 	/**
@@ -67,19 +63,8 @@ public class MessagesMessageBodyWriter implements MessageBodyWriter<Messages> {
 						OutputStream entityStream)
 						throws IOException {
 
-		JsonArrayBuilder builder = Json.createArrayBuilder();
-		for(Message message : messages){
-			JsonObjectBuilder msgBuilder = Json.createObjectBuilder();
-			msgBuilder.add("severity", message.getSeverity().name())
-					  .add("reason",message.getReason())
-					  .add("message", message.getMessage());
-			builder.add(msgBuilder);
-		}	
-		StringWriter adaptToJsonled = new StringWriter();
-		JsonWriter jsonWriter = Json.createWriter(adaptToJsonled);
-		jsonWriter.write(builder.build());
-		jsonWriter.close();
-		entityStream.write(adaptToJsonled.toString().getBytes("UTF-8"));
+		// The property has never been part of the messages container representation.
+		writeMessages(entityStream, messages, false);
 	}
 
 }
@@ -0,0 +1,39 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.jsonb;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.SOURCE;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import io.leitstand.commons.model.ValueObject;
+
+/**
+ * Requests a precompiled JSON-B binding for a {@link ValueObject}.
+ * <p>
+ * The <code>JsonbBindingProcessor</code> annotation processor generates a {@link GeneratedJsonbBinding} 
+ * named <code>&lt;ClassName&gt;_JsonbBinding</code> for each annotated class in the same package.
+ * The generated binding serializes and deserializes the value object without reflective property discovery
+ * and is registered automatically by {@link JsonbDefaults}.
+ * The generated binding follows the {@link JsonbDefaults} settings, i.e. properties are written in lexicographical order
+ * using snake case property names. 
+ * Scalars and other types with a <code>JsonbTypeAdapter</code> are mapped by their adapter.
+ * Properties of all other types, including dates, collections and nested value objects,
+ * are delegated to the JSON-B runtime.
+ * </p>
+ * <p>
+ * The annotations are processed by the <code>io.leitstand:leitstand-jsonb-processor</code> annotation processor, 
+ * which becomes active when the processor is added to the <code>annotationProcessor</code> configuration.
+ * </p>
+ * @see GeneratedJsonbBinding
+ */
+@Documented
+@Retention(SOURCE)
+@Target(TYPE)
+public @interface PrecompiledJsonb {
+
+}
@@ -0,0 +1,48 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe counter to count the occurrences of an event.
+ * @see Metrics#counter(String)
+ */
+public final class Counter {
+
+	private final LongAdder count = new LongAdder();
+	
+	Counter(){
+		// Created by registry
+	}
+	
+	/**
+	 * Increments this counter by one.
+	 */
+	public void increment() {
+		count.increment();
+	}
+	
+	/**
+	 * Increments this counter by the specified value.
+	 * @param n the value to add
+	 */
+	public void add(long n) {
+		count.add(n);
+	}
+	
+	/**
+	 * Returns the current count.
+	 * @return the current count.
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+	
+	@Override
+	public String toString() {
+		return Long.toString(getCount());
+	}
+	
+}
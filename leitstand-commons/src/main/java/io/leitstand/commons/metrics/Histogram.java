@@ -0,0 +1,164 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.metrics;
+
+import static java.lang.Long.numberOfLeadingZeros;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe latency histogram with exponential buckets.
+ * <p>
+ * The histogram records durations in microsecond resolution.
+ * The upper bound of bucket <code>i</code> is <code>2^i</code> microseconds,
+ * with the last bucket collecting all durations that exceed the upper bound of the previous bucket.
+ * Percentiles are estimated by the upper bound of the bucket that contains the percentile,
+ * which overestimates the actual value by a factor of two at most.
+ * </p>
+ * @see Metrics#histogram(String)
+ */
+public final class Histogram {
+
+	static final int BUCKETS = 40;
+	
+	private final LongAdder[] buckets;
+	private final LongAdder count;
+	private final LongAdder sum;
+	private final LongAccumulator max;
+	
+	Histogram(){
+		this.buckets = new LongAdder[BUCKETS];
+		for(int i=0; i < BUCKETS; i++) {
+			buckets[i] = new LongAdder();
+		}
+		this.count = new LongAdder();
+		this.sum = new LongAdder();
+		this.max = new LongAccumulator(Math::max, 0);
+	}
+	
+	static int bucket(long micros) {
+		if(micros <= 1) {
+			return 0;
+		}
+		// Index of the smallest power of two that is greater than or equal to micros.
+		return Math.min(BUCKETS - 1, 64 - numberOfLeadingZeros(micros - 1));
+	}
+	
+	/**
+	 * Records a duration.
+	 * @param duration the duration
+	 * @param unit the unit of the duration
+	 */
+	public void record(long duration, TimeUnit unit) {
+		long micros = Math.max(0, unit.toMicros(duration));
+		buckets[bucket(micros)].increment();
+		count.increment();
+		sum.add(micros);
+		max.accumulate(micros);
+	}
+	
+	/**
+	 * Records the time elapsed since the specified start time obtained from <code>System.nanoTime()</code>.
+	 * @param startNanos the start time in nanoseconds
+	 */
+	public void recordSince(long startNanos) {
+		record(System.nanoTime() - startNanos, NANOSECONDS);
+	}
+	
+	/**
+	 * Returns the number of recorded durations.
+	 * @return the number of recorded durations.
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+	
+	/**
+	 * Returns the sum of all recorded durations.
+	 * @param unit the requested time unit
+	 * @return the sum of all recorded durations.
+	 */
+	public long getSum(TimeUnit unit) {
+		return unit.convert(sum.sum(), MICROSECONDS);
+	}
+	
+	/**
+	 * Returns the longest recorded duration.
+	 * @param unit the requested time unit
+	 * @return the longest recorded duration.
+	 */
+	public long getMax(TimeUnit unit) {
+		return unit.convert(max.get(), MICROSECONDS);
+	}
+	
+	/**
+	 * Returns the mean of all recorded durations or <code>0</code> if no duration has been recorded yet.
+	 * @param unit the requested time unit
+	 * @return the mean duration.
+	 */
+	public long getMean(TimeUnit unit) {
+		long n = getCount();
+		if(n == 0) {
+			return 0;
+		}
+		return unit.convert(sum.sum() / n, MICROSECONDS);
+	}
+	
+	/**
+	 * Returns an estimate of the specified percentile.
+	 * @param percentile the percentile in the range of <code>0.0</code> to <code>1.0</code>
+	 * @param unit the requested time unit
+	 * @return the upper bound of the bucket that contains the requested percentile.
+	 */
+	public long getPercentile(double percentile, TimeUnit unit) {
+		long[] counts = getBucketCounts();
+		long total = 0;
+		for(long c : counts) {
+			total += c;
+		}
+		if(total == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(percentile * total);
+		long seen = 0;
+		for(int i=0; i < counts.length; i++) {
+			seen += counts[i];
+			if(seen >= rank && counts[i] > 0) {
+				if(i == BUCKETS - 1) {
+					return getMax(unit);
+				}
+				return unit.convert(Math.min(1L << i, max.get()), MICROSECONDS);
+			}
+		}
+		return getMax(unit);
+	}
+	
+	/**
+	 * Returns the number of recorded durations per bucket.
+	 * @return the number of recorded durations per bucket.
+	 */
+	public long[] getBucketCounts() {
+		long[] counts = new long[BUCKETS];
+		for(int i=0; i < BUCKETS; i++) {
+			counts[i] = buckets[i].sum();
+		}
+		return counts;
+	}
+	
+	@Override
+	public String toString() {
+		return format("count=%d mean=%dus p50=%dus p99=%dus max=%dus",
+					  getCount(),
+					  getMean(MICROSECONDS),
+					  getPercentile(0.5,MICROSECONDS),
+					  getPercentile(0.99,MICROSECONDS),
+					  getMax(MICROSECONDS));
+	}
+	
+}
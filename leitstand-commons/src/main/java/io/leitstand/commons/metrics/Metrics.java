@@ -0,0 +1,83 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.metrics;
+
+import static java.util.Collections.unmodifiableSortedMap;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of all {@link Histogram} and {@link Counter} metrics.
+ * <p>
+ * Metrics are created on demand and identified by their name. 
+ * Metric names are dot-separated and start with the name of the measured component 
+ * (e.g. <code>repository.query.Element.findByElementName</code>).
+ * </p>
+ */
+public final class Metrics {
+
+	private static final Map<String,Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+	private static final Map<String,Counter> COUNTERS = new ConcurrentHashMap<>();
+	
+	/**
+	 * Returns the histogram with the specified name. 
+	 * Creates a new histogram if the histogram does not exist.
+	 * @param name the histogram name
+	 * @return the histogram with the specified name.
+	 */
+	public static Histogram histogram(String name) {
+		Histogram histogram = HISTOGRAMS.get(name);
+		if(histogram != null) {
+			return histogram;
+		}
+		return HISTOGRAMS.computeIfAbsent(name, key -> new Histogram());
+	}
+	
+	/**
+	 * Returns the counter with the specified name. 
+	 * Creates a new counter if the counter does not exist.
+	 * @param name the counter name
+	 * @return the counter with the specified name.
+	 */
+	public static Counter counter(String name) {
+		Counter counter = COUNTERS.get(name);
+		if(counter != null) {
+			return counter;
+		}
+		return COUNTERS.computeIfAbsent(name, key -> new Counter());
+	}
+	
+	/**
+	 * Returns all histograms ordered by their names.
+	 * @return an immutable map of all histograms ordered by their names.
+	 */
+	public static SortedMap<String,Histogram> getHistograms(){
+		return unmodifiableSortedMap(new TreeMap<>(HISTOGRAMS));
+	}
+	
+	/**
+	 * Returns all counters ordered by their names.
+	 * @return an immutable map of all counters ordered by their names.
+	 */
+	public static SortedMap<String,Counter> getCounters(){
+		return unmodifiableSortedMap(new TreeMap<>(COUNTERS));
+	}
+	
+	/**
+	 * Removes all metrics.
+	 * Metrics kept in static fields continue counting but are no longer listed.
+	 */
+	public static void reset() {
+		HISTOGRAMS.clear();
+		COUNTERS.clear();
+	}
+	
+	private Metrics() {
+		// No instances allowed
+	}
+	
+}
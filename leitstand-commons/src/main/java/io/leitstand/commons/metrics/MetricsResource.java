@@ -0,0 +1,55 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.metrics;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static javax.json.Json.createObjectBuilder;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+
+import java.util.Map;
+
+import javax.enterprise.context.RequestScoped;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+/**
+ * Exposes a snapshot of all {@link Metrics} as JSON object.
+ * <p>
+ * The snapshot contains the <code>counters</code> and the <code>histograms</code> ordered by their names.
+ * Each counter is mapped to its count.
+ * Each histogram is mapped to an object with the number of recorded durations and
+ * the mean, median, 99th percentile and maximum duration in microseconds.
+ * </p>
+ */
+@RequestScoped
+@Path("/metrics")
+@Produces(APPLICATION_JSON)
+public class MetricsResource {
+
+	@GET
+	public JsonObject getMetrics() {
+		JsonObjectBuilder counters = createObjectBuilder();
+		for(Map.Entry<String,Counter> counter : Metrics.getCounters().entrySet()) {
+			counters.add(counter.getKey(), counter.getValue().getCount());
+		}
+		JsonObjectBuilder histograms = createObjectBuilder();
+		for(Map.Entry<String,Histogram> entry : Metrics.getHistograms().entrySet()) {
+			Histogram histogram = entry.getValue();
+			histograms.add(entry.getKey(), createObjectBuilder()
+										   .add("count", histogram.getCount())
+										   .add("mean_us", histogram.getMean(MICROSECONDS))
+										   .add("p50_us", histogram.getPercentile(0.5, MICROSECONDS))
+										   .add("p99_us", histogram.getPercentile(0.99, MICROSECONDS))
+										   .add("max_us", histogram.getMax(MICROSECONDS)));
+		}
+		return createObjectBuilder()
+			   .add("counters", counters)
+			   .add("histograms", histograms)
+			   .build();
+	}
+	
+}
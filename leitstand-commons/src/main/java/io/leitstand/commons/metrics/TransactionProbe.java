@@ -0,0 +1,92 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.metrics;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Probes the runtime behavior of the transaction bound to the current thread.
+ * <p>
+ * The transaction telemetry attaches a probe to the current thread when a new transaction begins.
+ * The {@link io.leitstand.commons.model.Repository} notifies the probe about every executed statement 
+ * to measure the time from transaction begin until the first statement was sent to the database.
+ * </p>
+ */
+public final class TransactionProbe {
+
+	private static final ThreadLocal<TransactionProbe> CURRENT = new ThreadLocal<>();
+	
+	/**
+	 * Attaches a new probe to the current thread.
+	 * @return the new probe
+	 */
+	public static TransactionProbe attach() {
+		TransactionProbe probe = new TransactionProbe(CURRENT.get());
+		CURRENT.set(probe);
+		return probe;
+	}
+	
+	/**
+	 * Returns the probe attached to the current thread or <code>null</code> if no probe is attached.
+	 * @return the probe attached to the current thread.
+	 */
+	public static TransactionProbe current() {
+		return CURRENT.get();
+	}
+	
+	/**
+	 * Notifies the probe of the current thread that a statement is executed.
+	 */
+	public static void statement() {
+		TransactionProbe probe = CURRENT.get();
+		if(probe != null && probe.firstStatement == 0) {
+			probe.firstStatement = nanoTime();
+		}
+	}
+	
+	private final TransactionProbe suspended;
+	private final long started;
+	private long firstStatement;
+	
+	private TransactionProbe(TransactionProbe suspended) {
+		this.suspended = suspended;
+		this.started = nanoTime();
+	}
+	
+	/**
+	 * Detaches this probe from the current thread and re-attaches the probe of the suspended transaction, if any.
+	 */
+	public void detach() {
+		if(suspended != null) {
+			CURRENT.set(suspended);
+		} else {
+			CURRENT.remove();
+		}
+	}
+	
+	/**
+	 * Returns the start time of the transaction in nanoseconds.
+	 * @return the start time of the transaction in nanoseconds.
+	 */
+	public long getStarted() {
+		return started;
+	}
+	
+	/**
+	 * Returns the time from transaction begin until the first statement was executed 
+	 * or <code>-1</code> if no statement was executed.
+	 * @param unit the time unit
+	 * @return the time to the first statement or <code>-1</code> if no statement was executed.
+	 */
+	public long getTimeToFirstStatement(TimeUnit unit) {
+		if(firstStatement == 0) {
+			return -1;
+		}
+		return unit.convert(firstStatement - started, NANOSECONDS);
+	}
+	
+}
@@ -0,0 +1,12 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+/**
+ * Contains lightweight, lock-free metrics to measure the runtime behavior of Leitstand modules in production.
+ * <p>
+ * A {@link Histogram} records latencies in exponential buckets, a {@link Counter} counts occurrences of an event.
+ * All metrics are registered by name in the {@link Metrics} registry, 
+ * which provides a consistent snapshot of all metrics to expose them in a monitoring system.
+ * </p>
+ */
+package io.leitstand.commons.metrics;
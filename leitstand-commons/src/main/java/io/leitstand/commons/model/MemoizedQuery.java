@@ -0,0 +1,53 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.model;
+
+import static java.util.Arrays.asList;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+/**
+ * A {@link Query} whose result can be memoized by the {@link Repository} for the lifetime of the repository.
+ * <p>
+ * The query identity is formed by the query name and the query parameters.
+ * Two memoized queries with equal identity are expected to return the same result,
+ * provided that no entities have been modified in the meantime.
+ * The {@link Repository} discards all memoized results when an entity is added, removed or merged and when an {@link Update} is executed.
+ * </p>
+ * Use {@link Query#memoize(Query, Object...)} to create a memoized query in a query factory method.
+ *
+ * @param <T> - the type of the query result which is either an entity or a list of entities
+ * @see Query#memoize(Query, Object...)
+ */
+public final class MemoizedQuery<T> implements Query<T> {
+
+	private final Query<T> query;
+	private final List<Object> identity;
+
+	MemoizedQuery(Query<T> query, Object... identity){
+		this.query = query;
+		this.identity = asList(identity);
+	}
+
+	/**
+	 * Returns the identity of this query.
+	 * @return the identity of this query.
+	 */
+	public List<Object> getIdentity() {
+		return identity;
+	}
+
+	/**
+	 * Executes the wrapped query.
+	 * @param em - the entity manager that runs the query
+	 * @return the query result.
+	 */
+	@Override
+	public T execute(EntityManager em) {
+		return query.execute(em);
+	}
+
+}
@@ -0,0 +1,44 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.model;
+
+import javax.persistence.EntityManager;
+
+/**
+ * A {@link Query} with an explicit name.
+ * <p>
+ * The {@link Repository} records the query latency under the query name.
+ * </p>
+ * @param <T> - the type of the query result
+ * @see Query#named(String, Query)
+ */
+final class NamedQuery<T> implements Query<T> {
+
+	private final String name;
+	private final Query<T> query;
+	
+	NamedQuery(String name, Query<T> query){
+		this.name = name;
+		this.query = query;
+	}
+	
+	/**
+	 * Returns the query name.
+	 * @return the query name.
+	 */
+	String getName() {
+		return name;
+	}
+	
+	/**
+	 * Executes the wrapped query.
+	 * @param em - the entity manager that runs the query
+	 * @return the query result.
+	 */
+	@Override
+	public T execute(EntityManager em) {
+		return query.execute(em);
+	}
+	
+}
@@ -0,0 +1,43 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.model;
+
+import javax.persistence.EntityManager;
+
+/**
+ * An {@link Update} with an explicit name.
+ * <p>
+ * The {@link Repository} records the update latency under the update name.
+ * </p>
+ * @see Update#named(String, Update)
+ */
+final class NamedUpdate implements Update {
+
+	private final String name;
+	private final Update update;
+	
+	NamedUpdate(String name, Update update){
+		this.name = name;
+		this.update = update;
+	}
+	
+	/**
+	 * Returns the update name.
+	 * @return the update name.
+	 */
+	String getName() {
+		return name;
+	}
+	
+	/**
+	 * Executes the wrapped update.
+	 * @param em - the entity manager executing the update
+	 * @return the number of affected rows.
+	 */
+	@Override
+	public int execute(EntityManager em) {
+		return update.execute(em);
+	}
+	
+}
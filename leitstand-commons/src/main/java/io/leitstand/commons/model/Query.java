@@ -48,12 +48,64 @@ import javax.persistence.EntityManager;
  * where <code>group</code> is the name of the requested group.
  * The producer method states clearly what parameters are expected and the IDE can be leveraged to find which components execute a certain query.
  * Additionally, the IDE displays the javadoc of the producer methods as context help.
- * 
+ * <p>
+ * A producer method can declare a query as memoizable by supplying the query identity,
+ * which is typically the query name followed by all query parameters:
+ * <pre>
+ * <code>
+ *   public static Query&lt;ElementGroup&gt; findGroupByName(ElementGroupName name){
+ *     return memoize(em -&gt; em.createNamedQuery("ElementGroup.findGroupByName",ElementGroup.class)
+ *     				  		   .setParameter("name",name)
+ *     				  		   .getSingleResult(),
+ *                    "ElementGroup.findGroupByName",
+ *                    name);
+ *   }
+ * </code>
+ * </pre>
+ * The {@link Repository} reuses the result of a memoized query until an entity gets added, removed or merged or an {@link Update} gets executed.
+ * </p>
+ * <p>
+ * The {@link Repository} records the latency of every query. 
+ * A producer method names the query by means of {@link #named(String, Query)}, typically by the name of the named query:
+ * <pre>
+ * <code>
+ *   public static Query&lt;ElementGroup&gt; findGroupByName(ElementGroupName name){
+ *     return named("ElementGroup.findGroupByName",
+ *                  em -&gt; em.createNamedQuery("ElementGroup.findGroupByName",ElementGroup.class)
+ *     				  	   .setParameter("name",name)
+ *     				  	   .getSingleResult());
+ *   }
+ * </code>
+ * </pre>
+ * A memoized query is named by the first element of its identity.
+ * </p>
  * @param <T> - the type of the query result which is either an entity or a list of entities
  */
 @FunctionalInterface
 public interface Query<T> {
 
+	/**
+	 * Creates a query whose result can be memoized by the {@link Repository}.
+	 * @param query - the query to be memoized
+	 * @param identity - the query identity, typically the query name followed by all query parameters
+	 * @return the memoizable query
+	 * @see MemoizedQuery
+	 */
+	static <T> Query<T> memoize(Query<T> query, Object... identity){
+		return new MemoizedQuery<>(query,identity);
+	}
+
+	/**
+	 * Creates a named query. 
+	 * The {@link Repository} records the query latency under the specified name.
+	 * @param name - the query name, typically the name of the named query
+	 * @param query - the query to be named
+	 * @return the named query
+	 */
+	static <T> Query<T> named(String name, Query<T> query){
+		return new NamedQuery<>(name,query);
+	}
+
 	/**
 	 * Leverages the passed entity manager to create and execute a query.
 	 * @param em - the entity manager that runs the query
@@ -3,16 +3,29 @@
  */
 package io.leitstand.commons.model;
 
+import static io.leitstand.commons.metrics.Metrics.counter;
+import static io.leitstand.commons.metrics.Metrics.histogram;
+import static io.leitstand.commons.metrics.TransactionProbe.statement;
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.Integer.getInteger;
+import static java.lang.String.format;
+import static java.lang.System.getProperty;
+import static java.lang.System.nanoTime;
 import static java.util.stream.Collectors.toList;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.logging.Logger;
 
 import javax.persistence.EntityManager;
 import javax.persistence.LockModeType;
 import javax.persistence.NoResultException;
+import javax.persistence.Tuple;
 
 /**
  * The <code>Repository</code> allows to add new entities to the database,
@@ -21,6 +34,26 @@ import javax.persistence.NoResultException;
  * Internally, the repository uses a managed <code>EntityManager</code> to access JPA entities.
  * All changes are written to the database when the Java Transaction get committed.
  * </p>
+ * <p>
+ * The repository memoizes the results of {@link MemoizedQuery memoized queries} for the lifetime of the repository,
+ * which is the lifetime of the transaction for transaction-scoped repositories. 
+ * All memoized results are discarded when an entity is added, removed or merged, 
+ * when an {@link Update} is executed and when the repository gets cleared.
+ * </p>
+ * <p>
+ * The repository records the latency of all queries, updates, primary key lookups and flushes 
+ * in {@link io.leitstand.commons.metrics.Metrics} histograms named <code>repository.&lt;operation&gt;.&lt;name&gt;</code>.
+ * The name of a {@link Query#named(String, Query) named query} or {@link Update#named(String, Update) named update} is the specified name.
+ * The name of a {@link MemoizedQuery} is the first element of the query identity. 
+ * The name of all other queries and updates is the name of the class declaring the lambda expression.
+ * Consequently, unnamed queries declared by the same class share the same histogram.
+ * The repository also counts how often a query is executed within the same transaction and 
+ * reports a likely N+1 query problem, when the same query is executed more often than the 
+ * threshold configured by the <code>REPOSITORY_QUERY_REPETITION_THRESHOLD</code> system property.
+ * Unlike the histograms, the execution counts of unnamed queries are kept per lambda expression, 
+ * such that distinct queries declared by the same class do not add up to a false N+1 query warning.
+ * The default threshold is 50.
+ * </p>
  */
 public class Repository implements Serializable{
 
@@ -29,8 +62,85 @@ public class Repository implements Serializable{
 	 */
 	private static final long serialVersionUID = 1L;
 	
+	private static final Logger LOG = Logger.getLogger(Repository.class.getName());
+	
+	static final int QUERY_REPETITION_THRESHOLD = getInteger("REPOSITORY_QUERY_REPETITION_THRESHOLD", 50);
+	
+	/**
+	 * Advisory locks are only supported by PostgreSQL. 
+	 */
+	static final boolean POSTGRES = parseBoolean(getProperty("POSTGRES","true"));
+	
+	static final String ADVISORY_LOCK = "SELECT pg_advisory_xact_lock(?1)";
+	
+	/**
+	 * Computes the advisory lock ID of a logical key.
+	 * The ID is the 64-bit FNV-1a hash of the key's string representation, 
+	 * which yields the same ID for equal keys in all JVMs.
+	 * @param key the logical key
+	 * @return the advisory lock ID
+	 */
+	static long lockId(Object key) {
+		String s = key.toString();
+		long h = 0xcbf29ce484222325L;
+		for(int i=0; i < s.length(); i++) {
+			h ^= s.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		return h;
+	}
+	
+	/**
+	 * Returns the name of a query or update.
+	 * @param statement the query or update
+	 * @return the query or update name
+	 */
+	static String nameOf(Object statement) {
+		if(statement instanceof NamedQuery) {
+			return ((NamedQuery<?>)statement).getName();
+		}
+		if(statement instanceof NamedUpdate) {
+			return ((NamedUpdate)statement).getName();
+		}
+		if(statement instanceof MemoizedQuery) {
+			List<Object> identity = ((MemoizedQuery<?>)statement).getIdentity();
+			if(!identity.isEmpty()) {
+				return String.valueOf(identity.get(0));
+			}
+		}
+		String name = statement.getClass().getName();
+		// Lambda class names are numbered in order of creation (e.g. Element$$Lambda$412/0x0000000800c4b040) 
+		// and are therefore not stable. Use the name of the declaring class instead.
+		int lambda = name.indexOf("$$Lambda");
+		if(lambda > 0) {
+			return name.substring(0,lambda);
+		}
+		return name;
+	}
+	
+	/**
+	 * Returns the key to count the executions of a query or update.
+	 * Named statements are counted by name.
+	 * All other statements are counted by class, 
+	 * because the JVM creates a class for every lambda expression and method reference.
+	 * @param statement the query or update
+	 * @return the execution count key
+	 */
+	static Object executionKey(Object statement) {
+		if(statement instanceof NamedQuery 
+		   || statement instanceof NamedUpdate 
+		   || (statement instanceof MemoizedQuery && !((MemoizedQuery<?>)statement).getIdentity().isEmpty())) {
+			return nameOf(statement);
+		}
+		return statement.getClass();
+	}
+	
 	
 	private EntityManager em;  // NOTE: EntityManager is not serializable but the injected CDI proxy is! Hence ignore the warning from sonarbug.
+	
+	private transient Map<Object,Object> memo;
+	
+	private transient Map<Object,Integer> executions;
 
 	/**
 	 * Creates a <code>Repository</code>
@@ -60,7 +170,7 @@ public class Repository implements Serializable{
 	 */
 	public <Q> Q execute(Query<Q> query) {
 		try {
-			return query.execute(em);
+			return run(query);
 		} catch (NoResultException e) {
 			return null;
 		}
@@ -75,7 +185,7 @@ public class Repository implements Serializable{
 	 */
 	public <Q,T> T execute(Query<Q> query, Function<Q,T> mapping) {
 		try {
-			return mapping.apply(query.execute(em));
+			return mapping.apply(run(query));
 		} catch (NoResultException e) {
 			return null;
 		}
@@ -89,12 +199,34 @@ public class Repository implements Serializable{
 	 */
 	public <Q,T> List<T> executeMapListItem(Query<List<Q>> query, 
 											Function<Q,T> mapping){
-		return query.execute(em)
+		return run(query)
 					.stream()
 					.map(mapping)
 					.collect(toList());
 	}
 
+	/**
+	 * Executes the specified tuple query and maps each tuple to a value object.
+	 * <p>
+	 * A tuple query selects the required attributes only.
+	 * No managed entities are created and the persistence context remains unchanged, 
+	 * provided that the query does not select entities.
+	 * </p>
+	 * @param query the tuple query to run
+	 * @param mapping the mapping to create a value object from a tuple
+	 * @return the list of value objects or an empty list, if the query has not found any tuple
+	 * @see TupleMapping
+	 */
+	public <T> List<T> executeMapTuple(Query<List<Tuple>> query,
+									   TupleMapping<T> mapping){
+		List<Tuple> tuples = run(query);
+		List<T> values = new ArrayList<>(tuples.size());
+		for(Tuple tuple : tuples) {
+			values.add(mapping.map(tuple));
+		}
+		return values;
+	}
+	
 	/**
 	 * Adds a new entity to the repository.
 	 * @param entity - the new entity to be added
@@ -102,6 +234,7 @@ public class Repository implements Serializable{
 	 * @see #clear()
 	 */
 	public void add(Object entity) {
+		forget();
 		em.persist(entity);
 	}
 
@@ -112,6 +245,7 @@ public class Repository implements Serializable{
 	 * @see #clear() 
 	 */
 	public void remove(Object entity) {
+		forget();
 		em.remove(entity);
 	}
 	
@@ -124,7 +258,13 @@ public class Repository implements Serializable{
 	 * use of flush causes execution of additional SQL statements.
 	 */
 	public void flush() {
-		em.flush();
+		statement();
+		long start = nanoTime();
+		try {
+			em.flush();
+		} finally {
+			histogram("repository.flush").recordSince(start);
+		}
 	}
 
 	/**
@@ -141,6 +281,7 @@ public class Repository implements Serializable{
 	 * whether or not entities have already been written to the database.
 	 */
 	public void clear() {
+		forget();
 		em.clear();
 	}
 	
@@ -148,11 +289,22 @@ public class Repository implements Serializable{
 	 * Executes the specified update and returns the number of affected records. 
 	 * Update is not necessarily restricted to UPDATE statements but can also 
 	 * execute DELETE or INSERT statements.
+	 * An {@link io.leitstand.commons.db.UpdateBatch} requires the JDBC connection of the entity manager, 
+	 * which the JPA provider might only expose within an active transaction.
 	 * @param update - the statement to be executed
 	 * @return the number of modified rows.
+	 * @throws IllegalStateException if the update is an <code>UpdateBatch</code> and the JPA provider does not expose the JDBC connection.
 	 */
 	public int execute(Update update) {
-		return update.execute(em);
+		forget();
+		statement();
+		long start = nanoTime();
+		String name = "repository.update."+nameOf(update);
+		try {
+			return update.execute(em);
+		} finally {
+			record(name, executionKey(update), start);
+		}
 	}
 
 	/**
@@ -173,6 +325,7 @@ public class Repository implements Serializable{
 	 * @return the managed entity.
 	 */
 	public <T> T merge(T entity) {
+		forget();
 		return em.merge(entity);
 	}
 
@@ -185,7 +338,14 @@ public class Repository implements Serializable{
 	 */
 	public <T> T find(Class<T> type,
 					  Object primaryKey) {
-		return em.find(type, primaryKey);
+		statement();
+		long start = nanoTime();
+		try {
+			return em.find(type, primaryKey);
+		} finally {
+			String name = "repository.find."+type.getName();
+			record(name, name, start);
+		}
 	}
 
 	/**
@@ -206,6 +366,74 @@ public class Repository implements Serializable{
 		return instance;
 	}
 	
+	/**
+	 * Executes the specified query to search for an entity and calls the supplier if the entity is not present
+	 * in order to add the entity to the repository. 
+	 * <p>
+	 * All transactions that pass an equal key are serialized by a transaction-scoped PostgreSQL advisory lock 
+	 * (<code>pg_advisory_xact_lock</code>), 
+	 * which is obtained before the query is executed and released by the database when the transaction commits or rolls back.
+	 * By that, a concurrent transaction reads the entity added by this transaction instead of adding the same entity again, 
+	 * which would end up in a unique key constraint violation when the transaction gets committed.
+	 * </p>
+	 * <p>
+	 * The lock ID is a 64-bit hash of the key's string representation, i.e. callers with different keys might be serialized as well.
+	 * The lock is reentrant within the same transaction. 
+	 * The database detects deadlocks between transactions waiting for advisory locks 
+	 * and aborts the lock request if the <code>lock_timeout</code> of the database session expires.
+	 * A nested transaction must not lock a key that is already locked by its suspended caller, because it would wait for its caller.
+	 * </p>
+	 * Use {@link #addIfAbsent(Query, Update)} on databases other than PostgreSQL.
+	 * @param key the logical key of the entity, e.g. the entity name
+	 * @param query the query to fetch a certain entity
+	 * @param supplier a supplier to create the entity, if not already present
+	 * @return the requested entity, either read from the repository or returned by the supplier
+	 * @throws UnsupportedOperationException if the <code>POSTGRES</code> system property is set to <code>false</code>
+	 */
+	public <T> T addIfAbsent(Object key,
+							 Query<T> query,
+					 	     Supplier<T> supplier){
+		advisoryLock(key);
+		return addIfAbsent(query,supplier);
+	}
+	
+	/**
+	 * Executes the specified database specific upsert statement and reads the entity afterwards.
+	 * <p>
+	 * The upsert statement is a native statement that inserts the entity and ignores duplicate keys
+	 * (e.g. <code>INSERT ... ON CONFLICT DO NOTHING</code> on PostgreSQL), 
+	 * such that concurrent transactions never fail with a unique key constraint violation. 
+	 * </p>
+	 * @param query the query to fetch the entity
+	 * @param upsert the native statement to add the entity if not already present
+	 * @return the requested entity
+	 */
+	public <T> T addIfAbsent(Query<T> query,
+							 Update upsert) {
+		execute(upsert);
+		return execute(query);
+	}
+	
+	/**
+	 * Obtains the transaction-scoped advisory lock for the specified key and records the lock wait time
+	 * in the <code>repository.lock</code> histogram.
+	 * @param key the logical key
+	 */
+	private void advisoryLock(Object key) {
+		if(!POSTGRES) {
+			throw new UnsupportedOperationException("Advisory locks require PostgreSQL. Use addIfAbsent(Query,Update) with a database specific upsert statement instead.");
+		}
+		statement();
+		long start = nanoTime();
+		try {
+			javax.persistence.Query lock = em.createNativeQuery(ADVISORY_LOCK);
+			lock.setParameter(1, lockId(key));
+			lock.getSingleResult();
+		} finally {
+			histogram("repository.lock").recordSince(start);
+		}
+	}
+	
 	/**
 	 * Override the lock mode of a managed entity.
 	 * @param entity the managed entity
@@ -222,7 +450,77 @@ public class Repository implements Serializable{
 	 * Attempting to close a container-managed entity manager raises an exception as well.
 	 */
 	public void close() {
+		forget();
 		em.close();
 	}
 	
+	/**
+	 * Runs the specified query and memoizes the result if the query is a {@link MemoizedQuery}.
+	 * A <code>NoResultException</code> is not memoized.
+	 * @param query the query to run
+	 * @return the query result
+	 */
+	@SuppressWarnings("unchecked")
+	private <Q> Q run(Query<Q> query) {
+		if(!(query instanceof MemoizedQuery)) {
+			return measured(query);
+		}
+		Object identity = ((MemoizedQuery<Q>)query).getIdentity();
+		if(memo == null) {
+			memo = new HashMap<>();
+		} else if(memo.containsKey(identity)) {
+			return (Q) memo.get(identity);
+		}
+		Q result = measured(query);
+		memo.put(identity, result);
+		return result;
+	}
+	
+	/**
+	 * Executes the specified query and records the query latency.
+	 * @param query the query to run
+	 * @return the query result
+	 */
+	private <Q> Q measured(Query<Q> query) {
+		statement();
+		long start = nanoTime();
+		String name = "repository.query."+nameOf(query);
+		try {
+			return query.execute(em);
+		} finally {
+			record(name, executionKey(query), start);
+		}
+	}
+	
+	/**
+	 * Records the latency of a statement and reports a likely N+1 query problem, 
+	 * if the statement was executed more often than the configured threshold in this repository.
+	 * @param name the statement name
+	 * @param key the execution count key
+	 * @param start the start time in nanoseconds
+	 */
+	private void record(String name, Object key, long start) {
+		histogram(name).recordSince(start);
+		if(executions == null) {
+			executions = new HashMap<>();
+		}
+		int count = executions.merge(key, 1, Integer::sum);
+		if(count == QUERY_REPETITION_THRESHOLD + 1) {
+			counter("repository.repeated").increment();
+			counter(name+".repeated").increment();
+			LOG.warning(() -> format("%s executed more than %d times in the same transaction. Check for a N+1 query problem!",
+									 key instanceof Class ? ((Class<?>)key).getName() : name,
+									 QUERY_REPETITION_THRESHOLD));
+		}
+	}
+	
+	/**
+	 * Discards all memoized query results.
+	 */
+	private void forget() {
+		if(memo != null) {
+			memo.clear();
+		}
+	}
+	
 }
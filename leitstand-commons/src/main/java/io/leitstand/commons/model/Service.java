@@ -13,6 +13,8 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Stereotype;
 import javax.transaction.Transactional;
 
+import io.leitstand.commons.tx.TransactionTelemetry;
+
 /**
  * Stateless, transactional Service stereotype.
  * <p>
@@ -26,10 +28,13 @@ import javax.transaction.Transactional;
  * <li>however, an exception is raised whenever an EJB with container-managed transaction demarcation calls a service, because the EJB specification states that any attempt to access the transaction from a bean with container-managed transaction demarcation is strictly prohibited.</li>
  * </ul>
  * The transaction is rolled back when the service raises a <code>RuntimeException</code>, irrespective whether an {@literal @ApplicatonException} annotation is present or not.
+ * <p>
+ * The {@link TransactionTelemetry} records the duration, the outcome and the lock failures of all transactions started by a service.
  */
 @Stereotype
 @ApplicationScoped
 @Transactional(rollbackOn=RuntimeException.class)
+@TransactionTelemetry
 @Target(TYPE)
 @Retention(RUNTIME)
 public @interface Service {
@@ -0,0 +1,78 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.model;
+
+import static java.lang.String.format;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+import javax.persistence.Tuple;
+
+/**
+ * Maps a JPA <code>Tuple</code> to a value object.
+ * <p>
+ * A tuple query selects only the attributes required to create the value object rather than loading complete entities.
+ * Tuple queries do not create managed entities, provided that the query selects attributes only.
+ * Hence the persistence context stays empty and the entities and eagerly loaded associations are not transferred from the database.
+ * </p>
+ * The listing below shows a tuple query to read the element ID and element name of all elements of a group:
+ * <pre>
+ * <code>
+ * {@literal @NamedQuery(name="Element.findElementNamesByGroup", query="SELECT e.uuid AS id, e.name AS name FROM Element e WHERE e.group=:group")}
+ * 
+ * public static Query&lt;List&lt;Tuple&gt;&gt; findElementNamesByGroup(ElementGroup group){
+ *   return em -&gt; em.createNamedQuery("Element.findElementNamesByGroup",Tuple.class)
+ *                  .setParameter("group",group)
+ *                  .getResultList();
+ * }
+ * 
+ * private static final TupleMapping&lt;ElementInfo&gt; ELEMENT_INFO = constructor(ElementInfo.class, String.class, String.class);
+ * ...
+ * List&lt;ElementInfo&gt; elements = repository.executeMapTuple(findElementNamesByGroup(group), ELEMENT_INFO);
+ * </code>
+ * </pre>
+ * JPQL constructor expressions (<code>SELECT NEW ...</code>) are an alternative to tuple queries.
+ * A constructor expression query can be executed by {@link Repository#execute(Query)} directly.
+ * @param <T> the value object type
+ * @see Repository#executeMapTuple(Query, TupleMapping)
+ */
+@FunctionalInterface
+public interface TupleMapping<T> {
+	
+	/**
+	 * Creates a mapping that passes all tuple elements in the order of the select clause to the specified constructor.
+	 * The constructor is resolved once when the mapping is created.
+	 * @param type the value object type
+	 * @param parameterTypes the constructor parameter types
+	 * @return a mapping to create value objects from tuples.
+	 * @throws IllegalArgumentException if the specified constructor does not exist.
+	 */
+	static <T> TupleMapping<T> constructor(Class<T> type, Class<?>... parameterTypes){
+		try {
+			Constructor<T> constructor = type.getDeclaredConstructor(parameterTypes);
+			constructor.setAccessible(true);
+			return tuple -> {
+				try {
+					return constructor.newInstance(tuple.toArray());
+				} catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+					throw new IllegalStateException(e);
+				}
+			};
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException(format("%s does not provide the requested constructor: %s",
+													  type.getName(),
+													  e.getMessage()),
+											   e);
+		}
+	}
+
+	/**
+	 * Creates a value object from the specified tuple.
+	 * @param tuple the tuple
+	 * @return the value object
+	 */
+	T map(Tuple tuple);
+	
+}
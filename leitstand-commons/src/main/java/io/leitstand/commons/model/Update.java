@@ -18,6 +18,17 @@ import javax.persistence.EntityManager;
 @FunctionalInterface
 public interface Update {
 	
+	/**
+	 * Creates a named update.
+	 * The {@link Repository} records the update latency under the specified name.
+	 * @param name - the update name, typically the name of the named query
+	 * @param update - the update to be named
+	 * @return the named update
+	 */
+	static Update named(String name, Update update) {
+		return new NamedUpdate(name,update);
+	}
+	
 	/**
 	 * Execute and update and returns the number of affected rows.
 	 * @param em - the entity manager executing the update
@@ -4,18 +4,17 @@
 package io.leitstand.commons.rs;
 
 import static io.leitstand.commons.messages.Message.Severity.ERROR;
-import static javax.json.Json.createObjectBuilder;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.Response.status;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
 
-import javax.json.JsonObject;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
 
 import io.leitstand.commons.AccessDeniedException;
 import io.leitstand.commons.EntityNotFoundException;
+import io.leitstand.commons.messages.Message;
 
 /**
  * Maps a {@link EntityNotFoundException} to HTTP Status Code <code>404 Not found</code>.
@@ -24,11 +23,9 @@ import io.leitstand.commons.EntityNotFoundException;
 public class AccessDeniedExceptionMapper implements ExceptionMapper<AccessDeniedException>{
 	@Override
 	public Response toResponse(AccessDeniedException e) {
-		JsonObject message = createObjectBuilder()
-				             .add("severity", ERROR.name())
-				             .add("reason", e.getReason().getReasonCode())
-				             .add("message", e.getMessage())
-				             .build();
+		Message message = new Message(ERROR, 
+									  e.getReason().getReasonCode(), 
+									  e.getMessage());
 		return status(FORBIDDEN)
 			   .type(APPLICATION_JSON)
 			   .entity(message)
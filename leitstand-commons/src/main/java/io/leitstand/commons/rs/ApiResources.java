@@ -17,8 +17,11 @@ import javax.ws.rs.ApplicationPath;
 import javax.ws.rs.core.Application;
 
 import io.leitstand.commons.jsonb.IsoDateAdapter;
+import io.leitstand.commons.jsonb.JsonStreamMessageBodyWriter;
 import io.leitstand.commons.jsonb.JsonbDefaults;
+import io.leitstand.commons.jsonb.MessageMessageBodyWriter;
 import io.leitstand.commons.jsonb.MessagesMessageBodyWriter;
+import io.leitstand.commons.metrics.MetricsResource;
 
 /**
  * Provider of all Leitstand API resources available in the current Leitstand installation.
@@ -64,9 +67,13 @@ public class ApiResources extends Application {
 		resources.add(UnprocessableEntityExceptionMapper.class);
 		resources.add(ValidationExceptionMapper.class);
 		resources.add(IsoDateAdapter.class);
+		resources.add(MessageMessageBodyWriter.class);
 		resources.add(MessagesMessageBodyWriter.class);
 		resources.add(JsonbDefaults.class);
+		resources.add(JsonStreamMessageBodyWriter.class);
 		resources.add(IsoDateParamConverterProvider.class);
+		resources.add(CompressionInterceptor.class);
+		resources.add(MetricsResource.class);
 	}
 	
 	
@@ -0,0 +1,76 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.rs;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of compressed response entities bounded by the total number of cached bytes.
+ * <p>
+ * The least recently used entries are evicted when the cache exceeds its capacity.
+ * </p>
+ */
+final class CompressedResponseCache {
+
+	private final long capacity;
+	private final LinkedHashMap<String,byte[]> entries = new LinkedHashMap<>(16,0.75f,true);
+	private long size;
+	
+	/**
+	 * Creates a <code>CompressedResponseCache</code>.
+	 * @param capacity the maximum number of cached bytes
+	 */
+	CompressedResponseCache(long capacity){
+		this.capacity = capacity;
+	}
+	
+	/**
+	 * Returns the maximum number of bytes of a single entry.
+	 * @return the maximum entry size
+	 */
+	int getMaxEntrySize() {
+		return (int) Math.min(capacity, Integer.MAX_VALUE - 8);
+	}
+	
+	/**
+	 * Returns the cached compressed entity.
+	 * @param key the cache key
+	 * @return the compressed entity or <code>null</code> if no entity is cached for the given key.
+	 */
+	synchronized byte[] get(String key) {
+		return entries.get(key);
+	}
+	
+	/**
+	 * Caches a compressed entity. Entities exceeding the cache capacity are not cached.
+	 * @param key the cache key
+	 * @param bytes the compressed entity
+	 */
+	synchronized void put(String key, byte[] bytes) {
+		if(bytes.length > capacity) {
+			return;
+		}
+		byte[] replaced = entries.put(key, bytes);
+		if(replaced != null) {
+			size -= replaced.length;
+		}
+		size += bytes.length;
+		Iterator<Map.Entry<String,byte[]>> eldest = entries.entrySet().iterator();
+		while(size > capacity) {
+			size -= eldest.next().getValue().length;
+			eldest.remove();
+		}
+	}
+	
+	/**
+	 * Returns the number of cached bytes.
+	 * @return the number of cached bytes
+	 */
+	synchronized long size() {
+		return size;
+	}
+	
+}
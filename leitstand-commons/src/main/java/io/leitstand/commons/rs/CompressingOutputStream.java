@@ -0,0 +1,245 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.rs;
+
+import static java.util.zip.Deflater.NO_FLUSH;
+import static java.util.zip.Deflater.SYNC_FLUSH;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An output stream that compresses the written bytes once the output exceeds a threshold.
+ * <p>
+ * The stream buffers the output until it exceeds the threshold.
+ * If the output does not exceed the threshold, the buffered bytes are written uncompressed when the stream is finished.
+ * Otherwise the stream notifies the compression listener before the first byte is written to the target stream,
+ * such that the response headers can be amended, and compresses the output with a <code>Deflater</code> obtained from a
+ * {@link DeflaterPool}. 
+ * The stream writes the gzip header and trailer itself, 
+ * because <code>GZIPOutputStream</code> does not accept an existing <code>Deflater</code>.
+ * </p>
+ * <p>
+ * Flushing the stream before the threshold is exceeded has no effect.
+ * Flushing a compressing stream emits all pending compressed bytes.
+ * </p>
+ */
+final class CompressingOutputStream extends OutputStream {
+
+	private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+	
+	private final OutputStream target;
+	private final DeflaterPool pool;
+	private final boolean gzip;
+	private final Runnable listener;
+	private final byte[] buffer;
+	private final byte[] chunk = new byte[8192];
+	private final byte[] single = new byte[1];
+	private final int captureLimit;
+	private ByteArrayOutputStream capture;
+	private Deflater deflater;
+	private CRC32 crc;
+	private long bytesIn;
+	private long bytesOut;
+	private int count;
+	private boolean compressed;
+	private boolean finished;
+	
+	/**
+	 * Creates a <code>CompressingOutputStream</code>.
+	 * @param target the target stream
+	 * @param threshold the number of bytes to be buffered before the output gets compressed
+	 * @param pool the deflater pool
+	 * @param gzip <code>true</code> to write a gzip stream, <code>false</code> to write the pool's deflate stream
+	 * @param captureLimit the maximum number of compressed bytes to be retained for {@link #getCompressedBytes()} or 0 to retain no bytes
+	 * @param listener the listener notified when the stream starts compressing the output
+	 */
+	CompressingOutputStream(OutputStream target, 
+							int threshold, 
+							DeflaterPool pool, 
+							boolean gzip, 
+							int captureLimit, 
+							Runnable listener){
+		this.target = target;
+		this.buffer = new byte[threshold];
+		this.pool = pool;
+		this.gzip = gzip;
+		this.captureLimit = captureLimit;
+		this.listener = listener;
+	}
+	
+	@Override
+	public void write(int b) throws IOException {
+		single[0] = (byte) b;
+		write(single,0,1);
+	}
+	
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if(finished) {
+			throw new IOException("Stream already finished");
+		}
+		if(!compressed) {
+			if(count + len <= buffer.length) {
+				System.arraycopy(b, off, buffer, count, len);
+				count += len;
+				return;
+			}
+			startCompression();
+			deflate(buffer,0,count);
+			count = 0;
+		}
+		deflate(b,off,len);
+	}
+
+	private void startCompression() throws IOException {
+		listener.run();
+		compressed = true;
+		deflater = pool.acquire();
+		if(captureLimit > 0) {
+			capture = new ByteArrayOutputStream();
+		}
+		if(gzip) {
+			crc = new CRC32();
+			emit(GZIP_HEADER,0,GZIP_HEADER.length);
+		}
+	}
+	
+	private void deflate(byte[] b, int off, int len) throws IOException {
+		if(len == 0) {
+			return;
+		}
+		if(gzip) {
+			crc.update(b,off,len);
+		}
+		bytesIn += len;
+		deflater.setInput(b,off,len);
+		while(!deflater.needsInput()) {
+			emit(chunk,0,deflater.deflate(chunk,0,chunk.length,NO_FLUSH));
+		}
+	}
+	
+	private void emit(byte[] b, int off, int len) throws IOException {
+		if(len == 0) {
+			return;
+		}
+		target.write(b,off,len);
+		bytesOut += len;
+		if(capture != null) {
+			if(capture.size() + len > captureLimit) {
+				capture = null;
+				return;
+			}
+			capture.write(b,off,len);
+		}
+	}
+	
+	@Override
+	public void flush() throws IOException {
+		if(!compressed || finished) {
+			return;
+		}
+		int n;
+		do {
+			n = deflater.deflate(chunk,0,chunk.length,SYNC_FLUSH);
+			emit(chunk,0,n);
+		} while (n == chunk.length);
+		target.flush();
+	}
+	
+	/**
+	 * Writes all remaining bytes to the target stream without closing the target stream.
+	 * Buffered bytes below the threshold are written uncompressed.
+	 * The deflater is returned to the pool.
+	 * @throws IOException if writing to the target stream fails
+	 */
+	void finish() throws IOException {
+		if(finished) {
+			return;
+		}
+		finished = true;
+		if(!compressed) {
+			target.write(buffer,0,count);
+			return;
+		}
+		try {
+			deflater.finish();
+			while(!deflater.finished()) {
+				emit(chunk,0,deflater.deflate(chunk,0,chunk.length));
+			}
+			if(gzip) {
+				byte[] trailer = new byte[8];
+				writeInt(trailer,0,crc.getValue());
+				writeInt(trailer,4,bytesIn);
+				emit(trailer,0,trailer.length);
+			}
+		} finally {
+			release();
+		}
+	}
+
+	private static void writeInt(byte[] b, int off, long value) {
+		// gzip uses little endian byte order
+		b[off]   = (byte) value;
+		b[off+1] = (byte) (value >> 8);
+		b[off+2] = (byte) (value >> 16);
+		b[off+3] = (byte) (value >> 24);
+	}
+	
+	/**
+	 * Returns the deflater to the pool without writing any remaining bytes.
+	 */
+	void release() {
+		finished = true;
+		if(deflater != null) {
+			pool.release(deflater);
+			deflater = null;
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		finish();
+		target.close();
+	}
+	
+	/**
+	 * Returns whether the output has been compressed.
+	 * @return <code>true</code> if the output exceeded the threshold and was compressed, <code>false</code> otherwise.
+	 */
+	boolean isCompressed() {
+		return compressed;
+	}
+	
+	/**
+	 * Returns the number of uncompressed bytes passed to the deflater.
+	 * @return the number of uncompressed bytes
+	 */
+	long getBytesIn() {
+		return bytesIn;
+	}
+	
+	/**
+	 * Returns the number of compressed bytes written to the target stream.
+	 * @return the number of compressed bytes
+	 */
+	long getBytesOut() {
+		return bytesOut;
+	}
+	
+	/**
+	 * Returns the compressed bytes written to the target stream.
+	 * @return the compressed bytes or <code>null</code> if the output was not compressed or exceeded the capture limit.
+	 */
+	byte[] getCompressedBytes() {
+		if(capture == null) {
+			return null;
+		}
+		return capture.toByteArray();
+	}
+	
+}
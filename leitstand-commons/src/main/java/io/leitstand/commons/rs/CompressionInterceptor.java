@@ -0,0 +1,251 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.rs;
+
+import static io.leitstand.commons.metrics.Metrics.counter;
+import static java.lang.Integer.getInteger;
+import static java.lang.Long.getLong;
+import static java.util.Locale.ENGLISH;
+import static java.util.zip.Deflater.DEFAULT_COMPRESSION;
+import static javax.ws.rs.Priorities.ENTITY_CODER;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_LENGTH;
+import static javax.ws.rs.core.HttpHeaders.ETAG;
+import static javax.ws.rs.core.HttpHeaders.VARY;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.net.URI;
+
+import javax.annotation.Priority;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Compresses textual response entities with <code>gzip</code> or <code>deflate</code> content coding 
+ * as requested by the <code>Accept-Encoding</code> request header.
+ * <p>
+ * Entities smaller than the <code>COMPRESSION_THRESHOLD</code>, which defaults to 1024 bytes, are sent uncompressed,
+ * because compressing small entities saves less than it costs.
+ * The <code>COMPRESSION_LEVEL</code> system property sets the compression level and defaults to the default <code>Deflater</code> level.
+ * The interceptor draws <code>Deflater</code> instances from a pool 
+ * to avoid the native memory allocation of a new <code>Deflater</code> per response.
+ * The <code>COMPRESSION_DEFLATER_POOL_SIZE</code> system property sets the maximum number of idle deflaters per content coding
+ * and defaults to twice the number of available processors.
+ * </p>
+ * <p>
+ * The interceptor optionally caches the compressed entities of {@link Precompressed} resource methods by request URI and strong <code>ETag</code>,
+ * because an <code>ETag</code> only identifies a representation of a single resource.
+ * The <code>COMPRESSION_CACHE_SIZE</code> system property sets the cache capacity in bytes. 
+ * The cache is disabled by default.
+ * </p>
+ * <p>
+ * The interceptor records the number of bytes saved by compression in the <code>http.compression.bytes_saved</code> counter and 
+ * the cache hits and misses in the <code>http.compression.cache.hit</code> and <code>http.compression.cache.miss</code> counters.
+ * </p>
+ */
+@Provider
+@Priority(ENTITY_CODER)
+public class CompressionInterceptor implements WriterInterceptor {
+
+	static final String GZIP = "gzip";
+	static final String DEFLATE = "deflate";
+	
+	static final int THRESHOLD = Math.max(0, getInteger("COMPRESSION_THRESHOLD", 1024));
+	private static final int LEVEL = getInteger("COMPRESSION_LEVEL", DEFAULT_COMPRESSION);
+	private static final int POOL_SIZE = Math.max(1, getInteger("COMPRESSION_DEFLATER_POOL_SIZE", 2 * Runtime.getRuntime().availableProcessors()));
+	private static final long CACHE_SIZE = getLong("COMPRESSION_CACHE_SIZE", 0L);
+	
+	static final DeflaterPool GZIP_DEFLATERS = new DeflaterPool(POOL_SIZE, LEVEL, true);
+	static final DeflaterPool DEFLATE_DEFLATERS = new DeflaterPool(POOL_SIZE, LEVEL, false);
+	private static final CompressedResponseCache CACHE = CACHE_SIZE > 0 ? new CompressedResponseCache(CACHE_SIZE) : null;
+	
+	/**
+	 * Selects the content coding for the specified <code>Accept-Encoding</code> header.
+	 * <code>gzip</code> is preferred over <code>deflate</code> if both are equally acceptable.
+	 * @param acceptEncoding the <code>Accept-Encoding</code> header value
+	 * @return the selected content coding or <code>null</code> if neither <code>gzip</code> nor <code>deflate</code> is acceptable.
+	 */
+	static String selectEncoding(String acceptEncoding) {
+		if(acceptEncoding == null || acceptEncoding.isEmpty()) {
+			return null;
+		}
+		float gzip = -1;
+		float deflate = -1;
+		float any = -1;
+		for(String coding : acceptEncoding.split(",")) {
+			String[] params = coding.split(";");
+			float q = 1;
+			for(int i=1; i < params.length; i++) {
+				String param = params[i].trim();
+				if(param.startsWith("q=")) {
+					try {
+						q = Float.parseFloat(param.substring(2));
+					} catch (NumberFormatException e) {
+						q = 0;
+					}
+				}
+			}
+			String name = params[0].trim().toLowerCase(ENGLISH);
+			if(GZIP.equals(name) || "x-gzip".equals(name)) {
+				gzip = Math.max(gzip,q);
+			} else if(DEFLATE.equals(name)) {
+				deflate = Math.max(deflate,q);
+			} else if("*".equals(name)) {
+				any = Math.max(any, q);
+			}
+		}
+		if(gzip < 0) {
+			gzip = any;
+		}
+		if(deflate < 0) {
+			deflate = any;
+		}
+		if(gzip > 0 && gzip >= deflate) {
+			return GZIP;
+		}
+		if(deflate > 0) {
+			return DEFLATE;
+		}
+		return null;
+	}
+	
+	static boolean isCompressible(MediaType type) {
+		if(type == null) {
+			return false;
+		}
+		if("text".equalsIgnoreCase(type.getType())) {
+			return true;
+		}
+		String subtype = type.getSubtype().toLowerCase(ENGLISH);
+		return subtype.contains("json") || subtype.contains("xml") || subtype.contains("javascript");
+	}
+	
+	private static boolean isPrecompressed(Annotation[] annotations) {
+		if(annotations == null) {
+			return false;
+		}
+		for(Annotation annotation : annotations) {
+			if(annotation.annotationType() == Precompressed.class) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private static String strongEntityTag(Object etag) {
+		if(etag instanceof EntityTag) {
+			EntityTag tag = (EntityTag) etag;
+			return tag.isWeak() ? null : tag.getValue();
+		}
+		if(etag == null || etag.toString().startsWith("W/")) {
+			return null;
+		}
+		return etag.toString();
+	}
+	
+	private static void addVary(MultivaluedMap<String,Object> headers) {
+		Object vary = headers.getFirst(VARY);
+		if(vary == null) {
+			headers.add(VARY, ACCEPT_ENCODING);
+		} else if(!vary.toString().toLowerCase(ENGLISH).contains(ACCEPT_ENCODING.toLowerCase(ENGLISH))) {
+			headers.putSingle(VARY, vary+", "+ACCEPT_ENCODING);
+		}
+	}
+	
+	@Context
+	private HttpHeaders request;
+	
+	@Context
+	private UriInfo uriInfo;
+	
+	private int threshold;
+	
+	private CompressedResponseCache cache;
+	
+	public CompressionInterceptor() {
+		this.threshold = THRESHOLD;
+		this.cache = CACHE;
+	}
+	
+	CompressionInterceptor(HttpHeaders request, UriInfo uriInfo, int threshold, CompressedResponseCache cache){
+		this.request = request;
+		this.uriInfo = uriInfo;
+		this.threshold = threshold;
+		this.cache = cache;
+	}
+	
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+		MultivaluedMap<String,Object> headers = context.getHeaders();
+		if(headers.containsKey(CONTENT_ENCODING) || !isCompressible(context.getMediaType())) {
+			context.proceed();
+			return;
+		}
+		addVary(headers);
+		String encoding = selectEncoding(request.getHeaderString(ACCEPT_ENCODING));
+		if(encoding == null) {
+			context.proceed();
+			return;
+		}
+		
+		String key = null;
+		if(cache != null && isPrecompressed(context.getAnnotations())) {
+			String etag = strongEntityTag(headers.getFirst(ETAG));
+			if(etag != null) {
+				URI uri = uriInfo.getRequestUri();
+				key = encoding+" "+context.getMediaType()+" "+uri.getRawPath()+"?"+uri.getRawQuery()+" "+etag;
+				byte[] compressed = cache.get(key);
+				if(compressed != null) {
+					counter("http.compression.cache.hit").increment();
+					headers.putSingle(CONTENT_ENCODING, encoding);
+					headers.putSingle(CONTENT_LENGTH, compressed.length);
+					context.getOutputStream().write(compressed);
+					return;
+				}
+				counter("http.compression.cache.miss").increment();
+			}
+		}
+		
+		OutputStream target = context.getOutputStream();
+		CompressingOutputStream compressing = new CompressingOutputStream(target, 
+																		  threshold, 
+																		  GZIP.equals(encoding) ? GZIP_DEFLATERS : DEFLATE_DEFLATERS, 
+																		  GZIP.equals(encoding), 
+																		  key != null ? cache.getMaxEntrySize() : 0,
+																		  () -> {
+																			  headers.putSingle(CONTENT_ENCODING, encoding);
+																			  headers.remove(CONTENT_LENGTH);
+																		  });
+		context.setOutputStream(compressing);
+		try {
+			context.proceed();
+			compressing.finish();
+		} finally {
+			compressing.release();
+			context.setOutputStream(target);
+		}
+		
+		if(compressing.isCompressed()) {
+			counter("http.compression.bytes_saved").add(compressing.getBytesIn() - compressing.getBytesOut());
+			if(key != null) {
+				byte[] compressed = compressing.getCompressedBytes();
+				if(compressed != null) {
+					cache.put(key, compressed);
+				}
+			}
+		}
+	}
+
+}
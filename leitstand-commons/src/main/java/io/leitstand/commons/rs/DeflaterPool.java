@@ -0,0 +1,67 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.rs;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * A bounded pool of <code>Deflater</code> instances.
+ * <p>
+ * A <code>Deflater</code> allocates native memory when created and releases it only when ended.
+ * The pool resets released deflaters for reuse and ends deflaters that exceed the pool capacity.
+ * </p>
+ */
+final class DeflaterPool {
+
+	private final BlockingQueue<Deflater> deflaters;
+	private final int level;
+	private final boolean nowrap;
+
+	/**
+	 * Creates a <code>DeflaterPool</code>.
+	 * @param capacity the maximum number of idle deflaters
+	 * @param level the compression level
+	 * @param nowrap <code>true</code> to create raw deflate streams, <code>false</code> to create zlib streams
+	 */
+	DeflaterPool(int capacity, int level, boolean nowrap){
+		this.deflaters = new ArrayBlockingQueue<>(capacity);
+		this.level = level;
+		this.nowrap = nowrap;
+	}
+
+	/**
+	 * Obtains an idle deflater from the pool or creates a new deflater if the pool is empty.
+	 * @return a deflater ready to compress a new stream
+	 */
+	Deflater acquire() {
+		Deflater deflater = deflaters.poll();
+		if(deflater != null) {
+			return deflater;
+		}
+		return new Deflater(level,nowrap);
+	}
+
+	/**
+	 * Returns a deflater to the pool.
+	 * The deflater is ended if the pool is full.
+	 * @param deflater the deflater
+	 */
+	void release(Deflater deflater) {
+		deflater.reset();
+		if(!deflaters.offer(deflater)) {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Returns the number of idle deflaters.
+	 * @return the number of idle deflaters
+	 */
+	int size() {
+		return deflaters.size();
+	}
+
+}
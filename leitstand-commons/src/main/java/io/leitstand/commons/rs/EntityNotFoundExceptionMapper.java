@@ -7,13 +7,12 @@ import static io.leitstand.commons.messages.Message.Severity.ERROR;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 
-import javax.json.Json;
-import javax.json.JsonObject;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
 
 import io.leitstand.commons.EntityNotFoundException;
+import io.leitstand.commons.messages.Message;
 
 /**
  * Maps a {@link EntityNotFoundException} to HTTP Status Code <code>404 Not found</code>.
@@ -23,11 +22,9 @@ public class EntityNotFoundExceptionMapper implements ExceptionMapper<EntityNotF
 
 	@Override
 	public Response toResponse(EntityNotFoundException e) {
-		JsonObject message = Json.createObjectBuilder()
-				                 .add("severity", ERROR.name())
-				                 .add("reason", e.getReason().getReasonCode())
-				                 .add("message", e.getMessage())
-				                 .build();
+		Message message = new Message(ERROR, 
+									  e.getReason().getReasonCode(), 
+									  e.getMessage());
 		return Response.status(NOT_FOUND)
 				       .type(APPLICATION_JSON)
 				       .entity(message)
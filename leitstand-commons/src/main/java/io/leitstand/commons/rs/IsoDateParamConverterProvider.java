@@ -8,12 +8,16 @@ import static io.leitstand.commons.jsonb.IsoDateAdapter.parseIsoDate;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.util.Date;
 
 import javax.ws.rs.ext.ParamConverter;
 import javax.ws.rs.ext.ParamConverterProvider;
 import javax.ws.rs.ext.Provider;
 
+import io.leitstand.commons.jsonb.IsoDateCodec;
+
 @Provider
 public class IsoDateParamConverterProvider implements ParamConverterProvider{
 
@@ -31,11 +35,46 @@ public class IsoDateParamConverterProvider implements ParamConverterProvider{
 				
 	}
 	
+	private static class IsoInstantParamConverter implements ParamConverter<Instant>{
+
+		@Override
+		public Instant fromString(String value) {
+			return IsoDateCodec.parseInstant(value);
+		}
+
+		@Override
+		public String toString(Instant value) {
+			return IsoDateCodec.format(value);
+		}
+				
+	}
+	
+	private static class IsoOffsetDateTimeParamConverter implements ParamConverter<OffsetDateTime>{
+
+		@Override
+		public OffsetDateTime fromString(String value) {
+			return IsoDateCodec.parseOffsetDateTime(value);
+		}
+
+		@Override
+		public String toString(OffsetDateTime value) {
+			return IsoDateCodec.format(value);
+		}
+				
+	}
+	
 	@Override
+	@SuppressWarnings("unchecked")
 	public <T> ParamConverter<T> getConverter(Class<T> rawType, Type genericType, Annotation[] annotations) {
 		if(Date.class.isAssignableFrom(rawType)) {
 			return (ParamConverter<T>) new IsoDateParamConverter();
 		}	
+		if(Instant.class.equals(rawType)) {
+			return (ParamConverter<T>) new IsoInstantParamConverter();
+		}
+		if(OffsetDateTime.class.equals(rawType)) {
+			return (ParamConverter<T>) new IsoOffsetDateTimeParamConverter();
+		}
 		return null;
 	}
 
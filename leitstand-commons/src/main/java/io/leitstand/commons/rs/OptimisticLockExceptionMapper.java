@@ -7,13 +7,13 @@ import static io.leitstand.commons.messages.Message.Severity.ERROR;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.Response.Status.CONFLICT;
 
-import javax.json.Json;
-import javax.json.JsonObject;
 import javax.persistence.OptimisticLockException;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
 
+import io.leitstand.commons.messages.Message;
+
 /**
  * Maps an <code>OptimisticLockException</code> to HTTP Status Code <code>409 Conflict</code>. 
  */
@@ -22,10 +22,9 @@ public class OptimisticLockExceptionMapper implements ExceptionMapper<Optimistic
 
 	@Override
 	public Response toResponse(OptimisticLockException e) {
-		JsonObject message = Json.createObjectBuilder()
-				                 .add("severity", ERROR.name())
-				                 .add("message", e.getMessage())
-				                 .build();
+		Message message = new Message(ERROR, 
+									  null, 
+									  e.getMessage());
 		return Response.status(CONFLICT)
 				       .type(APPLICATION_JSON)
 				       .entity(message)
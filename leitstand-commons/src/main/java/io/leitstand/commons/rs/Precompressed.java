@@ -0,0 +1,27 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.rs;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a resource method that returns immutable representations.
+ * <p>
+ * The {@link CompressionInterceptor} caches the compressed entity of a marked resource method
+ * if the response has a strong <code>ETag</code>, 
+ * and writes the cached bytes for subsequent responses with the same <code>ETag</code> 
+ * without serializing and compressing the entity again.
+ * The <code>ETag</code> must therefore change whenever the representation changes.
+ * Caching is disabled unless the <code>COMPRESSION_CACHE_SIZE</code> system property sets the cache capacity in bytes.
+ * </p>
+ */
+@Retention(RUNTIME)
+@Target(METHOD)
+public @interface Precompressed {
+
+}
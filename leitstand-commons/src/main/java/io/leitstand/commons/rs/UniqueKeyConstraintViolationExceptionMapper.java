@@ -4,18 +4,21 @@
 package io.leitstand.commons.rs;
 
 import static io.leitstand.commons.messages.Message.Severity.ERROR;
-import static javax.json.Json.createArrayBuilder;
-import static javax.json.Json.createObjectBuilder;
+import static io.leitstand.commons.jsonb.MessageJsonWriter.writeMessages;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.Response.status;
 import static javax.ws.rs.core.Response.Status.CONFLICT;
 
-import javax.json.JsonArrayBuilder;
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
 
 import io.leitstand.commons.UniqueKeyConstraintViolationException;
+import io.leitstand.commons.messages.Message;
 
 /**
  * Maps a {@link UniqueKeyConstraintViolationExceptionMapper} to HTTP Status Code <code>409 Conflict</code>.
@@ -25,17 +28,17 @@ public class UniqueKeyConstraintViolationExceptionMapper implements ExceptionMap
 	
 	@Override
 	public Response toResponse(UniqueKeyConstraintViolationException e) {
-		JsonArrayBuilder messages = createArrayBuilder();
+		List<Message> messages = new ArrayList<>(e.getProperties().size());
 		for(Object property : e.getProperties()) {
-			messages.add(createObjectBuilder()
-					.add("severity", ERROR.name())
-				    .add("reason", e.getReason().getReasonCode())
-				    .add("property",property.toString())
-				    .add("message", e.getMessage()));
+			messages.add(new Message(ERROR, 
+									 e.getReason().getReasonCode(),
+									 property.toString(),
+									 e.getMessage()));
 		}
+		StreamingOutput entity = entityStream -> writeMessages(entityStream, messages);
 		return status(CONFLICT)
 			   .type(APPLICATION_JSON)
-			   .entity(messages.build())
+			   .entity(entity)
 			   .build();
 	}
 }
@@ -4,16 +4,15 @@
 package io.leitstand.commons.rs;
 
 import static io.leitstand.commons.messages.Message.Severity.ERROR;
-import static javax.json.Json.createObjectBuilder;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.Response.status;
 
-import javax.json.JsonObject;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
 
 import io.leitstand.commons.UnprocessableEntityException;
+import io.leitstand.commons.messages.Message;
 
 /**
  * Maps an {@link UnprocessableEntityException} to HTTP Status Code <code>422 Unprocessable entity</code>.
@@ -23,11 +22,9 @@ public class UnprocessableEntityExceptionMapper implements ExceptionMapper<Unpro
 
 	@Override
 	public Response toResponse(UnprocessableEntityException e) {
-		JsonObject message = createObjectBuilder()
-				             .add("severity", ERROR.name())
-				             .add("reason", e.getReason().getReasonCode())
-				             .add("message", e.getMessage())
-				             .build();
+		Message message = new Message(ERROR, 
+									  e.getReason().getReasonCode(), 
+									  e.getMessage());
 		return status(422)
 			   .type(APPLICATION_JSON)
 			   .entity(message)
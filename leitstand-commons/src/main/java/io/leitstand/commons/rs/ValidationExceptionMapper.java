@@ -3,6 +3,7 @@
  */
 package io.leitstand.commons.rs;
 
+import static io.leitstand.commons.jsonb.MessageJsonWriter.createGenerator;
 import static io.leitstand.commons.messages.Message.Severity.ERROR;
 import static io.leitstand.commons.messages.Message.Severity.INFO;
 import static io.leitstand.commons.messages.Message.Severity.WARNING;
@@ -10,15 +11,13 @@ import static io.leitstand.commons.rs.ReasonCode.VAL0001E_VALUE_REQUIRED;
 import static io.leitstand.commons.rs.ReasonCode.VAL0002E_INVALID_VALUE;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
-import java.io.StringWriter;
+import java.util.Set;
 
-import javax.json.Json;
-import javax.json.JsonArrayBuilder;
-import javax.json.JsonObjectBuilder;
-import javax.json.JsonWriter;
+import javax.json.stream.JsonGenerator;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
 
@@ -33,30 +32,38 @@ public class ValidationExceptionMapper  implements ExceptionMapper<ConstraintVio
 	
 	@Override
 	public Response toResponse(ConstraintViolationException e) {
-		JsonArrayBuilder array = Json.createArrayBuilder();
-		for(ConstraintViolation<?> violation : e.getConstraintViolations()){
-			JsonObjectBuilder item = Json.createObjectBuilder();
-			ReasonCode reason = retrieveReasonCode(violation);
-			if(reason != null){
-				item.add("severity", retrieveSeverity(reason).name());
-				item.add("reason", reason.getReasonCode());
-				item.add("property",retrievePropertyName(violation));
-				Object invalid = violation.getInvalidValue();
-				if(invalid != null){
-					item.add("value", invalid.toString());
+		Set<ConstraintViolation<?>> violations = e.getConstraintViolations();
+		StreamingOutput entity = entityStream -> {
+			try(JsonGenerator generator = createGenerator(entityStream)){
+				generator.writeStartArray();
+				for(ConstraintViolation<?> violation : violations){
+					writeViolation(generator, violation);
 				}
+				generator.writeEnd();
+			}
+		};
+		return Response.status(422)
+				       .type(APPLICATION_JSON)
+				       .entity(entity)
+				       .build();
+	}
+	
+	private void writeViolation(JsonGenerator generator, ConstraintViolation<?> violation) {
+		generator.writeStartObject();
+		ReasonCode reason = retrieveReasonCode(violation);
+		if(reason != null){
+			generator.write("severity", retrieveSeverity(reason).name());
+			generator.write("reason", reason.getReasonCode());
+			generator.write("property",retrievePropertyName(violation));
+			Object invalid = violation.getInvalidValue();
+			if(invalid != null){
+				generator.write("value", invalid.toString());
 			}
-			item.add("message", violation.getMessage());
-			array.add(item);
 		}
-		StringWriter json = new StringWriter();
-		try(JsonWriter writer = Json.createWriter(json)){
-			writer.writeArray(array.build());
-			return Response.status(422)
-					       .type(APPLICATION_JSON)
-					       .entity(json.toString())
-					       .build();
+		if(violation.getMessage() != null) {
+			generator.write("message", violation.getMessage());
 		}
+		generator.writeEnd();
 	}
 	
 	private ReasonCode retrieveReasonCode(ConstraintViolation<?> constraint){
@@ -0,0 +1,108 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.tx;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import io.leitstand.commons.model.Query;
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.model.Update;
+
+/**
+ * Records the progress of a chunked bulk operation.
+ * <p>
+ * The {@link SubtransactionService} reads the number of committed items in a new transaction before the first chunk is processed,
+ * records the number of committed items in the transaction of every chunk and
+ * notifies the checkpoint after the chunk transaction was committed.
+ * A failed bulk operation resumes after the last committed chunk when the operation is restarted
+ * with the same checkpoint and the same item order.
+ * </p>
+ * <p>
+ * A {@link #persistent(Query, LongFunction) persistent} checkpoint is written in the chunk transaction and
+ * is therefore committed or rolled back along with the chunk.
+ * A persistent checkpoint survives a restart of the application.
+ * An {@link #inMemory() in-memory} checkpoint is updated after the chunk transaction was committed
+ * and allows resuming a failed bulk operation in the same application instance only.
+ * </p>
+ * @see SubtransactionService#run(java.util.Iterator, ItemTransaction, int, Checkpoint)
+ */
+public interface Checkpoint {
+
+	/**
+	 * Creates a checkpoint kept in memory.
+	 * @return a new in-memory checkpoint.
+	 */
+	static Checkpoint inMemory() {
+		AtomicLong committed = new AtomicLong();
+		return new Checkpoint() {
+
+			@Override
+			public long getCommittedItems(Repository repository) {
+				return committed.get();
+			}
+
+			@Override
+			public void setCommittedItems(Repository repository, long items) {
+				// Updated after commit
+			}
+
+			@Override
+			public void committed(long items) {
+				committed.set(items);
+			}
+		};
+	}
+
+	/**
+	 * Creates a checkpoint stored in the database.
+	 * <p>
+	 * The update statement is executed in the chunk transaction and must insert or update the checkpoint record,
+	 * e.g. by a <code>INSERT ... ON CONFLICT DO UPDATE</code> statement on PostgreSQL.
+	 * </p>
+	 * @param committedItems the query to read the number of committed items.
+	 * 						 A <code>null</code> result or no result means that no items have been committed yet.
+	 * @param recordCommittedItems the update to record the number of committed items
+	 * @return a new persistent checkpoint.
+	 */
+	static Checkpoint persistent(Query<Long> committedItems,
+								 LongFunction<Update> recordCommittedItems) {
+		return new Checkpoint() {
+
+			@Override
+			public long getCommittedItems(Repository repository) {
+				Long items = repository.execute(committedItems);
+				return items != null ? items : 0L;
+			}
+
+			@Override
+			public void setCommittedItems(Repository repository, long items) {
+				repository.execute(recordCommittedItems.apply(items));
+			}
+		};
+	}
+
+	/**
+	 * Returns the number of already committed items.
+	 * @param repository the repository of the transaction reading the checkpoint
+	 * @return the number of already committed items.
+	 */
+	long getCommittedItems(Repository repository);
+
+	/**
+	 * Records the number of committed items in the transaction of a chunk.
+	 * @param repository the repository of the chunk transaction
+	 * @param items the number of committed items, including the items of the current chunk.
+	 */
+	void setCommittedItems(Repository repository, long items);
+
+	/**
+	 * Notifies this checkpoint that a chunk transaction was committed.
+	 * @param items the number of committed items, including the items of the committed chunk.
+	 */
+	default void committed(long items) {
+		// Nothing to do by default
+	}
+
+}
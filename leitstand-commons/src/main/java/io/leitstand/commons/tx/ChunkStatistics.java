@@ -0,0 +1,82 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.tx;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the outcome of a chunked bulk operation.
+ * @see SubtransactionService#run(java.util.Iterator, ItemTransaction, int, Checkpoint)
+ */
+public final class ChunkStatistics {
+
+	private final long items;
+	private final long skippedItems;
+	private final int chunks;
+	private final long duration;
+	
+	ChunkStatistics(long items, long skippedItems, int chunks, long durationNanos){
+		this.items = items;
+		this.skippedItems = skippedItems;
+		this.chunks = chunks;
+		this.duration = durationNanos;
+	}
+	
+	/**
+	 * Returns the number of processed items.
+	 * @return the number of processed items.
+	 */
+	public long getItems() {
+		return items;
+	}
+	
+	/**
+	 * Returns the number of items skipped because they were committed by a previous run.
+	 * @return the number of skipped items.
+	 */
+	public long getSkippedItems() {
+		return skippedItems;
+	}
+	
+	/**
+	 * Returns the number of committed chunks.
+	 * @return the number of committed chunks.
+	 */
+	public int getChunks() {
+		return chunks;
+	}
+	
+	/**
+	 * Returns the duration of the bulk operation.
+	 * @param unit the requested time unit
+	 * @return the duration of the bulk operation.
+	 */
+	public long getDuration(TimeUnit unit) {
+		return unit.convert(duration, NANOSECONDS);
+	}
+	
+	/**
+	 * Returns the throughput in items per second.
+	 * @return the throughput in items per second.
+	 */
+	public double getThroughput() {
+		if(duration == 0) {
+			return 0;
+		}
+		return items * 1_000_000_000d / duration;
+	}
+	
+	@Override
+	public String toString() {
+		return format("%d items in %d chunks (%d skipped) in %d ms, %.1f items/s",
+					  items,
+					  chunks,
+					  skippedItems,
+					  getDuration(TimeUnit.MILLISECONDS),
+					  getThroughput());
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.tx;
+
+import static java.util.logging.Level.FINE;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+
+/**
+ * Provides access to the concurrency resources of the application server.
+ * <p>
+ * Threads obtained from the application server carry the container context, 
+ * which is required to run container managed transactions and to access CDI beans.
+ * </p>
+ */
+final class ConcurrencyResources {
+
+	private static final Logger LOG = Logger.getLogger(ConcurrencyResources.class.getName());
+	
+	static final String DEFAULT_MANAGED_EXECUTOR_SERVICE = "java:comp/DefaultManagedExecutorService";
+	static final String DEFAULT_MANAGED_THREAD_FACTORY = "java:comp/DefaultManagedThreadFactory";
+	
+	/**
+	 * Returns the default managed executor service or <code>null</code> if no managed executor service is available.
+	 * @return the default managed executor service or <code>null</code> if no managed executor service is available.
+	 */
+	static ExecutorService managedExecutorService() {
+		return lookup(DEFAULT_MANAGED_EXECUTOR_SERVICE, ExecutorService.class);
+	}
+	
+	/**
+	 * Returns the default managed thread factory or <code>null</code> if no managed thread factory is available.
+	 * @return the default managed thread factory or <code>null</code> if no managed thread factory is available.
+	 */
+	static ThreadFactory managedThreadFactory() {
+		return lookup(DEFAULT_MANAGED_THREAD_FACTORY, ThreadFactory.class);
+	}
+	
+	private static <T> T lookup(String name, Class<T> type) {
+		try {
+			return type.cast(new InitialContext().lookup(name));
+		} catch (NamingException | RuntimeException e) {
+			LOG.log(FINE, e.getMessage(), e);
+			return null;
+		}
+	}
+	
+	private ConcurrencyResources() {
+		// No instances allowed
+	}
+}
@@ -0,0 +1,27 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.tx;
+
+import io.leitstand.commons.model.Repository;
+
+/**
+ * Processes a single item of a chunked bulk operation.
+ * <p>
+ * The item transaction is executed in the container managed transaction of the chunk the item belongs to.
+ * The same rules as outlined for {@link Transaction} apply.
+ * </p>
+ * @param <T> the item type
+ * @see SubtransactionService#run(java.util.Iterator, ItemTransaction, int, Checkpoint)
+ */
+@FunctionalInterface
+public interface ItemTransaction<T> {
+
+	/**
+	 * Processes the specified item.
+	 * @param repository - the repository attached to the chunk transaction.
+	 * @param item - the item to be processed
+	 */
+	void transaction(Repository repository, T item);
+	
+}
@@ -0,0 +1,241 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.tx;
+
+import static io.leitstand.commons.model.BuilderUtil.assertNotInvalidated;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.sql.SQLException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import io.leitstand.commons.UniqueKeyConstraintViolationException;
+
+/**
+ * A policy to retry a failed {@link Transaction}. 
+ * <p>
+ * Concurrent transactions that update the same entities fail with an <code>OptimisticLockException</code>, 
+ * a <code>PessimisticLockException</code> or a unique key constraint violation. 
+ * Retrying the transaction lets the transaction read the current state and complete successfully.
+ * The retry policy defines the exceptions to be retried, the maximum number of attempts and 
+ * an exponential backoff with full jitter between two attempts to avoid that the same transactions collide again.
+ * </p>
+ * The listing below creates a retry policy for optimistic lock exceptions:
+ * <pre><code>
+ * RetryPolicy policy = newRetryPolicy()
+ *                      .retryOn(OptimisticLockException.class)
+ *                      .withMaxAttempts(5)
+ *                      .withInitialBackoff(20,MILLISECONDS)
+ *                      .withMaxBackoff(1,SECONDS)
+ *                      .build();
+ * </code></pre>
+ * @see SubtransactionService#run(Transaction, RetryPolicy)
+ */
+public final class RetryPolicy {
+	
+	/** 
+	 * SQL state of a unique key constraint violation. 
+	 */
+	static final String UNIQUE_VIOLATION = "23505";
+
+	/**
+	 * Returns a policy that does not retry a failed transaction.
+	 * @return a policy that does not retry a failed transaction.
+	 */
+	public static RetryPolicy noRetry() {
+		return newRetryPolicy().withMaxAttempts(1).build();
+	}
+	
+	/**
+	 * Returns a builder to create a new retry policy.
+	 * @return a builder to create a new retry policy.
+	 */
+	public static Builder newRetryPolicy() {
+		return new Builder();
+	}
+	
+	/**
+	 * Returns a predicate that matches if the specified exception or one of its causes is an instance of the specified type.
+	 * @param type the exception type
+	 * @return a predicate to test an exception
+	 */
+	static Predicate<Throwable> causedBy(Class<? extends Throwable> type){
+		return causedBy(type::isInstance);
+	}
+	
+	/**
+	 * Returns a predicate that matches if the specified exception or one of its causes matches the specified predicate.
+	 * @param test the predicate to test the exception and all causes
+	 * @return a predicate to test an exception
+	 */
+	static Predicate<Throwable> causedBy(Predicate<Throwable> test){
+		return e -> {
+			Throwable cause = e;
+			while(cause != null) {
+				if(test.test(cause)) {
+					return true;
+				}
+				if(cause.getCause() == cause) {
+					return false;
+				}
+				cause = cause.getCause();
+			}
+			return false;
+		};
+	}
+	
+	/**
+	 * A builder to create a new retry policy.
+	 */
+	public static class Builder {
+		
+		private RetryPolicy policy = new RetryPolicy();
+		
+		/**
+		 * Retries a transaction that failed with an exception of the specified type.
+		 * The exception is retried if the exception or one of its causes is an instance of the specified type.
+		 * @param type the exception type
+		 * @return a reference to this builder to continue object creation
+		 */
+		public Builder retryOn(Class<? extends Throwable> type) {
+			return retryOn(causedBy(type));
+		}
+		
+		/**
+		 * Retries a transaction that failed with an exception that matches the specified predicate.
+		 * @param test the predicate to test the exception
+		 * @return a reference to this builder to continue object creation
+		 */
+		public Builder retryOn(Predicate<Throwable> test) {
+			assertNotInvalidated(getClass(), policy);
+			policy.retryable.add(test);
+			return this;
+		}
+		
+		/**
+		 * Retries a transaction that failed because of a unique key constraint violation.
+		 * @return a reference to this builder to continue object creation
+		 */
+		public Builder retryOnUniqueKeyViolation() {
+			retryOn(UniqueKeyConstraintViolationException.class);
+			return retryOn(causedBy(e -> e instanceof SQLException && UNIQUE_VIOLATION.equals(((SQLException)e).getSQLState())));
+		}
+		
+		/**
+		 * Sets the maximum number of attempts including the first attempt. Defaults to 3.
+		 * @param attempts the maximum number of attempts
+		 * @return a reference to this builder to continue object creation
+		 */
+		public Builder withMaxAttempts(int attempts) {
+			assertNotInvalidated(getClass(), policy);
+			if(attempts < 1) {
+				throw new IllegalArgumentException("At least one attempt is required");
+			}
+			policy.maxAttempts = attempts;
+			return this;
+		}
+		
+		/**
+		 * Sets the backoff before the first retry. Defaults to 50 milliseconds.
+		 * The backoff is doubled for every further retry.
+		 * @param backoff the initial backoff
+		 * @param unit the backoff time unit
+		 * @return a reference to this builder to continue object creation
+		 */
+		public Builder withInitialBackoff(long backoff, TimeUnit unit) {
+			assertNotInvalidated(getClass(), policy);
+			policy.initialBackoff = unit.toMillis(backoff);
+			return this;
+		}
+		
+		/**
+		 * Sets the maximum backoff between two attempts. Defaults to 1 second.
+		 * @param backoff the maximum backoff
+		 * @param unit the backoff time unit
+		 * @return a reference to this builder to continue object creation
+		 */
+		public Builder withMaxBackoff(long backoff, TimeUnit unit) {
+			assertNotInvalidated(getClass(), policy);
+			policy.maxBackoff = unit.toMillis(backoff);
+			return this;
+		}
+		
+		/**
+		 * Returns the immutable retry policy.
+		 * @return the immutable retry policy.
+		 */
+		public RetryPolicy build() {
+			try {
+				assertNotInvalidated(getClass(), policy);
+				return policy;
+			} finally {
+				this.policy = null;
+			}
+		}
+	}
+	
+	private final List<Predicate<Throwable>> retryable = new LinkedList<>();
+	private int maxAttempts = 3;
+	private long initialBackoff = 50;
+	private long maxBackoff = 1000;
+
+	private RetryPolicy() {
+		// Builder
+	}
+	
+	/**
+	 * Returns the maximum number of attempts including the first attempt.
+	 * @return the maximum number of attempts.
+	 */
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+	
+	/**
+	 * Returns <code>true</code> if a transaction that failed with the specified exception shall be retried.
+	 * @param e the exception
+	 * @return <code>true</code> if the exception is retryable, <code>false</code> otherwise.
+	 */
+	public boolean isRetryable(Throwable e) {
+		for(Predicate<Throwable> test : retryable) {
+			if(test.test(e)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns the backoff in milliseconds after the specified attempt.
+	 * The backoff is a random value between zero and the exponential backoff limited by the maximum backoff.
+	 * @param attempt the number of the failed attempt, starting with 1.
+	 * @return the backoff in milliseconds
+	 */
+	public long getBackoff(int attempt) {
+		long backoff = initialBackoff << Math.min(attempt - 1, 30);
+		if(backoff <= 0 || backoff > maxBackoff) {
+			backoff = maxBackoff;
+		}
+		if(backoff <= 0) {
+			return 0;
+		}
+		return ThreadLocalRandom.current().nextLong(backoff + 1);
+	}
+	
+	/**
+	 * Waits for the backoff after the specified attempt.
+	 * @param attempt the number of the failed attempt
+	 * @throws InterruptedException if the thread was interrupted while waiting
+	 */
+	void backoff(int attempt) throws InterruptedException {
+		long backoff = getBackoff(attempt);
+		if(backoff > 0) {
+			MILLISECONDS.sleep(backoff);
+		}
+	}
+	
+}
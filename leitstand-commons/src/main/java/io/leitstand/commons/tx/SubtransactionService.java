@@ -3,9 +3,26 @@
  */
 package io.leitstand.commons.tx;
 
+import static io.leitstand.commons.metrics.Metrics.counter;
+import static io.leitstand.commons.metrics.Metrics.histogram;
+import static io.leitstand.commons.tx.ConcurrencyResources.managedExecutorService;
+import static io.leitstand.commons.tx.RetryPolicy.noRetry;
+import static java.lang.Integer.getInteger;
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
 import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+import static javax.transaction.Transactional.TxType.NOT_SUPPORTED;
 import static javax.transaction.Transactional.TxType.REQUIRES_NEW;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.logging.Logger;
 
 import javax.inject.Provider;
@@ -29,12 +46,26 @@ import io.leitstand.commons.model.Service;
  * The <code>merge</code> operation returns an attached copy of the passed entity. 
  * It is utmost important to proceed with the returned copy to avoid troubles.
  * If the transaction is done, the {@link Resume} operation is executed to attach all created entities to the resumed transaction.
+ * <p>
+ * Bulk operations can be split into chunks of items, where every chunk is processed in a new container managed transaction.
+ * This avoids long-running transactions that hold database locks and a growing persistence context for the whole duration of the bulk operation.
+ * A {@link Checkpoint} records the committed items to resume a failed bulk operation after the last committed chunk.
+ * The bulk operation itself is not executed in a transaction, such that the transaction timeout only limits the duration of a single chunk.
+ * <p>
+ * Independent transactions can be executed in parallel with a bounded concurrency.
+ * The transactions are executed by the default managed executor service of the application server,
+ * because only managed threads carry the container context required to run container managed transactions.
+ * <p>
+ * A {@link RetryPolicy} retries transactions that failed because of concurrent modifications, 
+ * like an <code>OptimisticLockException</code>, in a new container managed transaction.
  */
 @Service
 public abstract class SubtransactionService {
 	
 	private static final Logger LOG = Logger.getLogger(SubtransactionService.class.getName());
 	
+	static final int DEFAULT_CONCURRENCY = getInteger("SUBTRANSACTION_CONCURRENCY", 8);
+	
 	/**
 	 * Runs the passed transaction in a new container managed transaction.
 	 * @param tx - the transaction to be executed
@@ -62,14 +93,252 @@ public abstract class SubtransactionService {
 	 * @return the outcome of the resume operation
 	 */
 	public <T> T run(Transaction tx, Resume<T> resume) {
+		return run(tx, resume, noRetry());
+	}
+	
+	/**
+	 * Runs the specified {@link Transaction} in a new container managed transaction, retries the transaction as defined by 
+	 * the specified {@link RetryPolicy} and executes the {@link Resume} operation regardless whether the transaction was 
+	 * executed successfully or has failed with an exception that is not retried by the retry policy.
+	 * If all attempts failed with a retryable exception, the failure is logged as warning and the exception of the last attempt is raised
+	 * without executing the resume operation.
+	 * <p>
+	 * The resume operation runs in the transaction of the caller. 
+	 * Hence this method runs in the transaction of the caller, or in a new transaction if the caller has none,
+	 * and this transaction remains open while the retry policy waits before the next attempt.
+	 * Use {@link #run(Transaction, RetryPolicy)} outside of a transaction to retry without holding a transaction.
+	 * </p>
+	 * @param tx - the transaction to be executed in a new container managed transaction
+	 * @param resume - the resume operation to return to the first transaction, that was active before the new transaction was spawned.
+	 * @param policy - the retry policy
+	 * @return the outcome of the resume operation
+	 * @throws RuntimeException the exception of the last attempt, if all attempts failed with a retryable exception
+	 */
+	public <T> T run(Transaction tx, Resume<T> resume, RetryPolicy policy) {
 		try {
-			getServiceProvider().get().run(tx);
+			run(tx,policy);
 		} catch (RuntimeException e) {
+			if(policy.isRetryable(e)) {
+				LOG.log(WARNING,format("Transaction failed after %d attempts: %s",policy.getMaxAttempts(),e.getMessage()),e);
+				throw e;
+			}
 			LOG.log(FINE,e.getMessage(),e);
 		}
 		return resume.resume(getRepository());
 	}
 	
+	/**
+	 * Runs the specified {@link Transaction} in a new container managed transaction and retries the transaction 
+	 * as defined by the specified {@link RetryPolicy}.
+	 * Every attempt is executed in a new container managed transaction.
+	 * This method does not run in a transaction and suspends the transaction of the caller, if any, 
+	 * such that no transaction is held while the retry policy waits before the next attempt.
+	 * The number of retries, recovered transactions and transactions that failed after the last attempt
+	 * are counted by the <code>subtransaction.retry</code>, <code>subtransaction.retry.recovered</code> and
+	 * <code>subtransaction.retry.exhausted</code> counters respectively.
+	 * @param tx - the transaction to be executed in a new container managed transaction
+	 * @param policy - the retry policy
+	 * @throws RuntimeException the exception of the last attempt, if the transaction has failed
+	 */
+	@Transactional(NOT_SUPPORTED)
+	public void run(Transaction tx, RetryPolicy policy) {
+		SubtransactionService service = getServiceProvider().get();
+		for(int attempt = 1;; attempt++) {
+			try {
+				service.run(tx);
+				if(attempt > 1) {
+					counter("subtransaction.retry.recovered").increment();
+				}
+				return;
+			} catch (RuntimeException e) {
+				if(!policy.isRetryable(e)) {
+					throw e;
+				}
+				if(attempt >= policy.getMaxAttempts()) {
+					counter("subtransaction.retry.exhausted").increment();
+					throw e;
+				}
+				counter("subtransaction.retry").increment();
+				int failed = attempt;
+				LOG.fine(() -> format("Attempt %d of %d failed: %s. Retry transaction.",
+									  failed,
+									  policy.getMaxAttempts(),
+									  e.getMessage()));
+				backoff(policy, attempt, e);
+			}
+		}
+	}
+	
+	private static void backoff(RetryPolicy policy, int attempt, RuntimeException e) {
+		try {
+			policy.backoff(attempt);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Processes all items in chunks of the specified size. 
+	 * Every chunk is processed in a new container managed transaction.
+	 * All items already committed according to the specified checkpoint are skipped.
+	 * The checkpoint is recorded in the transaction of every chunk. 
+	 * This method does not run in a transaction and suspends the transaction of the caller, if any.
+	 * The bulk operation is aborted when a chunk transaction fails. 
+	 * Restarting the bulk operation with the same checkpoint and the same item order resumes the operation after the last committed chunk.
+	 * @param items - the items to be processed
+	 * @param tx - the transaction to process a single item
+	 * @param chunkSize - the number of items committed in one transaction
+	 * @param checkpoint - the checkpoint of the bulk operation
+	 * @return the statistics of the bulk operation
+	 */
+	@Transactional(NOT_SUPPORTED)
+	public <T> ChunkStatistics run(Iterator<T> items, 
+								   ItemTransaction<T> tx, 
+								   int chunkSize, 
+								   Checkpoint checkpoint) {
+		if(chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be greater than 0");
+		}
+		SubtransactionService service = getServiceProvider().get();
+		long[] checkpointed = new long[1];
+		service.run(repository -> checkpointed[0] = checkpoint.getCommittedItems(repository));
+		long committed = checkpointed[0];
+		long skipped = 0;
+		while(skipped < committed && items.hasNext()) {
+			items.next();
+			skipped++;
+		}
+		long start = nanoTime();
+		long processed = 0;
+		int chunks = 0;
+		List<T> chunk = new ArrayList<>(chunkSize);
+		while(items.hasNext()) {
+			chunk.add(items.next());
+			if(chunk.size() == chunkSize || !items.hasNext()) {
+				long chunkStart = nanoTime();
+				List<T> current = chunk;
+				long total = committed+processed+current.size();
+				service.run(repository -> {
+					for(T item : current) {
+						tx.transaction(repository, item);
+					}
+					checkpoint.setCommittedItems(repository, total);
+				});
+				checkpoint.committed(total);
+				histogram("subtransaction.chunk").recordSince(chunkStart);
+				processed += current.size();
+				chunks++;
+				LOG.fine(() -> format("Committed chunk of %d items, %d items committed in total.",current.size(),total));
+				chunk = new ArrayList<>(chunkSize);
+			}
+		}
+		ChunkStatistics statistics = new ChunkStatistics(processed, skipped, chunks, nanoTime()-start);
+		LOG.fine(() -> format("Bulk operation completed: %s",statistics));
+		return statistics;
+	}
+	
+	/**
+	 * Processes all items in chunks of the specified size. 
+	 * @param items - the items to be processed
+	 * @param tx - the transaction to process a single item
+	 * @param chunkSize - the number of items committed in one transaction
+	 * @param checkpoint - the checkpoint of the bulk operation
+	 * @return the statistics of the bulk operation
+	 * @see #run(Iterator, ItemTransaction, int, Checkpoint)
+	 */
+	@Transactional(NOT_SUPPORTED)
+	public <T> ChunkStatistics run(Iterable<T> items, 
+								   ItemTransaction<T> tx, 
+								   int chunkSize, 
+								   Checkpoint checkpoint) {
+		return run(items.iterator(),tx,chunkSize,checkpoint);
+	}
+	
+	/**
+	 * Runs all transactions in parallel with the default concurrency configured by the <code>SUBTRANSACTION_CONCURRENCY</code> system property.
+	 * The default concurrency is 8.
+	 * @param transactions - the transactions to be executed
+	 * @return the outcome of all transactions in the order of the specified transactions
+	 * @see #run(Collection, int)
+	 */
+	@Transactional(NOT_SUPPORTED)
+	public List<TransactionOutcome> run(Collection<? extends Transaction> transactions) {
+		return run(transactions,DEFAULT_CONCURRENCY);
+	}
+	
+	/**
+	 * Runs all transactions in parallel, where every transaction is executed in a new container managed transaction.
+	 * At most <code>concurrency</code> transactions are executed at the same time. 
+	 * A failed transaction does not abort the execution of the remaining transactions.
+	 * Failed transactions are logged and counted by the <code>subtransaction.parallel.failed</code> counter.
+	 * This method returns when all transactions have been executed.
+	 * This method does not run in a transaction and suspends the transaction of the caller, if any.
+	 * @param transactions - the transactions to be executed
+	 * @param concurrency - the maximum number of concurrently executed transactions
+	 * @return the outcome of all transactions in the order of the specified transactions
+	 * @throws IllegalStateException if no managed executor service is available
+	 */
+	@Transactional(NOT_SUPPORTED)
+	public List<TransactionOutcome> run(Collection<? extends Transaction> transactions, int concurrency) {
+		if(concurrency < 1) {
+			throw new IllegalArgumentException("Concurrency must be greater than 0");
+		}
+		ExecutorService executor = getExecutorService();
+		if(executor == null) {
+			throw new IllegalStateException("No managed executor service available to run transactions in parallel");
+		}
+		SubtransactionService service = getServiceProvider().get();
+		Semaphore permits = new Semaphore(concurrency);
+		List<Future<TransactionOutcome>> futures = new ArrayList<>(transactions.size());
+		try {
+			for(Transaction tx : transactions) {
+				permits.acquire();
+				try {
+					futures.add(executor.submit(() -> {
+						try {
+							long start = nanoTime();
+							service.run(tx);
+							histogram("subtransaction.parallel").recordSince(start);
+							return new TransactionOutcome(tx,null);
+						} catch (RuntimeException e) {
+							LOG.log(WARNING,format("Parallel transaction failed: %s",e.getMessage()),e);
+							counter("subtransaction.parallel.failed").increment();
+							return new TransactionOutcome(tx,e);
+						} finally {
+							permits.release();
+						}
+					}));
+				} catch (RuntimeException e) {
+					// Task rejected by executor
+					permits.release();
+					throw e;
+				}
+			}
+			List<TransactionOutcome> outcomes = new ArrayList<>(futures.size());
+			for(Future<TransactionOutcome> future : futures) {
+				outcomes.add(future.get());
+			}
+			return outcomes;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			futures.forEach(future -> future.cancel(true));
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+	
+	/**
+	 * Returns the executor service to run transactions in parallel.
+	 * Returns the default managed executor service of the application server by default.
+	 * Returns <code>null</code> if no managed executor service is available.
+	 * @return the executor service to run transactions in parallel or <code>null</code> if no executor service is available.
+	 */
+	protected ExecutorService getExecutorService() {
+		return managedExecutorService();
+	}
+	
 	protected abstract Repository getRepository();
 	protected abstract Provider<SubtransactionService> getServiceProvider();
 	
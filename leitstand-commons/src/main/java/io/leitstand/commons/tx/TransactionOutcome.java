@@ -0,0 +1,43 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.tx;
+
+/**
+ * The outcome of a {@link Transaction} executed by {@link SubtransactionService#run(java.util.Collection, int)}.
+ */
+public final class TransactionOutcome {
+
+	private final Transaction transaction;
+	private final RuntimeException failure;
+	
+	TransactionOutcome(Transaction transaction, RuntimeException failure){
+		this.transaction = transaction;
+		this.failure = failure;
+	}
+	
+	/**
+	 * Returns the executed transaction.
+	 * @return the executed transaction.
+	 */
+	public Transaction getTransaction() {
+		return transaction;
+	}
+	
+	/**
+	 * Returns <code>true</code> if the transaction was committed.
+	 * @return <code>true</code> if the transaction was committed.
+	 */
+	public boolean isSucceeded() {
+		return failure == null;
+	}
+	
+	/**
+	 * Returns the exception that has caused the transaction to fail or <code>null</code> if the transaction was committed.
+	 * @return the exception that has caused the transaction to fail.
+	 */
+	public RuntimeException getFailure() {
+		return failure;
+	}
+	
+}
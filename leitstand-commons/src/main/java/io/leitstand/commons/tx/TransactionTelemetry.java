@@ -0,0 +1,28 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.tx;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import javax.interceptor.InterceptorBinding;
+
+/**
+ * Records the transaction telemetry of a transactional bean.
+ * <p>
+ * The {@link io.leitstand.commons.model.Service} stereotype applies the transaction telemetry to all services.
+ * @see TransactionTelemetryInterceptor
+ */
+@Inherited
+@InterceptorBinding
+@Target({TYPE,METHOD})
+@Retention(RUNTIME)
+public @interface TransactionTelemetry {
+	// Interceptor binding
+}
@@ -0,0 +1,184 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.tx;
+
+import static io.leitstand.commons.metrics.Metrics.counter;
+import static io.leitstand.commons.metrics.Metrics.histogram;
+import static io.leitstand.commons.tx.RetryPolicy.causedBy;
+import static java.lang.Long.getLong;
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static javax.interceptor.Interceptor.Priority.PLATFORM_BEFORE;
+import static javax.transaction.Status.STATUS_COMMITTED;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+import javax.annotation.Priority;
+import javax.annotation.Resource;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+import javax.persistence.LockTimeoutException;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PessimisticLockException;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import io.leitstand.commons.metrics.TransactionProbe;
+
+/**
+ * Records the telemetry of container managed transactions.
+ * <p>
+ * The interceptor runs inside the transaction started by the <code>{@literal @Transactional}</code> interceptor.
+ * The first intercepted method of a transaction is the transaction root. 
+ * The interceptor records for every transaction root
+ * <ul>
+ * <li>the transaction duration including the commit or rollback in the <code>transaction.&lt;class&gt;.&lt;method&gt;</code> histogram,</li>
+ * <li>the time from transaction begin to the first SQL statement in the <code>transaction.&lt;class&gt;.&lt;method&gt;.first_statement</code> histogram,</li>
+ * <li>the number of committed and rolled back transactions in the <code>transaction.commit</code> and <code>transaction.rollback</code> counters 
+ * and the respective method counters,</li>
+ * <li>the number of lock failures, i.e. lock timeouts, optimistic and pessimistic lock exceptions and deadlocks, 
+ * in the <code>transaction.lock_failure</code> counter and the respective method counter.</li>
+ * <li>the number of transactions that were rolled back at commit although the transaction root returned normally and 
+ * did not mark the transaction for rollback in the <code>transaction.commit_failure</code> counter and the respective method counter.</li>
+ * </ul>
+ * Conflicts detected when the persistence context is flushed or the transaction is committed, 
+ * like optimistic lock conflicts, serialization failures and deadlocks, are raised by the 
+ * <code>{@literal @Transactional}</code> interceptor after this interceptor has returned.
+ * The transaction manager only reports the rollback status but not the cause to the synchronization.
+ * Hence, a rollback at commit is counted as commit failure and as lock failure, 
+ * because conflicts are the predominant cause of a failed commit.
+ * A warning is logged for transactions that stayed open longer than the <code>TRANSACTION_DURATION_WARN_THRESHOLD</code>, 
+ * which defaults to 5000 milliseconds.
+ * </p>
+ */
+@Interceptor
+@TransactionTelemetry
+@Priority(PLATFORM_BEFORE+250)
+public class TransactionTelemetryInterceptor implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	
+	private static final Logger LOG = Logger.getLogger(TransactionTelemetryInterceptor.class.getName());
+	
+	static final long DURATION_WARN_THRESHOLD = getLong("TRANSACTION_DURATION_WARN_THRESHOLD", 5000L);
+
+	private static final Object PROBE = TransactionTelemetryInterceptor.class.getName();
+	
+	private static final Predicate<Throwable> LOCK_FAILURE = causedBy(e -> e instanceof OptimisticLockException 
+																		|| e instanceof PessimisticLockException
+																		|| e instanceof LockTimeoutException
+																		|| isLockFailure(e));
+	
+	static boolean isLockFailure(Throwable e) {
+		if(e instanceof SQLException) {
+			String state = ((SQLException)e).getSQLState();
+			// Serialization failure, deadlock and lock not available
+			return "40001".equals(state) || "40P01".equals(state) || "55P03".equals(state);
+		}
+		return false;
+	}
+	
+	static String nameOf(Method method) {
+		return method.getDeclaringClass().getSimpleName()+"."+method.getName();
+	}
+
+	@Resource
+	private TransactionSynchronizationRegistry registry;
+	
+	public TransactionTelemetryInterceptor() {
+		// CDI
+	}
+	
+	TransactionTelemetryInterceptor(TransactionSynchronizationRegistry registry){
+		this.registry = registry;
+	}
+	
+	@AroundInvoke
+	public Object record(InvocationContext context) throws Exception {
+		if(registry == null || registry.getTransactionKey() == null || registry.getResource(PROBE) != null) {
+			// No transaction or transaction root already intercepted.
+			return context.proceed();
+		}
+		String name = nameOf(context.getMethod());
+		TransactionProbe probe = TransactionProbe.attach();
+		try {
+			registry.putResource(PROBE, probe);
+			Telemetry telemetry = new Telemetry(name, probe);
+			registry.registerInterposedSynchronization(telemetry);
+			Object result = context.proceed();
+			telemetry.returned(registry.getRollbackOnly());
+			return result;
+		} catch (Exception e) {
+			if(LOCK_FAILURE.test(e)) {
+				counter("transaction.lock_failure").increment();
+				counter("transaction."+name+".lock_failure").increment();
+			}
+			throw e;
+		} finally {
+			probe.detach();
+		}
+	}
+	
+	/**
+	 * Records the transaction telemetry when the transaction is completed.
+	 */
+	static class Telemetry implements Synchronization {
+		
+		private final String name;
+		private final TransactionProbe probe;
+		private volatile boolean commitExpected;
+		
+		Telemetry(String name, TransactionProbe probe){
+			this.name = name;
+			this.probe = probe;
+		}
+
+		/**
+		 * Notifies the telemetry that the transaction root returned normally.
+		 * @param rollbackOnly whether the transaction was marked for rollback.
+		 */
+		void returned(boolean rollbackOnly) {
+			this.commitExpected = !rollbackOnly;
+		}
+
+		@Override
+		public void beforeCompletion() {
+			// Nothing to do
+		}
+
+		@Override
+		public void afterCompletion(int status) {
+			long duration = nanoTime() - probe.getStarted();
+			histogram("transaction."+name).record(duration, NANOSECONDS);
+			long firstStatement = probe.getTimeToFirstStatement(NANOSECONDS);
+			if(firstStatement >= 0) {
+				histogram("transaction."+name+".first_statement").record(firstStatement, NANOSECONDS);
+			}
+			String outcome = status == STATUS_COMMITTED ? "commit" : "rollback";
+			counter("transaction."+outcome).increment();
+			counter("transaction."+name+"."+outcome).increment();
+			if(status != STATUS_COMMITTED && commitExpected) {
+				counter("transaction.commit_failure").increment();
+				counter("transaction."+name+".commit_failure").increment();
+				counter("transaction.lock_failure").increment();
+				counter("transaction."+name+".lock_failure").increment();
+			}
+			long millis = NANOSECONDS.toMillis(duration);
+			if(millis > DURATION_WARN_THRESHOLD) {
+				LOG.warning(() -> format("Transaction %s was open for %d ms and ended with %s.",
+										 name,
+										 millis,
+										 outcome));
+			}
+		}
+		
+	}
+	
+}
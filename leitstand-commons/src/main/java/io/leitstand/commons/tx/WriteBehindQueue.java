@@ -0,0 +1,357 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.tx;
+
+import static io.leitstand.commons.metrics.Metrics.counter;
+import static io.leitstand.commons.metrics.Metrics.histogram;
+import static io.leitstand.commons.tx.ConcurrencyResources.managedThreadFactory;
+import static java.lang.Integer.getInteger;
+import static java.lang.Long.getLong;
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.logging.Level.SEVERE;
+import static java.util.logging.Level.WARNING;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+import io.leitstand.commons.ShutdownListener;
+
+/**
+ * A bounded in-memory queue of transactions that are executed asynchronously by a background worker.
+ * <p>
+ * The write-behind queue takes writes off the request path, that do not need to be committed before the request completes,
+ * like audit trail records or last-seen timestamps.
+ * A pending transaction can be submitted with a key.
+ * A transaction replaces the pending transaction of the same key, i.e. consecutive updates of the same key are coalesced 
+ * and only the last update is executed.
+ * The worker executes the pending transactions in batches, where every batch is executed in a new container managed transaction.
+ * If a batch fails, all transactions of the batch are executed one by one to only discard the failing transactions.
+ * </p>
+ * <p>
+ * The submission of a new transaction blocks for a configurable time if the queue is full.
+ * The transaction is discarded if the queue is still full after the timeout has elapsed.
+ * The number of discarded transactions is counted by the <code>subtransaction.writebehind.shed</code> counter.
+ * </p>
+ * <p>
+ * The worker thread is created by the default managed thread factory of the application server, 
+ * because only managed threads carry the container context required to run container managed transactions.
+ * A new worker is started if the worker terminates unexpectedly while transactions are pending.
+ * The new worker waits before it executes the pending transactions. 
+ * The delay starts with <code>WRITE_BEHIND_RESTART_DELAY</code> milliseconds (defaults to 1000) 
+ * and doubles with every consecutive failure up to 64 times the initial delay.
+ * No new worker is started once the queue is shut down.
+ * </p>
+ * <p>
+ * The write-behind queue is a {@link ShutdownListener} and executes all pending transactions on shutdown.
+ * A queue is typically exposed as application scoped bean by a producer method:
+ * <pre><code>
+ * {@literal @Produces}
+ * {@literal @ApplicationScoped}
+ * public WriteBehindQueue auditQueue(SubtransactionService service){
+ *   return new WriteBehindQueue(service);
+ * }
+ * </code></pre>
+ * </p>
+ */
+public class WriteBehindQueue implements ShutdownListener {
+
+	private static final Logger LOG = Logger.getLogger(WriteBehindQueue.class.getName());
+	
+	static final int DEFAULT_CAPACITY = getInteger("WRITE_BEHIND_CAPACITY", 10000);
+	static final int DEFAULT_BATCH_SIZE = getInteger("WRITE_BEHIND_BATCH_SIZE", 100);
+	static final long DEFAULT_OFFER_TIMEOUT = getLong("WRITE_BEHIND_OFFER_TIMEOUT", 100L);
+	static final long DRAIN_TIMEOUT = getLong("WRITE_BEHIND_DRAIN_TIMEOUT", 30000L);
+	static final long RESTART_DELAY = getLong("WRITE_BEHIND_RESTART_DELAY", 1000L);
+	private static final int MAX_RESTART_BACKOFF = 6;
+	
+	private final SubtransactionService service;
+	private final ThreadFactory threadFactory;
+	private final int capacity;
+	private final int batchSize;
+	private final long offerTimeoutMillis;
+	private final Map<Object,Transaction> pending;
+	private final ReentrantLock lock;
+	private final Condition notEmpty;
+	private final Condition notFull;
+	private Thread worker;
+	private boolean shutdown;
+	// Consecutive worker failures. Only accessed by the worker thread, the next worker is started by the failed worker.
+	private int failures;
+	
+	/**
+	 * Creates a write-behind queue with the default capacity, batch size and offer timeout.
+	 * @param service - the subtransaction service to execute the transactions
+	 * @throws IllegalStateException if no managed thread factory is available
+	 */
+	public WriteBehindQueue(SubtransactionService service) {
+		this(service, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_OFFER_TIMEOUT);
+	}
+	
+	/**
+	 * Creates a write-behind queue.
+	 * @param service - the subtransaction service to execute the transactions
+	 * @param capacity - the maximum number of pending transactions
+	 * @param batchSize - the maximum number of transactions executed in a single container managed transaction
+	 * @param offerTimeoutMillis - the time in milliseconds to wait for free capacity before a transaction is discarded
+	 * @throws IllegalStateException if no managed thread factory is available
+	 */
+	public WriteBehindQueue(SubtransactionService service, 
+							int capacity, 
+							int batchSize, 
+							long offerTimeoutMillis) {
+		this(service, capacity, batchSize, offerTimeoutMillis, managedThreadFactory());
+	}
+	
+	/**
+	 * Creates a write-behind queue.
+	 * @param service - the subtransaction service to execute the transactions
+	 * @param capacity - the maximum number of pending transactions
+	 * @param batchSize - the maximum number of transactions executed in a single container managed transaction
+	 * @param offerTimeoutMillis - the time in milliseconds to wait for free capacity before a transaction is discarded
+	 * @param threadFactory - the managed thread factory to create the worker thread
+	 * @throws IllegalStateException if no thread factory is specified
+	 */
+	public WriteBehindQueue(SubtransactionService service, 
+							int capacity, 
+							int batchSize, 
+							long offerTimeoutMillis,
+							ThreadFactory threadFactory) {
+		if(capacity < 1 || batchSize < 1) {
+			throw new IllegalArgumentException("Capacity and batch size must be positive");
+		}
+		if(threadFactory == null) {
+			throw new IllegalStateException("No managed thread factory available to run the write-behind queue");
+		}
+		this.service = service;
+		this.threadFactory = threadFactory;
+		this.capacity = capacity;
+		this.batchSize = batchSize;
+		this.offerTimeoutMillis = offerTimeoutMillis;
+		this.pending = new LinkedHashMap<>();
+		this.lock = new ReentrantLock();
+		this.notEmpty = lock.newCondition();
+		this.notFull = lock.newCondition();
+	}
+	
+	/**
+	 * Submits a transaction that is not coalesced with other transactions.
+	 * @param tx - the transaction to be executed asynchronously
+	 * @return <code>true</code> if the transaction was accepted, <code>false</code> if the transaction was discarded.
+	 */
+	public boolean submit(Transaction tx) {
+		return submit(new Object(), tx);
+	}
+	
+	/**
+	 * Submits a transaction for the specified key.
+	 * The transaction replaces a pending transaction of the same key.
+	 * @param key - the key of the modified data
+	 * @param tx - the transaction to be executed asynchronously
+	 * @return <code>true</code> if the transaction was accepted, <code>false</code> if the transaction was discarded.
+	 */
+	public boolean submit(Object key, Transaction tx) {
+		lock.lock();
+		try {
+			if(shutdown) {
+				LOG.warning(() -> format("Discard transaction for %s because write-behind queue is shut down.",key));
+				counter("subtransaction.writebehind.shed").increment();
+				return false;
+			}
+			if(pending.containsKey(key)) {
+				pending.put(key, tx);
+				counter("subtransaction.writebehind.coalesced").increment();
+				return true;
+			}
+			long wait = MILLISECONDS.toNanos(offerTimeoutMillis);
+			while(pending.size() >= capacity) {
+				if(wait <= 0) {
+					counter("subtransaction.writebehind.shed").increment();
+					return false;
+				}
+				wait = notFull.awaitNanos(wait);
+			}
+			pending.put(key, tx);
+			startWorker();
+			notEmpty.signal();
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			counter("subtransaction.writebehind.shed").increment();
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the number of pending transactions.
+	 * @return the number of pending transactions.
+	 */
+	public int getPendingTransactions() {
+		lock.lock();
+		try {
+			return pending.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Stops accepting new transactions and waits until all pending transactions are executed.
+	 */
+	@Override
+	public void onShutdown() {
+		Thread drain;
+		lock.lock();
+		try {
+			shutdown = true;
+			drain = worker;
+			notEmpty.signalAll();
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		if(drain == null) {
+			return;
+		}
+		try {
+			drain.join(DRAIN_TIMEOUT);
+			if(drain.isAlive()) {
+				LOG.warning(() -> format("Write-behind queue not drained within %d ms. %d transactions pending.",
+										 DRAIN_TIMEOUT,
+										 getPendingTransactions()));
+				drain.interrupt();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	private void startWorker() {
+		if(worker == null) {
+			worker = threadFactory.newThread(this::drain);
+			worker.setName("write-behind-"+worker.getId());
+			worker.setDaemon(true);
+			worker.start();
+		}
+	}
+	
+	private void drain() {
+		boolean failed = false;
+		try {
+			awaitRestartDelay();
+			List<Transaction> batch = next();
+			while(batch != null) {
+				execute(batch);
+				failures = 0;
+				batch = next();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException | Error e) {
+			failed = true;
+			failures++;
+			LOG.log(SEVERE, format("Write-behind worker failed: %s", e.getMessage()), e);
+			throw e;
+		} finally {
+			stopWorker(failed);
+		}
+	}
+	
+	private void awaitRestartDelay() throws InterruptedException {
+		if(failures == 0) {
+			return;
+		}
+		long wait = MILLISECONDS.toNanos(RESTART_DELAY << Math.min(failures - 1, MAX_RESTART_BACKOFF));
+		lock.lock();
+		try {
+			while(!shutdown && wait > 0) {
+				wait = notEmpty.awaitNanos(wait);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	private void stopWorker(boolean failed) {
+		lock.lock();
+		try {
+			worker = null;
+			if(pending.isEmpty()) {
+				return;
+			}
+			if(shutdown) {
+				if(failed) {
+					LOG.warning(() -> format("Write-behind worker failed on shutdown. %d transactions discarded.",
+											 pending.size()));
+					counter("subtransaction.writebehind.shed").add(pending.size());
+					pending.clear();
+				}
+				return;
+			}
+			startWorker();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	private List<Transaction> next() throws InterruptedException {
+		lock.lock();
+		try {
+			while(pending.isEmpty()) {
+				if(shutdown) {
+					return null;
+				}
+				notEmpty.await();
+			}
+			List<Transaction> batch = new ArrayList<>(batchSize);
+			Iterator<Transaction> i = pending.values().iterator();
+			while(i.hasNext() && batch.size() < batchSize) {
+				batch.add(i.next());
+				i.remove();
+			}
+			notFull.signalAll();
+			return batch;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	private void execute(List<Transaction> batch) {
+		long start = nanoTime();
+		try {
+			service.run(repository -> {
+				for(Transaction tx : batch) {
+					tx.transaction(repository);
+				}
+			});
+		} catch (RuntimeException e) {
+			LOG.fine(() -> format("Batch of %d transactions failed: %s. Execute transactions one by one.", 
+								  batch.size(), 
+								  e.getMessage()));
+			for(Transaction tx : batch) {
+				try {
+					service.run(tx);
+				} catch (RuntimeException f) {
+					counter("subtransaction.writebehind.failed").increment();
+					LOG.log(WARNING, 
+							format("Write-behind transaction failed: %s",f.getMessage()), 
+							f);
+				}
+			}
+		} finally {
+			histogram("subtransaction.writebehind.batch").recordSince(start);
+		}
+	}
+	
+}
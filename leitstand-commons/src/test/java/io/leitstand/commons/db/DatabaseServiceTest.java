@@ -4,12 +4,15 @@
 package io.leitstand.commons.db;
 
 import static io.leitstand.commons.db.DatabaseService.prepare;
+import static javax.json.Json.createObjectBuilder;
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.contains;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
@@ -388,4 +391,68 @@ public class DatabaseServiceTest {
 		
 	}
 	
+	@Test
+	public void cast_patched_json_document_to_specified_column_type() throws SQLException {
+		when(connection.prepareStatement(anyString())).thenReturn(statement);
+		
+		service.applyJsonMergePatch("test.config", "doc", "jsonb", "id", "key", createObjectBuilder().add("name","value").build());
+		
+		verify(connection).prepareStatement(contains("AS jsonb) WHERE id=?"));
+		verify(statement).executeUpdate();
+	}
+	
+	@Test
+	public void read_and_write_json_document_in_one_local_transaction() throws SQLException {
+		when(connection.getAutoCommit()).thenReturn(true);
+		when(connection.prepareStatement(anyString())).thenReturn(statement);
+		when(statement.executeQuery()).thenReturn(resultSet);
+		when(resultSet.next()).thenReturn(true);
+		when(resultSet.getString(1)).thenReturn("{\"name\":\"value\"}");
+		when(statement.executeUpdate()).thenReturn(1);
+		
+		assertEquals(1,DatabaseService.applyJsonMergePatch(connection, "config", "doc", "id", "key", createObjectBuilder().add("name","patched").build()));
+		
+		InOrder tx = inOrder(connection,statement);
+		tx.verify(connection).setAutoCommit(false);
+		tx.verify(connection).prepareStatement("SELECT doc FROM config WHERE id=? FOR UPDATE");
+		tx.verify(connection).prepareStatement("UPDATE config SET doc=? WHERE id=?");
+		tx.verify(statement).setObject(1,"{\"name\":\"patched\"}");
+		tx.verify(statement).executeUpdate();
+		tx.verify(connection).commit();
+		tx.verify(connection).setAutoCommit(true);
+	}
+	
+	@Test
+	public void rollback_local_transaction_when_json_document_cannot_be_written() throws SQLException {
+		when(connection.getAutoCommit()).thenReturn(true);
+		when(connection.prepareStatement(anyString())).thenReturn(statement);
+		when(statement.executeQuery()).thenReturn(resultSet);
+		when(resultSet.next()).thenReturn(true);
+		when(statement.executeUpdate()).thenThrow(new SQLException());
+		
+		try {
+			DatabaseService.applyJsonMergePatch(connection, "config", "doc", "id", "key", createObjectBuilder().add("name","patched").build());
+			fail("SQL exception expected!");
+		} catch(SQLException e) {
+			// Expected!
+		}
+		
+		verify(connection,never()).commit();
+		verify(connection).rollback();
+		verify(connection).setAutoCommit(true);
+	}
+	
+	@Test
+	public void do_not_commit_managed_transaction() throws SQLException {
+		when(connection.getAutoCommit()).thenReturn(false);
+		when(connection.prepareStatement(anyString())).thenReturn(statement);
+		when(statement.executeQuery()).thenReturn(resultSet);
+		when(resultSet.next()).thenReturn(false);
+		
+		assertEquals(0,DatabaseService.applyJsonMergePatch(connection, "config", "doc", "id", "key", createObjectBuilder().build()));
+		
+		verify(connection,never()).setAutoCommit(false);
+		verify(connection,never()).commit();
+	}
+	
 }
@@ -0,0 +1,54 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.db;
+
+import static java.util.Arrays.asList;
+import static javax.json.Json.createObjectBuilder;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class JsonbMergePatchTest {
+
+	@Test
+	public void set_property_value() {
+		JsonbMergePatch patch = new JsonbMergePatch("test.config", "doc", "id", "jsonb", 
+													createObjectBuilder()
+													.add("name", "junit")
+													.build());
+		
+		assertEquals("UPDATE test.config SET doc=CAST((SELECT jsonb_set(j,ARRAY[?]::text[],CAST(? AS jsonb)) FROM (SELECT COALESCE(doc::jsonb,'{}'::jsonb) AS j) AS p2) AS jsonb) WHERE id=?",
+					 patch.getStatement());
+		assertEquals(asList("name","\"junit\"",10L),patch.getParameters(10L));
+	}
+	
+	@Test
+	public void remove_property() {
+		JsonbMergePatch patch = new JsonbMergePatch("test.config", "doc", "id", "json", 
+													createObjectBuilder()
+													.addNull("name")
+													.build());
+		
+		assertEquals("UPDATE test.config SET doc=CAST((SELECT j #- ARRAY[?]::text[] FROM (SELECT COALESCE(doc::jsonb,'{}'::jsonb) AS j) AS p1) AS json) WHERE id=?",
+					 patch.getStatement());
+		assertEquals(asList("name",10L),patch.getParameters(10L));
+	}
+	
+	@Test
+	public void merge_nested_object() {
+		JsonbMergePatch patch = new JsonbMergePatch("test.config", "doc", "id", "jsonb", 
+													createObjectBuilder()
+													.add("nested", createObjectBuilder()
+																   .add("a", 1))
+													.build());
+		
+		assertEquals("UPDATE test.config SET doc=CAST("
+					 + "(SELECT jsonb_set(j,ARRAY[?,?]::text[],CAST(? AS jsonb)) FROM "
+					 + "(SELECT (SELECT CASE WHEN jsonb_typeof(j #> ARRAY[?]::text[])='object' THEN j ELSE jsonb_set(j,ARRAY[?]::text[],'{}'::jsonb) END FROM "
+					 + "(SELECT COALESCE(doc::jsonb,'{}'::jsonb) AS j) AS p2) AS j) AS p5) AS jsonb) WHERE id=?",
+					 patch.getStatement());
+		assertEquals(asList("nested","a","1","nested","nested",10L),patch.getParameters(10L));
+	}
+	
+}
@@ -0,0 +1,109 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.db;
+
+import static io.leitstand.commons.db.UpdateBatch.updateBatch;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+public class UpdateBatchTest {
+
+	private Connection connection;
+	private PreparedStatement statement;
+	private EntityManager em;
+	
+	@Before
+	public void prepareTestDoubles() throws SQLException {
+		connection = mock(Connection.class);
+		statement = mock(PreparedStatement.class);
+		em = mock(EntityManager.class);
+		when(connection.prepareStatement(anyString())).thenReturn(statement);
+		when(em.unwrap(Connection.class)).thenReturn(connection);
+	}
+	
+	@Test
+	public void empty_batch_does_not_access_database() {
+		assertEquals(0,updateBatch().execute(em));
+		verify(em,never()).flush();
+	}
+	
+	@Test
+	public void statements_with_same_shape_are_sent_in_one_batch() throws SQLException {
+		when(statement.executeBatch()).thenReturn(new int[] {1,1,1});
+		UpdateBatch batch = updateBatch().add("UPDATE a SET b=? WHERE c=?", "b1", "c1")
+										 .add("UPDATE a SET b=? WHERE c=?", "b2", "c2")
+										 .add("UPDATE a SET b=? WHERE c=?", "b3", "c3");
+		
+		assertEquals(3,batch.size());
+		assertEquals(3,batch.execute(em));
+		
+		InOrder order = inOrder(em,connection,statement);
+		order.verify(em).flush();
+		order.verify(connection).prepareStatement("UPDATE a SET b=? WHERE c=?");
+		verify(statement,times(3)).addBatch();
+		verify(statement).executeBatch();
+		verify(statement).close();
+		verify(connection,never()).close();
+	}
+	
+	@Test
+	public void interleaved_statements_are_executed_in_submission_order() throws SQLException {
+		PreparedStatement delete = mock(PreparedStatement.class);
+		PreparedStatement insert = mock(PreparedStatement.class);
+		when(connection.prepareStatement("DELETE FROM a WHERE c=?")).thenReturn(delete);
+		when(connection.prepareStatement("INSERT INTO a (c) VALUES (?)")).thenReturn(insert);
+		when(delete.executeBatch()).thenReturn(new int[] {1});
+		when(insert.executeBatch()).thenReturn(new int[] {1,1});
+		UpdateBatch batch = updateBatch().add("DELETE FROM a WHERE c=?", "c1")
+										 .add("INSERT INTO a (c) VALUES (?)", "c1")
+										 .add("INSERT INTO a (c) VALUES (?)", "c2")
+										 .add("DELETE FROM a WHERE c=?", "c2");
+		
+		assertEquals(4,batch.size());
+		assertEquals(4,batch.execute(em));
+		
+		InOrder order = inOrder(delete,insert);
+		order.verify(delete).executeBatch();
+		order.verify(insert).executeBatch();
+		order.verify(delete).executeBatch();
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void reject_batch_if_provider_cannot_unwrap_connection() {
+		when(em.unwrap(Connection.class)).thenThrow(new PersistenceException("Cannot unwrap connection"));
+		updateBatch().add("DELETE FROM a WHERE c=?", "c1").execute(em);
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void reject_batch_if_provider_returns_no_connection() {
+		when(em.unwrap(Connection.class)).thenReturn(null);
+		updateBatch().add("DELETE FROM a WHERE c=?", "c1").execute(em);
+	}
+	
+	@Test
+	public void unknown_row_counts_are_ignored() throws SQLException {
+		when(statement.executeBatch()).thenReturn(new int[] {1,PreparedStatement.SUCCESS_NO_INFO});
+		UpdateBatch batch = updateBatch().add("DELETE FROM a WHERE c=?", "c1")
+										 .add("DELETE FROM a WHERE c=?", "c2");
+		assertEquals(1,batch.execute(em));
+	}
+	
+}
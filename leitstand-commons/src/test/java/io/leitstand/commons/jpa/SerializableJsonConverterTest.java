@@ -6,7 +6,9 @@ package io.leitstand.commons.jpa;
 import static io.leitstand.commons.json.SerializableJsonObject.serializable;
 import static javax.json.Json.createObjectBuilder;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import javax.json.stream.JsonParsingException;
 
@@ -67,6 +69,33 @@ public class SerializableJsonConverterTest {
 	public void non_JSON_string_raises_exception() throws Exception{
 		PGobject object = new PGobject();
 		object.setValue("foo");
-		converter.convertToEntityAttribute(object);
+		converter.convertToEntityAttribute(object).size();
 	}
+	
+	@Test
+	public void JSON_string_is_parsed_on_first_access() throws Exception{
+		PGobject object = new PGobject();
+		object.setValue(json);
+		SerializableJsonObject lazy = converter.convertToEntityAttribute(object);
+		assertFalse(lazy.isParsed());
+		assertEquals("junit",lazy.getString("name"));
+		assertTrue(lazy.isParsed());
+	}
+	
+	@Test
+	public void raw_JSON_string_is_written_without_parsing() throws Exception{
+		PGobject object = new PGobject();
+		object.setValue("{ \"name\" : \"junit\" }");
+		SerializableJsonObject lazy = converter.convertToEntityAttribute(object);
+		assertEquals(object,converter.convertToDatabaseColumn(lazy));
+		assertFalse(lazy.isParsed());
+	}
+	
+	@Test
+	public void json_is_mapped_to_jsonb() throws Exception{
+		PGobject object = (PGobject) new SerializableJsonbObjectConverter().convertToDatabaseColumn(ref);
+		assertEquals("jsonb",object.getType());
+		assertEquals(json,object.getValue());
+	}
+	
 }
@@ -0,0 +1,87 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.json;
+
+import static javax.json.Json.createReader;
+import static javax.json.JsonValue.EMPTY_JSON_ARRAY;
+import static javax.json.JsonValue.EMPTY_JSON_OBJECT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.leitstand.commons.metrics.Metrics;
+
+public class CanonicalJsonProviderTest {
+
+	private static final String JSON = "{\"name\":\"junit\",\"count\":7,\"big\":12345678901,\"ratio\":0.5,\"enabled\":true,\"none\":null,\"empty\":{},\"list\":[]}";
+	
+	private static JsonObject read(String json) {
+		try(JsonReader reader = JsonDeduplication.provider().createReader(new StringReader(json))){
+			return reader.readObject();
+		}
+	}
+	
+	@Before
+	public void resetMetrics() {
+		Metrics.reset();
+	}
+	
+	@Test
+	public void canonical_JSON_object_equals_JSON_object() {
+		try(JsonReader reader = createReader(new StringReader(JSON))){
+			assertEquals(reader.readObject(),read(JSON));
+		}
+	}
+	
+	@Test
+	public void share_property_names() {
+		String a = read(JSON).keySet().iterator().next();
+		String b = read(JSON).keySet().iterator().next();
+		assertSame(a,b);
+	}
+	
+	@Test
+	public void share_leaf_values() {
+		JsonObject a = read(JSON);
+		JsonObject b = read(JSON);
+		assertSame(a.get("count"),b.get("count"));
+		assertSame(EMPTY_JSON_OBJECT,a.get("empty"));
+		assertSame(EMPTY_JSON_ARRAY,a.get("list"));
+	}
+	
+	@Test
+	public void read_negative_zero_like_default_provider() {
+		String json = "{\"zero\":-0,\"decimal\":-0.0}";
+		try(JsonReader reader = createReader(new StringReader(json))){
+			JsonObject object = reader.readObject();
+			assertEquals(object,read(json));
+			assertEquals(object.toString(),read(json).toString());
+		}
+	}
+	
+	@Test
+	public void do_not_share_integral_numbers_with_exponent() {
+		JsonObject a = read("{\"count\":1E2}");
+		JsonObject b = read("{\"count\":1E2}");
+		assertNotSame(a.get("count"),b.get("count"));
+		assertEquals(100,a.getInt("count"));
+	}
+	
+	@Test
+	public void report_saved_bytes() {
+		read(JSON);
+		read(JSON);
+		assertTrue(JsonDeduplication.getBytesSaved() > 0);
+	}
+	
+}
@@ -0,0 +1,108 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.json;
+
+import static io.leitstand.commons.json.JsonBinaryCodec.decode;
+import static io.leitstand.commons.json.JsonBinaryCodec.encode;
+import static io.leitstand.commons.json.SerializableJsonObject.fromString;
+import static io.leitstand.commons.json.SerializableJsonObject.serializable;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.json.Json.createArrayBuilder;
+import static javax.json.Json.createObjectBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+
+import org.junit.Test;
+
+public class JsonBinaryCodecTest {
+
+	private static JsonObject sample() {
+		JsonArrayBuilder items = createArrayBuilder();
+		for(int i=0; i < 50; i++) {
+			items.add(createObjectBuilder()
+					  .add("index", i)
+					  .add("name", "item-"+i)
+					  .add("enabled", i % 2 == 0));
+		}
+		return createObjectBuilder()
+			   .add("string", "Gr\u00fc\u00dfe \u2603")
+			   .add("negative", -42)
+			   .add("long", Long.MIN_VALUE)
+			   .add("big", new BigInteger("123456789012345678901234567890"))
+			   .add("decimal", new BigDecimal("3.14159"))
+			   .addNull("null")
+			   .add("empty", createObjectBuilder())
+			   .add("items", items)
+			   .build();
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static <T> T copy(T object) throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try(ObjectOutputStream out = new ObjectOutputStream(buffer)){
+			out.writeObject(object);
+		}
+		try(ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()))){
+			return (T) in.readObject();
+		}
+	}
+	
+	@Test
+	public void decode_encoded_object() throws IOException {
+		JsonObject sample = sample();
+		assertEquals(sample, decode(encode(sample)));
+	}
+	
+	@Test
+	public void binary_encoding_is_smaller_than_JSON_text() {
+		JsonObject sample = sample();
+		assertTrue(encode(sample).length < sample.toString().getBytes(UTF_8).length);
+	}
+	
+	@Test(expected=InvalidObjectException.class)
+	public void reject_unknown_version() throws IOException {
+		byte[] data = encode(sample());
+		data[0] = 99;
+		decode(data);
+	}
+	
+	@Test(expected=InvalidObjectException.class)
+	public void reject_truncated_data() throws IOException {
+		byte[] data = encode(sample());
+		byte[] truncated = new byte[data.length/2];
+		System.arraycopy(data, 0, truncated, 0, truncated.length);
+		decode(truncated);
+	}
+	
+	@Test
+	public void serialize_parsed_object_in_binary_encoding() throws Exception {
+		SerializableJsonObject object = serializable(sample());
+		SerializableJsonObject copy = copy(object);
+		assertTrue(copy.isParsed());
+		assertEquals(object,copy);
+	}
+	
+	@Test
+	public void serialize_unparsed_object_as_JSON_text() throws Exception {
+		SerializableJsonObject object = fromString(sample().toString());
+		SerializableJsonObject copy = copy(object);
+		assertFalse(copy.isParsed());
+		assertEquals(object.toString(),copy.toString());
+		assertEquals(sample(),copy.unwrap());
+	}
+	
+}
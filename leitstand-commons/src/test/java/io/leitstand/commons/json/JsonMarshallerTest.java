@@ -4,12 +4,20 @@
 package io.leitstand.commons.json;
 
 import static io.leitstand.commons.json.JsonMarshaller.marshal;
+import static io.leitstand.commons.jsonb.JsonbDefaults.jsonb;
+import static java.lang.Boolean.TRUE;
+import static java.util.Arrays.asList;
+import static javax.json.Json.createReader;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
+import java.io.StringReader;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.json.JsonReader;
+
 import org.junit.Test;
 
 public class JsonMarshallerTest {
@@ -42,4 +50,23 @@ public class JsonMarshallerTest {
 		assertEquals("{\"nested\":{\"name\":\"name\",\"value\":\"value\"}}",marshal(map).toString());
 	}
 	
+	@Test
+	public void tree_binding_creates_same_JSON_object_as_text_binding() {
+		Map<String,Object> map = new HashMap<>();
+		map.put("nested",new FakeJsonObject());
+		map.put("list",asList(1,2.5,"three",null,new FakeJsonObject()));
+		map.put("snake_case",new FakeSnakeCaseObject());
+		map.put("flag",TRUE);
+		
+		try(JsonReader reader = createReader(new StringReader(jsonb().toJson(map)))){
+			assertEquals(reader.readObject(),marshal(map));
+		}
+	}
+	
+	static class FakeSnakeCaseObject {
+		private String elementName = "element";
+		private long elementCount = Long.MAX_VALUE;
+		private Date created = new Date(0);
+	}
+	
 }
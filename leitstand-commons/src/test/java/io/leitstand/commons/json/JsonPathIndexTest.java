@@ -0,0 +1,63 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.json;
+
+import static io.leitstand.commons.json.SerializableJsonObject.fromString;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class JsonPathIndexTest {
+
+	private SerializableJsonObject config;
+	
+	@Before
+	public void initConfig() {
+		config = fromString("{\"interfaces\":[{\"name\":\"eth0\",\"vlans\":[{\"id\":10,\"name\":\"mgmt\"}]},"
+						   +"{\"name\":\"eth1\",\"enabled\":false}],\"a/b\":{\"c~d\":\"escaped\"},\"mtu\":9000}");
+	}
+	
+	@Test
+	public void read_value_by_JSON_pointer() {
+		assertEquals("mgmt",config.getStringAt("/interfaces/0/vlans/0/name", null));
+		assertEquals(10,config.getIntAt("/interfaces/0/vlans/0/id", 0));
+		assertEquals("escaped",config.getStringAt("/a~1b/c~0d", null));
+	}
+	
+	@Test
+	public void read_value_by_dotted_path() {
+		assertEquals("eth1",config.getStringAt("interfaces.1.name", null));
+		assertEquals(9000L,config.getLongAt("mtu", 0));
+		assertFalse(config.getBooleanAt("interfaces.1.enabled", true));
+	}
+	
+	@Test
+	public void return_default_for_missing_or_mismatching_values() {
+		assertEquals("default",config.getStringAt("/interfaces/5/name", "default"));
+		assertEquals(-1,config.getIntAt("interfaces.0.name", -1));
+		assertTrue(config.getBooleanAt("interfaces.0.enabled", true));
+		assertNull(config.getJsonObjectAt("interfaces.00"));
+		assertNull(config.getJsonArrayAt("mtu.x"));
+	}
+	
+	@Test
+	public void return_cached_value_for_repeated_lookup() {
+		assertSame(config.getJsonArrayAt("/interfaces/0/vlans"),config.getJsonArrayAt("/interfaces/0/vlans"));
+		assertSame(config.getValueAt(""),config.unwrap());
+	}
+	
+	@Test
+	public void split_paths_into_tokens() {
+		assertEquals(asList("a","0","b"),JsonPathIndex.tokens("/a/0/b"));
+		assertEquals(asList("a","0","b"),JsonPathIndex.tokens("a.0.b"));
+		assertEquals(asList(""),JsonPathIndex.tokens("/"));
+	}
+	
+}
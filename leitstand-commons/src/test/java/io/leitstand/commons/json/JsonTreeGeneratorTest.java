@@ -0,0 +1,61 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.json;
+
+import static javax.json.Json.createArrayBuilder;
+import static javax.json.Json.createObjectBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import javax.json.stream.JsonGenerationException;
+
+import org.junit.Test;
+
+public class JsonTreeGeneratorTest {
+
+	@Test
+	public void generate_nested_JSON_object() {
+		JsonTreeGenerator generator = new JsonTreeGenerator();
+		generator.writeStartObject()
+				 .write("name", "junit")
+				 .writeKey("count")
+				 .write(42)
+				 .writeStartArray("items")
+				 .write(true)
+				 .writeNull()
+				 .writeStartObject()
+				 .write("value", 1.5)
+				 .writeEnd()
+				 .writeEnd()
+				 .writeStartObject("empty")
+				 .writeEnd()
+				 .writeEnd();
+		
+		assertEquals(createObjectBuilder()
+					 .add("name", "junit")
+					 .add("count", 42)
+					 .add("items", createArrayBuilder()
+							 	   .add(true)
+							 	   .addNull()
+							 	   .add(createObjectBuilder().add("value", 1.5)))
+					 .add("empty", createObjectBuilder())
+					 .build(),
+					 generator.getValue());
+	}
+	
+	@Test
+	public void incomplete_JSON_object_is_not_returned() {
+		JsonTreeGenerator generator = new JsonTreeGenerator();
+		generator.writeStartObject()
+		 		 .write("name", "junit");
+		assertNull(generator.getValue());
+	}
+	
+	@Test(expected=JsonGenerationException.class)
+	public void property_without_name_is_rejected() {
+		new JsonTreeGenerator().writeStartObject()
+							   .write("junit");
+	}
+	
+}
@@ -0,0 +1,112 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.json;
+
+import static javax.json.Json.createArrayBuilder;
+import static javax.json.Json.createObjectBuilder;
+import static javax.json.stream.JsonParser.Event.END_ARRAY;
+import static javax.json.stream.JsonParser.Event.END_OBJECT;
+import static javax.json.stream.JsonParser.Event.KEY_NAME;
+import static javax.json.stream.JsonParser.Event.START_ARRAY;
+import static javax.json.stream.JsonParser.Event.START_OBJECT;
+import static javax.json.stream.JsonParser.Event.VALUE_NULL;
+import static javax.json.stream.JsonParser.Event.VALUE_NUMBER;
+import static javax.json.stream.JsonParser.Event.VALUE_STRING;
+import static javax.json.stream.JsonParser.Event.VALUE_TRUE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+
+import javax.json.JsonObject;
+
+import org.junit.Test;
+
+public class JsonTreeParserTest {
+
+	private static final JsonObject JSON = createObjectBuilder()
+										   .add("name", "junit")
+										   .add("count", 42)
+										   .add("items", createArrayBuilder()
+												   		 .add(true)
+												   		 .addNull()
+												   		 .add(createObjectBuilder().add("value", 1.5)))
+										   .add("empty", createObjectBuilder())
+										   .build();
+	
+	@Test
+	public void read_nested_JSON_object() {
+		JsonTreeParser parser = new JsonTreeParser(JSON);
+		assertEquals(START_OBJECT,parser.next());
+		assertEquals(KEY_NAME,parser.next());
+		assertEquals("name",parser.getString());
+		assertEquals(VALUE_STRING,parser.next());
+		assertEquals("junit",parser.getString());
+		assertEquals(KEY_NAME,parser.next());
+		assertEquals("count",parser.getString());
+		assertEquals(VALUE_NUMBER,parser.next());
+		assertTrue(parser.isIntegralNumber());
+		assertEquals(42,parser.getInt());
+		assertEquals(KEY_NAME,parser.next());
+		assertEquals(START_ARRAY,parser.next());
+		assertEquals(VALUE_TRUE,parser.next());
+		assertEquals(VALUE_NULL,parser.next());
+		assertEquals(START_OBJECT,parser.next());
+		assertEquals(KEY_NAME,parser.next());
+		assertEquals(VALUE_NUMBER,parser.next());
+		assertFalse(parser.isIntegralNumber());
+		assertEquals(new BigDecimal("1.5"),parser.getBigDecimal());
+		assertEquals(END_OBJECT,parser.next());
+		assertEquals(END_ARRAY,parser.next());
+		assertEquals(KEY_NAME,parser.next());
+		assertEquals("empty",parser.getString());
+		assertEquals(START_OBJECT,parser.next());
+		assertEquals(END_OBJECT,parser.next());
+		assertEquals(END_OBJECT,parser.next());
+		assertFalse(parser.hasNext());
+	}
+	
+	@Test
+	public void stream_offset_is_number_of_read_events() {
+		JsonTreeParser parser = new JsonTreeParser(JSON);
+		assertEquals(0,parser.getLocation().getStreamOffset());
+		parser.next();
+		parser.next();
+		assertEquals(2,parser.getLocation().getStreamOffset());
+	}
+	
+	@Test
+	public void get_object_advances_to_end_of_object() {
+		JsonTreeParser parser = new JsonTreeParser(JSON);
+		parser.next();
+		assertEquals(JSON,parser.getObject());
+		assertFalse(parser.hasNext());
+	}
+	
+	@Test
+	public void skip_array_advances_to_end_of_array() {
+		JsonTreeParser parser = new JsonTreeParser(JSON);
+		parser.next(); // {
+		parser.next(); // name
+		parser.next(); // junit
+		parser.next(); // count
+		parser.next(); // 42
+		parser.next(); // items
+		parser.next(); // [
+		parser.skipArray();
+		assertEquals(KEY_NAME,parser.next());
+		assertEquals("empty",parser.getString());
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void reject_number_access_on_string_value() {
+		JsonTreeParser parser = new JsonTreeParser(JSON);
+		parser.next();
+		parser.next();
+		parser.next();
+		parser.getInt();
+	}
+	
+}
@@ -0,0 +1,107 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.json;
+
+import static io.leitstand.commons.jsonb.JsonbDefaults.jsonb;
+import static javax.json.Json.createObjectBuilder;
+import static javax.json.spi.JsonProvider.provider;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.StringWriter;
+
+import javax.json.JsonObject;
+import javax.json.bind.Jsonb;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+
+import org.junit.Test;
+
+import io.leitstand.commons.json.JsonTreeProvider.JsonTreeSink;
+import io.leitstand.commons.json.JsonTreeProvider.JsonTreeSource;
+
+public class JsonTreeProviderTest {
+
+	private static final JsonObject JSON = createObjectBuilder()
+										   .add("name", "name")
+										   .add("value", "value")
+										   .build();
+	
+	private JsonTreeProvider provider = new JsonTreeProvider(provider());
+	
+	@Test
+	public void write_JSON_tree_to_tree_sink() {
+		JsonTreeSink sink = new JsonTreeSink();
+		JsonGenerator generator = provider.createGenerator(sink);
+		generator.write(JSON);
+		generator.close();
+		
+		assertEquals(JSON,sink.getValue());
+	}
+	
+	@Test
+	public void write_JSON_tree_to_tree_sink_by_generator_factory() {
+		JsonTreeSink sink = new JsonTreeSink();
+		JsonGenerator generator = provider.createGeneratorFactory(null).createGenerator(sink);
+		generator.write(JSON);
+		generator.close();
+		
+		assertEquals(JSON,sink.getValue());
+	}
+	
+	@Test
+	public void read_JSON_tree_from_tree_source() {
+		try(JsonParser parser = provider.createParser(new JsonTreeSource(JSON))){
+			assertSame(Event.START_OBJECT,parser.next());
+			assertEquals(JSON,parser.getObject());
+		}
+	}
+	
+	@Test
+	public void read_JSON_tree_from_tree_source_by_parser_factory() {
+		try(JsonParser parser = provider.createParserFactory(null).createParser(new JsonTreeSource(JSON))){
+			assertSame(Event.START_OBJECT,parser.next());
+			assertEquals(JSON,parser.getObject());
+		}
+	}
+	
+	@Test
+	public void write_JSON_text_to_other_writers() {
+		StringWriter writer = new StringWriter();
+		try(JsonGenerator generator = provider.createGenerator(writer)){
+			generator.write(JSON);
+		}
+		assertEquals(JSON.toString(),writer.toString());
+	}
+	
+	@Test
+	public void bind_object_to_JSON_tree() {
+		Jsonb jsonb = jsonb(provider);
+		JsonTreeSink sink = new JsonTreeSink();
+		jsonb.toJson(new FakeJsonObject(), sink);
+		
+		assertEquals(JSON,sink.getValue());
+	}
+	
+	@Test
+	public void bind_JSON_tree_to_object() {
+		Jsonb jsonb = jsonb(provider);
+		FakeJsonObject object = jsonb.fromJson(new JsonTreeSource(JSON), FakeJsonObject.class);
+		
+		assertEquals("name",object.getName());
+		assertEquals("value",object.getValue());
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void tree_sink_rejects_JSON_text() {
+		jsonb(provider()).toJson(new FakeJsonObject(), new JsonTreeSink());
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void tree_source_rejects_JSON_text() {
+		jsonb(provider()).fromJson(new JsonTreeSource(JSON), FakeJsonObject.class);
+	}
+	
+}
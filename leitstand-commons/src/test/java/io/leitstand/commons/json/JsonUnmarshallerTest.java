@@ -4,10 +4,17 @@
 package io.leitstand.commons.json;
 
 import static io.leitstand.commons.json.JsonUnmarshaller.unmarshal;
+import static io.leitstand.commons.jsonb.JsonbDefaults.jsonb;
+import static javax.json.Json.createArrayBuilder;
 import static javax.json.Json.createObjectBuilder;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
+import java.util.Date;
+import java.util.List;
+
+import javax.json.JsonObject;
+
 import org.junit.Test;
 
 public class JsonUnmarshallerTest {
@@ -29,4 +36,34 @@ public class JsonUnmarshallerTest {
 		assertEquals("bar",object.getValue());
 	}
 	
+	@Test
+	public void tree_binding_reads_same_object_as_text_binding() {
+		JsonObject json = createObjectBuilder()
+						  .add("element_name", "junit")
+						  .add("element_count", Long.MAX_VALUE)
+						  .add("created", "2019-01-01T12:00:00.000Z")
+						  .add("items", createArrayBuilder()
+								  		.add(createObjectBuilder()
+								  			 .add("name", "foo")
+								  			 .add("value", "bar")))
+						  .build();
+		
+		FakeSnakeCaseObject tree = unmarshal(FakeSnakeCaseObject.class, json);
+		FakeSnakeCaseObject text = jsonb().fromJson(json.toString(), FakeSnakeCaseObject.class);
+		
+		assertEquals(text.elementName,tree.elementName);
+		assertEquals(text.elementCount,tree.elementCount);
+		assertEquals(text.created,tree.created);
+		assertEquals(1,tree.items.size());
+		assertEquals("foo",tree.items.get(0).getName());
+		assertEquals("bar",tree.items.get(0).getValue());
+	}
+	
+	public static class FakeSnakeCaseObject {
+		private String elementName;
+		private long elementCount;
+		private Date created;
+		private List<FakeJsonObject> items;
+	}
+	
 }
@@ -8,16 +8,25 @@ package io.leitstand.commons.json;
 
 import static io.leitstand.commons.json.MapUnmarshaller.unmarshal;
 import static java.lang.Boolean.TRUE;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static javax.json.Json.createObjectBuilder;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import javax.json.JsonObject;
+import javax.json.stream.JsonParsingException;
 
 import org.junit.Test;
 
@@ -77,4 +86,56 @@ public class MapUnmarshallerTest {
 		assertEquals("B",nestedMap.get("b"));
 	}
 
+	@Test
+	public void read_JSON_object_from_reader() {
+		Reader reader = new StringReader("{\"string\":\"string\",\"int\":1,\"list\":[1,\"two\",null,{\"a\":\"A\"}],\"nested\":{\"b\":true}}");
+		
+		Map<String,Object> map = unmarshal(reader).toMap();
+		
+		assertEquals("string",map.get("string"));
+		assertEquals(BigInteger.ONE,map.get("int"));
+		List<Object> list = (List<Object>) map.get("list");
+		assertTrue(list instanceof ArrayList);
+		assertEquals(BigInteger.ONE,list.get(0));
+		assertEquals("two",list.get(1));
+		assertNull(list.get(2));
+		assertEquals("A",((Map<String,Object>)list.get(3)).get("a"));
+		assertEquals(TRUE,((Map<String,Object>)map.get("nested")).get("b"));
+	}
+	
+	@Test
+	public void read_JSON_object_from_input_stream() {
+		InputStream in = new ByteArrayInputStream("{\"name\":\"Gr\u00fc\u00dfe\"}".getBytes(UTF_8));
+		assertEquals("Gr\u00fc\u00dfe",unmarshal(in).toMap().get("name"));
+	}
+	
+	@Test
+	public void narrow_numbers_if_value_fits() {
+		Reader reader = new StringReader("{\"int\":1,\"long\":12345678901,\"big\":123456789012345678901234567890,\"double\":1.5,\"decimal\":0.1000000000000000000001}");
+		
+		Map<String,Object> map = unmarshal(reader).withNarrowedNumbers().toMap();
+		
+		assertEquals(Integer.valueOf(1),map.get("int"));
+		assertEquals(Long.valueOf(12345678901L),map.get("long"));
+		assertEquals(new BigInteger("123456789012345678901234567890"),map.get("big"));
+		assertEquals(Double.valueOf(1.5),map.get("double"));
+		assertEquals(new BigDecimal("0.1000000000000000000001"),map.get("decimal"));
+	}
+	
+	@Test
+	public void intern_keys() {
+		Reader reader = new StringReader("{\"items\":[{\"name\":\"a\"},{\"name\":\"b\"}]}");
+		
+		Map<String,Object> map = unmarshal(reader).withInternedKeys().toMap();
+		
+		List<Map<String,Object>> items = (List<Map<String,Object>>) map.get("items");
+		assertSame(items.get(0).keySet().iterator().next(),
+				   items.get(1).keySet().iterator().next());
+	}
+	
+	@Test(expected=JsonParsingException.class)
+	public void reject_JSON_array() {
+		unmarshal(new StringReader("[1,2,3]")).toMap();
+	}
+
 }
@@ -0,0 +1,124 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.jsonb;
+
+import static io.leitstand.commons.jsonb.IsoDateCodec.format;
+import static io.leitstand.commons.jsonb.IsoDateCodec.parseDate;
+import static io.leitstand.commons.jsonb.IsoDateCodec.parseInstant;
+import static io.leitstand.commons.jsonb.IsoDateCodec.parseOffsetDateTime;
+import static java.time.ZoneOffset.UTC;
+import static java.time.ZoneOffset.ofHoursMinutes;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+public class IsoDateCodecTest {
+
+	@Test
+	public void format_and_parse_dates_like_SimpleDateFormat() throws Exception {
+		SimpleDateFormat iso = new SimpleDateFormat(IsoDateAdapter.ISO_FORMAT);
+		Random random = new Random(0);
+		for(int i=0; i < 10000; i++) {
+			// Dates between 1600 and 9999 
+			Date date = new Date(-11_676_096_000_000L + (long)(random.nextDouble() * 240_000_000_000_000L));
+			String expected = iso.format(date);
+			assertEquals(expected,format(date));
+			assertEquals(iso.parse(expected),parseDate(expected));
+		}
+	}
+	
+	@Test
+	public void reuse_cached_second_for_consecutive_timestamps() throws Exception {
+		SimpleDateFormat iso = new SimpleDateFormat(IsoDateAdapter.ISO_FORMAT);
+		for(long millis = 1556299925000L; millis < 1556299927000L; millis+=7) {
+			Date date = new Date(millis);
+			assertEquals(iso.format(date),format(date));
+		}
+	}
+	
+	@Test
+	public void delegate_dates_outside_fast_path_range_to_SimpleDateFormat() throws Exception {
+		SimpleDateFormat iso = new SimpleDateFormat(IsoDateAdapter.ISO_FORMAT);
+		Date date = iso.parse("1410-07-15T12:00:00.000+01:00");
+		assertEquals(iso.format(date),format(date));
+	}
+	
+	@Test
+	public void parse_lenient_dates_like_SimpleDateFormat() throws Exception {
+		SimpleDateFormat iso = new SimpleDateFormat(IsoDateAdapter.ISO_FORMAT);
+		assertEquals(iso.parse("2019-02-30T03:04:05.006+01:00"),parseDate("2019-02-30T03:04:05.006+01:00"));
+	}
+	
+	@Test
+	public void format_UTC_offset_as_Z() {
+		assertEquals("2019-01-02T03:04:05.006Z",format(OffsetDateTime.of(2019,1,2,3,4,5,6_000_000,UTC)));
+	}
+	
+	@Test
+	public void format_and_parse_offset_date_time() {
+		OffsetDateTime dateTime = OffsetDateTime.of(2019,1,2,3,4,5,6_000_000,ofHoursMinutes(-5,-30));
+		assertEquals("2019-01-02T03:04:05.006-05:30",format(dateTime));
+		assertEquals(dateTime,parseOffsetDateTime("2019-01-02T03:04:05.006-05:30"));
+	}
+	
+	@Test
+	public void parse_offset_date_time_without_milliseconds() {
+		assertEquals(OffsetDateTime.of(2019,1,2,3,4,5,0,UTC),parseOffsetDateTime("2019-01-02T03:04:05Z"));
+	}
+	
+	@Test
+	public void format_and_parse_instant() {
+		Instant instant = Instant.parse("2019-01-02T03:04:05.006Z");
+		assertEquals(instant,parseInstant(format(instant)));
+	}
+	
+	@Test
+	public void null_values_are_mapped_to_null() {
+		assertNull(format((Date)null));
+		assertNull(format((Instant)null));
+		assertNull(format((OffsetDateTime)null));
+		assertNull(parseDate(null));
+		assertNull(parseInstant(""));
+		assertNull(parseOffsetDateTime(null));
+	}
+	
+	@Test
+	public void format_dates_in_current_default_time_zone() {
+		TimeZone zone = TimeZone.getDefault();
+		try {
+			Date date = new Date(1556299925150L);
+			TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+			assertEquals("2019-04-26T17:32:05.150Z",format(date));
+			TimeZone.setDefault(TimeZone.getTimeZone("GMT+02:00"));
+			assertEquals("2019-04-26T19:32:05.150+02:00",format(date));
+		} finally {
+			TimeZone.setDefault(zone);
+		}
+	}
+	
+	@Test
+	public void delegate_offsets_beyond_18_hours_to_SimpleDateFormat() throws Exception {
+		SimpleDateFormat iso = new SimpleDateFormat(IsoDateAdapter.ISO_FORMAT);
+		assertEquals(iso.parse("2019-01-02T03:04:05.006+18:30"),parseDate("2019-01-02T03:04:05.006+18:30"));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void offset_date_time_with_offset_beyond_18_hours_raises_exception() {
+		parseOffsetDateTime("2019-01-02T03:04:05.006+18:30");
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void nonISO_string_raises_exception() {
+		parseDate("foo");
+	}
+	
+}
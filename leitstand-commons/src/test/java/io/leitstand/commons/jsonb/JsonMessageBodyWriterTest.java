@@ -0,0 +1,59 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.jsonb;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.json.Json.createObjectBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class JsonMessageBodyWriterTest {
+
+	static class EntityStream extends ByteArrayOutputStream {
+		
+		boolean closed;
+		boolean flushed;
+		
+		@Override
+		public void close() throws IOException {
+			closed = true;
+		}
+		
+		@Override
+		public void flush() {
+			flushed = true;
+		}
+		
+	}
+	
+	@Test
+	public void stream_JSON_object_without_closing_or_flushing_entity_stream() throws IOException {
+		EntityStream entity = new EntityStream();
+		
+		new JsonMessageBodyWriter().writeTo(createObjectBuilder()
+											.add("name", "Gr\u00fc\u00dfe")
+											.build(), 
+											null, 
+											null, 
+											null, 
+											null, 
+											null, 
+											entity);
+		
+		assertEquals("{\"name\":\"Gr\u00fc\u00dfe\"}",new String(entity.toByteArray(),UTF_8));
+		assertFalse(entity.closed);
+		assertFalse(entity.flushed);
+	}
+	
+	@Test
+	public void size_is_unknown() {
+		assertEquals(-1,new JsonMessageBodyWriter().getSize(null, null, null, null, null));
+	}
+	
+}
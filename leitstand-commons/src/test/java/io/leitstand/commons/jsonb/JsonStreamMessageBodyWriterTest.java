@@ -0,0 +1,82 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.jsonb;
+
+import static io.leitstand.commons.jsonb.JsonStreamMessageBodyWriter.APPLICATION_JSON_SEQ_TYPE;
+import static io.leitstand.commons.jsonb.JsonStreamMessageBodyWriter.APPLICATION_NDJSON_TYPE;
+import static io.leitstand.commons.messages.Message.Severity.INFO;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import io.leitstand.commons.jsonb.JsonMessageBodyWriterTest.EntityStream;
+import io.leitstand.commons.messages.Message;
+
+public class JsonStreamMessageBodyWriterTest {
+
+	private JsonStreamMessageBodyWriter writer = new JsonStreamMessageBodyWriter();
+	
+	@Test
+	public void write_streams_and_iterators_as_ndjson_or_json_seq() {
+		assertTrue(writer.isWriteable(Stream.class, null, null, APPLICATION_NDJSON_TYPE));
+		assertTrue(writer.isWriteable(Stream.class, null, null, APPLICATION_JSON_SEQ_TYPE));
+		assertTrue(writer.isWriteable(asList().iterator().getClass(), null, null, APPLICATION_NDJSON_TYPE));
+		assertFalse(writer.isWriteable(Stream.class, null, null, APPLICATION_JSON_TYPE));
+		assertFalse(writer.isWriteable(List.class, null, null, APPLICATION_NDJSON_TYPE));
+	}
+	
+	@Test
+	public void write_one_element_per_line_and_close_stream() throws IOException {
+		AtomicBoolean closed = new AtomicBoolean();
+		Stream<Message> messages = Stream.of(new Message(INFO, "TST0001I", "First"),
+											 new Message(INFO, "TST0002I", "Second"))
+										 .onClose(() -> closed.set(true));
+		EntityStream entity = new EntityStream();
+		
+		writer.writeTo(messages, Stream.class, null, null, APPLICATION_NDJSON_TYPE, null, entity);
+		
+		assertEquals("{\"message\":\"First\",\"reason\":\"TST0001I\",\"severity\":\"INFO\"}\n"+
+					 "{\"message\":\"Second\",\"reason\":\"TST0002I\",\"severity\":\"INFO\"}\n",
+					 new String(entity.toByteArray(),UTF_8));
+		assertTrue(closed.get());
+		assertFalse(entity.closed);
+	}
+	
+	@Test
+	public void prefix_elements_with_record_separator_for_json_seq() throws IOException {
+		EntityStream entity = new EntityStream();
+		
+		writer.writeTo(asList("a","b").iterator(), Stream.class, null, null, APPLICATION_JSON_SEQ_TYPE, null, entity);
+		
+		assertEquals("\u001e\"a\"\n\u001e\"b\"\n",new String(entity.toByteArray(),UTF_8));
+	}
+	
+	@Test
+	public void close_stream_when_serialization_fails() throws IOException {
+		AtomicBoolean closed = new AtomicBoolean();
+		Stream<String> failing = Stream.of("a").map(s -> { throw new IllegalStateException(); });
+		try {
+			writer.writeTo(failing.onClose(() -> closed.set(true)), Stream.class, null, null, APPLICATION_NDJSON_TYPE, null, new EntityStream());
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+		assertTrue(closed.get());
+	}
+	
+	@Test
+	public void size_is_unknown() {
+		assertEquals(-1,writer.getSize(null, null, null, null, null));
+	}
+	
+}
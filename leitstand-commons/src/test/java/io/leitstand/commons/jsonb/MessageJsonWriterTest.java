@@ -0,0 +1,72 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.jsonb;
+
+import static io.leitstand.commons.jsonb.MessageJsonWriter.writeMessage;
+import static io.leitstand.commons.jsonb.MessageJsonWriter.writeMessages;
+import static io.leitstand.commons.messages.Message.Severity.ERROR;
+import static io.leitstand.commons.messages.Message.Severity.WARNING;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import io.leitstand.commons.jsonb.JsonMessageBodyWriterTest.EntityStream;
+import io.leitstand.commons.messages.Message;
+import io.leitstand.commons.messages.Messages;
+
+public class MessageJsonWriterTest {
+
+	@Test
+	public void write_message_without_null_properties() throws IOException {
+		EntityStream entity = new EntityStream();
+		
+		writeMessage(entity, new Message(ERROR, null, "Test message"));
+		
+		assertEquals("{\"severity\":\"ERROR\",\"message\":\"Test message\"}",
+					 new String(entity.toByteArray(),UTF_8));
+		assertFalse(entity.closed);
+	}
+	
+	@Test
+	public void write_messages_as_array() throws IOException {
+		EntityStream entity = new EntityStream();
+		
+		writeMessages(entity, asList(new Message(ERROR, "TST0001E", "name", "First"),
+									 new Message(WARNING, "TST0002W", "Second")));
+		
+		assertEquals("[{\"severity\":\"ERROR\",\"reason\":\"TST0001E\",\"property\":\"name\",\"message\":\"First\"},"+
+					  "{\"severity\":\"WARNING\",\"reason\":\"TST0002W\",\"message\":\"Second\"}]",
+					 new String(entity.toByteArray(),UTF_8));
+		assertFalse(entity.closed);
+	}
+	
+	@Test
+	public void write_messages_container_without_property() throws IOException {
+		EntityStream entity = new EntityStream();
+		Messages messages = mock(Messages.class);
+		when(messages.iterator()).thenReturn(asList(new Message(ERROR, "TST0001E", "name", "First")).iterator());
+		
+		new MessagesMessageBodyWriter().writeTo(messages, null, null, null, null, null, entity);
+		
+		assertEquals("[{\"severity\":\"ERROR\",\"reason\":\"TST0001E\",\"message\":\"First\"}]",
+					 new String(entity.toByteArray(),UTF_8));
+		assertFalse(entity.closed);
+	}
+	
+	@Test
+	public void leave_message_subclasses_to_JSON_B() {
+		MessageMessageBodyWriter writer = new MessageMessageBodyWriter();
+		assertTrue(writer.isWriteable(Message.class, null, null, null));
+		assertFalse(writer.isWriteable(new Message(ERROR, "TST0001E", "Test"){}.getClass(), null, null, null));
+	}
+	
+}
@@ -3,12 +3,16 @@
  */
 package io.leitstand.commons.jsonb;
 
+import static io.leitstand.commons.json.SerializableJsonObject.fromString;
 import static io.leitstand.commons.json.SerializableJsonObject.serializable;
 import static io.leitstand.commons.json.SerializableJsonObject.unwrap;
+import static javax.json.Json.createObjectBuilder;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
 
+import javax.json.JsonMergePatch;
 import javax.json.JsonObject;
 
 import org.junit.Before;
@@ -43,4 +47,36 @@ public class SerializableJsonObjectTest {
 		assertSame(json, serializable(serializable(json)).unwrap());
 	}
 	
+	@Test
+	public void apply_JSON_patch() {
+		SerializableJsonObject source = serializable(createObjectBuilder()
+													 .add("name", "junit")
+													 .add("value", "old")
+													 .build());
+		JsonObject target = createObjectBuilder()
+							.add("name", "junit")
+							.add("value", "new")
+							.add("added", true)
+							.build();
+		
+		assertEquals(target,source.applyPatch(source.createPatch(target)));
+	}
+	
+	@Test
+	public void apply_JSON_merge_patch() {
+		SerializableJsonObject source = fromString("{\"name\":\"junit\",\"nested\":{\"a\":1,\"b\":2}}");
+		JsonObject target = createObjectBuilder()
+							.add("name", "junit")
+							.add("nested", createObjectBuilder().add("a", 1))
+							.build();
+		
+		JsonMergePatch patch = source.createMergePatch(target);
+		
+		assertEquals(createObjectBuilder()
+					 .add("nested", createObjectBuilder().addNull("b"))
+					 .build(),
+					 patch.toJsonValue());
+		assertEquals(target,source.applyMergePatch(patch));
+	}
+	
 }
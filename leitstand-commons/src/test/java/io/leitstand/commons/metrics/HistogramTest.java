@@ -0,0 +1,54 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.metrics;
+
+import static io.leitstand.commons.metrics.Histogram.bucket;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+	@Test
+	public void bucket_upper_bound_is_power_of_two() {
+		assertEquals(0,bucket(0));
+		assertEquals(0,bucket(1));
+		assertEquals(1,bucket(2));
+		assertEquals(2,bucket(3));
+		assertEquals(2,bucket(4));
+		assertEquals(10,bucket(1024));
+		assertEquals(11,bucket(1025));
+		assertEquals(Histogram.BUCKETS-1,bucket(Long.MAX_VALUE));
+	}
+	
+	@Test
+	public void empty_histogram_reports_zero() {
+		Histogram histogram = new Histogram();
+		assertEquals(0,histogram.getCount());
+		assertEquals(0,histogram.getMean(MICROSECONDS));
+		assertEquals(0,histogram.getPercentile(0.99, MICROSECONDS));
+	}
+	
+	@Test
+	public void record_durations() {
+		Histogram histogram = new Histogram();
+		histogram.record(1, MILLISECONDS);
+		histogram.record(3, MILLISECONDS);
+		assertEquals(2,histogram.getCount());
+		assertEquals(4,histogram.getSum(MILLISECONDS));
+		assertEquals(2,histogram.getMean(MILLISECONDS));
+		assertEquals(3000,histogram.getMax(MICROSECONDS));
+		assertEquals(1024,histogram.getPercentile(0.5, MICROSECONDS));
+		assertEquals(3000,histogram.getPercentile(1.0, MICROSECONDS));
+	}
+	
+	@Test
+	public void registry_returns_same_metric_for_same_name() {
+		assertEquals(Metrics.histogram("test.histogram"),Metrics.histogram("test.histogram"));
+		assertEquals(Metrics.counter("test.counter"),Metrics.counter("test.counter"));
+	}
+	
+}
@@ -0,0 +1,42 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.metrics;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import javax.json.JsonObject;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MetricsResourceTest {
+
+	@Before
+	public void resetMetrics() {
+		Metrics.reset();
+	}
+	
+	@Test
+	public void export_counters_and_histograms() {
+		Metrics.counter("repository.repeated").add(3);
+		Metrics.histogram("repository.query.Element.findByName").record(1, MILLISECONDS);
+		
+		JsonObject metrics = new MetricsResource().getMetrics();
+		
+		assertEquals(3,metrics.getJsonObject("counters").getJsonNumber("repository.repeated").longValue());
+		JsonObject histogram = metrics.getJsonObject("histograms").getJsonObject("repository.query.Element.findByName");
+		assertEquals(1,histogram.getInt("count"));
+		assertTrue(histogram.getInt("max_us") >= 1000);
+	}
+	
+	@Test
+	public void export_empty_snapshot() {
+		JsonObject metrics = new MetricsResource().getMetrics();
+		assertTrue(metrics.getJsonObject("counters").isEmpty());
+		assertTrue(metrics.getJsonObject("histograms").isEmpty());
+	}
+	
+}
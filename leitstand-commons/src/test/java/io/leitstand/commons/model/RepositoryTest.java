@@ -3,12 +3,23 @@
  */
 package io.leitstand.commons.model;
 
+import static io.leitstand.commons.metrics.Metrics.counter;
+import static io.leitstand.commons.model.Query.memoize;
+import static io.leitstand.commons.model.Query.named;
+import static io.leitstand.commons.model.Repository.ADVISORY_LOCK;
+import static io.leitstand.commons.model.Repository.QUERY_REPETITION_THRESHOLD;
+import static io.leitstand.commons.model.Repository.lockId;
+import static io.leitstand.commons.model.Repository.nameOf;
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -19,6 +30,7 @@ import javax.persistence.NoResultException;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -103,4 +115,131 @@ public class RepositoryTest {
 	}
 	
 	
+	@Test
+	public void memoized_query_is_executed_once() {
+		Query<Object> query = mock(Query.class);
+		Object entity = new Object();
+		when(query.execute(em)).thenReturn(entity);
+		
+		assertSame(entity,repository.execute(memoize(query,"test",1)));
+		assertSame(entity,repository.execute(memoize(query,"test",1)));
+		verify(query).execute(em);
+	}
+	
+	@Test
+	public void memoized_queries_with_different_identity_are_executed_separately() {
+		Query<Object> query = mock(Query.class);
+		when(query.execute(em)).thenReturn(new Object());
+		
+		repository.execute(memoize(query,"test",1));
+		repository.execute(memoize(query,"test",2));
+		verify(query,times(2)).execute(em);
+	}
+	
+	@Test
+	public void memoized_query_results_are_discarded_when_entity_is_added() {
+		Query<Object> query = mock(Query.class);
+		when(query.execute(em)).thenReturn(new Object());
+		
+		repository.execute(memoize(query,"test",1));
+		repository.add(new Object());
+		repository.execute(memoize(query,"test",1));
+		verify(query,times(2)).execute(em);
+	}
+	
+	@Test
+	public void memoized_query_results_are_discarded_when_update_is_executed() {
+		Query<Object> query = mock(Query.class);
+		when(query.execute(em)).thenReturn(new Object());
+		
+		repository.execute(memoize(query,"test",1));
+		repository.execute(mock(Update.class));
+		repository.execute(memoize(query,"test",1));
+		verify(query,times(2)).execute(em);
+	}
+	
+	@Test
+	public void memoized_query_name_is_first_identity_element() {
+		assertEquals("Element.findByName",nameOf(memoize(mock(Query.class),"Element.findByName","name")));
+	}
+	
+	@Test
+	public void named_query_name_is_specified_name() {
+		assertEquals("Element.findByName",nameOf(named("Element.findByName",em -> null)));
+	}
+	
+	@Test
+	public void named_update_name_is_specified_name() {
+		assertEquals("Element.removeByName",nameOf(Update.named("Element.removeByName",em -> 0)));
+	}
+	
+	@Test
+	public void unnamed_lambda_query_name_is_declaring_class_name() {
+		Query<Object> query = em -> null;
+		assertEquals(RepositoryTest.class.getName(),nameOf(query));
+	}
+	
+	@Test
+	public void report_repeated_query_execution() {
+		Query<Object> query = em -> null;
+		String name = "repository.query."+nameOf(query)+".repeated";
+		long repeated = counter(name).getCount();
+		for(int i=0; i <= QUERY_REPETITION_THRESHOLD; i++) {
+			repository.execute(query);
+		}
+		assertEquals(repeated+1,counter(name).getCount());
+		repository.execute(query);
+		assertEquals(repeated+1,counter(name).getCount());
+	}
+	
+	@Test
+	public void count_distinct_unnamed_queries_of_same_class_separately() {
+		Query<Object> first = em -> null;
+		Query<Object> second = em -> null;
+		assertEquals(nameOf(first),nameOf(second));
+		String name = "repository.query."+nameOf(first)+".repeated";
+		long repeated = counter(name).getCount();
+		for(int i=0; i < QUERY_REPETITION_THRESHOLD; i++) {
+			repository.execute(first);
+			repository.execute(second);
+		}
+		assertEquals(repeated,counter(name).getCount());
+		repository.execute(first);
+		assertEquals(repeated+1,counter(name).getCount());
+	}
+	
+	@Test
+	public void keyed_add_if_absent_obtains_advisory_lock_before_query() {
+		javax.persistence.Query lock = mock(javax.persistence.Query.class);
+		when(em.createNativeQuery(ADVISORY_LOCK)).thenReturn(lock);
+		Query query = mock(Query.class);
+		when(query.execute(em)).thenThrow(new NoResultException());
+
+		repository.addIfAbsent("key",query, () -> mock(AbstractEntity.class));
+		
+		InOrder order = inOrder(lock,query);
+		order.verify(lock).setParameter(1,lockId("key"));
+		order.verify(lock).getSingleResult();
+		order.verify(query).execute(em);
+		verify(em).persist(any());
+	}
+	
+	@Test
+	public void advisory_lock_id_depends_on_key_string_only() {
+		assertEquals(lockId("key"),lockId(new StringBuilder("key")));
+		assertTrue(lockId("key") != lockId("kez"));
+	}
+	
+	@Test
+	public void add_if_absent_runs_upsert_and_reads_entity() {
+		Query query = mock(Query.class);
+		Update upsert = mock(Update.class);
+		AbstractEntity entity = mock(AbstractEntity.class);
+		when(query.execute(em)).thenReturn(entity);
+		
+		assertSame(entity,repository.addIfAbsent(query,upsert));
+		verify(upsert).execute(em);
+		verify(em,never()).persist(entity);
+	}
+	
 }
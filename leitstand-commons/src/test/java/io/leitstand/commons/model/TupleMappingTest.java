@@ -0,0 +1,59 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.model;
+
+import static io.leitstand.commons.model.TupleMapping.constructor;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+
+import org.junit.Test;
+
+public class TupleMappingTest {
+
+	static class Info {
+		private String id;
+		private String name;
+		
+		private Info(String id, String name) {
+			this.id = id;
+			this.name = name;
+		}
+	}
+	
+	@Test
+	public void create_value_object_from_tuple() {
+		Tuple tuple = mock(Tuple.class);
+		when(tuple.toArray()).thenReturn(new Object[] {"id","name"});
+		
+		Info info = constructor(Info.class,String.class,String.class).map(tuple);
+		assertEquals("id",info.id);
+		assertEquals("name",info.name);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void reject_unknown_constructor() {
+		constructor(Info.class,String.class);
+	}
+	
+	@Test
+	public void repository_maps_all_tuples() {
+		Tuple tuple = mock(Tuple.class);
+		when(tuple.toArray()).thenReturn(new Object[] {"id","name"});
+		EntityManager em = mock(EntityManager.class);
+		Repository repository = new Repository(em);
+		
+		List<Info> infos = repository.executeMapTuple(m -> asList(tuple,tuple), 
+													  constructor(Info.class,String.class,String.class));
+		assertEquals(2,infos.size());
+		assertEquals("name",infos.get(1).name);
+	}
+	
+}
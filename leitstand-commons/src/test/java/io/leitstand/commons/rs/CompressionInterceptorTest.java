@@ -0,0 +1,365 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.rs;
+
+import static io.leitstand.commons.rs.CompressionInterceptor.selectEncoding;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_ENCODING;
+import static javax.ws.rs.core.HttpHeaders.CONTENT_LENGTH;
+import static javax.ws.rs.core.HttpHeaders.ETAG;
+import static javax.ws.rs.core.HttpHeaders.VARY;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
+import static javax.ws.rs.core.MediaType.APPLICATION_OCTET_STREAM_TYPE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompressionInterceptorTest {
+
+	private static final int THRESHOLD = 64;
+	
+	@Precompressed
+	private static void precompressed() {
+		// Provides the @Precompressed annotation
+	}
+	
+	private static Annotation[] precompressedAnnotations() throws Exception {
+		return CompressionInterceptorTest.class.getDeclaredMethod("precompressed").getAnnotations();
+	}
+	
+	private static byte[] entity(int size) {
+		StringBuilder json = new StringBuilder("[");
+		while(json.length() < size) {
+			json.append("{\"element_name\":\"leaf\"},");
+		}
+		json.setLength(size-1);
+		return json.append("]").toString().getBytes(UTF_8);
+	}
+	
+	private static byte[] read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		for(int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+			out.write(buffer,0,n);
+		}
+		return out.toByteArray();
+	}
+	
+	/**
+	 * Writes the entity in small chunks to the interceptor output stream.
+	 */
+	static class WriterContext implements WriterInterceptorContext {
+		
+		private final MultivaluedMap<String,Object> headers = new MultivaluedHashMap<>();
+		private final ByteArrayOutputStream entityStream = new ByteArrayOutputStream();
+		private final byte[] entity;
+		private OutputStream out = entityStream;
+		private MediaType mediaType = APPLICATION_JSON_TYPE;
+		private Annotation[] annotations = new Annotation[0];
+		private int proceeded;
+		
+		WriterContext(byte[] entity){
+			this.entity = entity;
+		}
+		
+		@Override
+		public void proceed() throws IOException {
+			proceeded++;
+			for(int i=0; i < entity.length; i+=10) {
+				out.write(entity,i,Math.min(10, entity.length-i));
+			}
+			out.flush();
+		}
+
+		@Override
+		public Object getEntity() {
+			return entity;
+		}
+
+		@Override
+		public void setEntity(Object entity) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public OutputStream getOutputStream() {
+			return out;
+		}
+
+		@Override
+		public void setOutputStream(OutputStream os) {
+			this.out = os;
+		}
+
+		@Override
+		public MultivaluedMap<String, Object> getHeaders() {
+			return headers;
+		}
+
+		@Override
+		public Object getProperty(String name) {
+			return null;
+		}
+
+		@Override
+		public Collection<String> getPropertyNames() {
+			return null;
+		}
+
+		@Override
+		public void setProperty(String name, Object object) {
+			// Properties not supported
+		}
+
+		@Override
+		public void removeProperty(String name) {
+			// Properties not supported
+		}
+
+		@Override
+		public Annotation[] getAnnotations() {
+			return annotations;
+		}
+
+		@Override
+		public void setAnnotations(Annotation[] annotations) {
+			this.annotations = annotations;
+		}
+
+		@Override
+		public Class<?> getType() {
+			return byte[].class;
+		}
+
+		@Override
+		public void setType(Class<?> type) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Type getGenericType() {
+			return byte[].class;
+		}
+
+		@Override
+		public void setGenericType(Type genericType) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public MediaType getMediaType() {
+			return mediaType;
+		}
+
+		@Override
+		public void setMediaType(MediaType mediaType) {
+			this.mediaType = mediaType;
+		}
+		
+		byte[] written() {
+			return entityStream.toByteArray();
+		}
+	}
+	
+	private HttpHeaders request;
+	private UriInfo uriInfo;
+	
+	@Before
+	public void initRequest() {
+		request = mock(HttpHeaders.class);
+		uriInfo = mock(UriInfo.class);
+		when(uriInfo.getRequestUri()).thenReturn(URI.create("http://localhost/api/v1/elements/leaf"));
+	}
+	
+	private CompressionInterceptor interceptor(String acceptEncoding, CompressedResponseCache cache) {
+		when(request.getHeaderString(ACCEPT_ENCODING)).thenReturn(acceptEncoding);
+		return new CompressionInterceptor(request, uriInfo, THRESHOLD, cache);
+	}
+	
+	@Test
+	public void select_content_coding_from_accept_encoding() {
+		assertEquals("gzip",selectEncoding("gzip, deflate, br"));
+		assertEquals("gzip",selectEncoding("deflate;q=0.5, x-gzip"));
+		assertEquals("deflate",selectEncoding("gzip;q=0.5, deflate"));
+		assertEquals("deflate",selectEncoding("gzip;q=0, *"));
+		assertEquals("gzip",selectEncoding("*"));
+		assertNull(selectEncoding("identity"));
+		assertNull(selectEncoding("*;q=0"));
+		assertNull(selectEncoding(null));
+	}
+	
+	@Test
+	public void gzip_entity_above_threshold() throws Exception {
+		byte[] entity = entity(4096);
+		WriterContext context = new WriterContext(entity);
+		context.getHeaders().putSingle(CONTENT_LENGTH, entity.length);
+		
+		interceptor("gzip, deflate", null).aroundWriteTo(context);
+		
+		assertEquals("gzip",context.getHeaders().getFirst(CONTENT_ENCODING));
+		assertEquals(ACCEPT_ENCODING,context.getHeaders().getFirst(VARY));
+		assertFalse(context.getHeaders().containsKey(CONTENT_LENGTH));
+		assertTrue(context.written().length < entity.length);
+		assertArrayEquals(entity,read(new GZIPInputStream(new ByteArrayInputStream(context.written()))));
+	}
+	
+	@Test
+	public void deflate_entity_above_threshold() throws Exception {
+		byte[] entity = entity(4096);
+		WriterContext context = new WriterContext(entity);
+		
+		interceptor("deflate", null).aroundWriteTo(context);
+		
+		assertEquals("deflate",context.getHeaders().getFirst(CONTENT_ENCODING));
+		assertArrayEquals(entity,read(new InflaterInputStream(new ByteArrayInputStream(context.written()))));
+	}
+	
+	@Test
+	public void do_not_compress_entity_below_threshold() throws Exception {
+		byte[] entity = entity(THRESHOLD);
+		WriterContext context = new WriterContext(entity);
+		
+		interceptor("gzip", null).aroundWriteTo(context);
+		
+		assertFalse(context.getHeaders().containsKey(CONTENT_ENCODING));
+		assertEquals(ACCEPT_ENCODING,context.getHeaders().getFirst(VARY));
+		assertArrayEquals(entity,context.written());
+	}
+	
+	@Test
+	public void do_not_compress_entity_if_no_coding_is_acceptable() throws Exception {
+		byte[] entity = entity(4096);
+		WriterContext context = new WriterContext(entity);
+		
+		interceptor("identity", null).aroundWriteTo(context);
+		
+		assertFalse(context.getHeaders().containsKey(CONTENT_ENCODING));
+		assertArrayEquals(entity,context.written());
+	}
+	
+	@Test
+	public void do_not_compress_binary_entity() throws Exception {
+		byte[] entity = entity(4096);
+		WriterContext context = new WriterContext(entity);
+		context.setMediaType(APPLICATION_OCTET_STREAM_TYPE);
+		
+		interceptor("gzip", null).aroundWriteTo(context);
+		
+		assertFalse(context.getHeaders().containsKey(CONTENT_ENCODING));
+		assertFalse(context.getHeaders().containsKey(VARY));
+		assertArrayEquals(entity,context.written());
+	}
+	
+	@Test
+	public void return_deflaters_to_pool() throws Exception {
+		CompressionInterceptor interceptor = interceptor("gzip", null);
+		for(int i=0; i < 3; i++) {
+			interceptor.aroundWriteTo(new WriterContext(entity(4096)));
+		}
+		assertEquals(1,CompressionInterceptor.GZIP_DEFLATERS.size());
+	}
+	
+	@Test
+	public void write_cached_entity_of_precompressed_resource() throws Exception {
+		CompressedResponseCache cache = new CompressedResponseCache(1 << 20);
+		CompressionInterceptor interceptor = interceptor("gzip", cache);
+		byte[] entity = entity(4096);
+
+		WriterContext first = new WriterContext(entity);
+		first.setAnnotations(precompressedAnnotations());
+		first.getHeaders().putSingle(ETAG, new EntityTag("v1"));
+		interceptor.aroundWriteTo(first);
+		
+		WriterContext second = new WriterContext(entity);
+		second.setAnnotations(precompressedAnnotations());
+		second.getHeaders().putSingle(ETAG, new EntityTag("v1"));
+		interceptor.aroundWriteTo(second);
+		
+		assertEquals(1,first.proceeded);
+		assertEquals(0,second.proceeded);
+		assertEquals("gzip",second.getHeaders().getFirst(CONTENT_ENCODING));
+		assertArrayEquals(first.written(),second.written());
+		assertArrayEquals(entity,read(new GZIPInputStream(new ByteArrayInputStream(second.written()))));
+	}
+	
+	@Test
+	public void do_not_share_cached_entities_of_different_resources_with_equal_etag() throws Exception {
+		CompressedResponseCache cache = new CompressedResponseCache(1 << 20);
+		CompressionInterceptor interceptor = interceptor("gzip", cache);
+
+		WriterContext first = new WriterContext(entity(4096));
+		first.setAnnotations(precompressedAnnotations());
+		first.getHeaders().putSingle(ETAG, new EntityTag("v1"));
+		interceptor.aroundWriteTo(first);
+		
+		when(uriInfo.getRequestUri()).thenReturn(URI.create("http://localhost/api/v1/elements/spine"));
+		byte[] entity = entity(2048);
+		WriterContext second = new WriterContext(entity);
+		second.setAnnotations(precompressedAnnotations());
+		second.getHeaders().putSingle(ETAG, new EntityTag("v1"));
+		interceptor.aroundWriteTo(second);
+		
+		assertEquals(1,second.proceeded);
+		assertArrayEquals(entity,read(new GZIPInputStream(new ByteArrayInputStream(second.written()))));
+	}
+	
+	@Test
+	public void do_not_cache_entity_with_weak_etag() throws Exception {
+		CompressedResponseCache cache = new CompressedResponseCache(1 << 20);
+		WriterContext context = new WriterContext(entity(4096));
+		context.setAnnotations(precompressedAnnotations());
+		context.getHeaders().putSingle(ETAG, new EntityTag("v1",true));
+		
+		interceptor("gzip", cache).aroundWriteTo(context);
+		
+		assertEquals(0,cache.size());
+	}
+	
+	@Test
+	public void evict_least_recently_used_entities() {
+		CompressedResponseCache cache = new CompressedResponseCache(10);
+		cache.put("a", new byte[4]);
+		cache.put("b", new byte[4]);
+		cache.get("a");
+		cache.put("c", new byte[4]);
+		cache.put("d", new byte[11]);
+		
+		assertEquals(8,cache.size());
+		assertNull(cache.get("b"));
+		assertNull(cache.get("d"));
+		assertEquals(4,cache.get("a").length);
+		assertEquals(4,cache.get("c").length);
+	}
+	
+}
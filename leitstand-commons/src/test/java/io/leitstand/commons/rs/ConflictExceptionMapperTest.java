@@ -8,13 +8,13 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
-import javax.json.JsonObject;
 import javax.ws.rs.core.Response;
 
 import org.junit.Test;
 
 import io.leitstand.commons.ConflictException;
 import io.leitstand.commons.Reason;
+import io.leitstand.commons.messages.Message;
 
 public class ConflictExceptionMapperTest {
 
@@ -32,9 +32,9 @@ public class ConflictExceptionMapperTest {
 		Response response = mapper.toResponse(conflict);
 		assertEquals(409, response.getStatus());
 		assertEquals("application/json",response.getMediaType().toString());
-		JsonObject entity = (JsonObject) response.getEntity();
-		assertEquals("ERROR",entity.getString("severity"));
-		assertEquals("Test message",entity.getString("message"));
+		Message entity = (Message) response.getEntity();
+		assertEquals("ERROR",entity.getSeverity().name());
+		assertEquals("Test message",entity.getMessage());
 		
 	}
 	
@@ -3,17 +3,40 @@
  */
 package io.leitstand.commons.tx;
 
+import static io.leitstand.commons.tx.RetryPolicy.newRetryPolicy;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static javax.transaction.Transactional.TxType.NOT_SUPPORTED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.inject.Provider;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceException;
+import javax.persistence.RollbackException;
+import javax.transaction.Transactional;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import io.leitstand.commons.model.Query;
 import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.model.Update;
 
 public class SubtransactionServiceTest {
 	
@@ -21,6 +44,7 @@ public class SubtransactionServiceTest {
 
 		private Provider<SubtransactionService> provider;
 		private Repository repository;
+		private ExecutorService executor;
 
 		public UnitTestSubtransactionService(Provider<SubtransactionService> provider, Repository repository) {
 			this.repository = repository;
@@ -37,6 +61,11 @@ public class SubtransactionServiceTest {
 			return provider;
 		}
 		
+		@Override
+		protected ExecutorService getExecutorService() {
+			return executor;
+		}
+		
 	}
 	
 	@Before
@@ -88,4 +117,201 @@ public class SubtransactionServiceTest {
 		verify(resume).resume(repository);
 	}
 	
+	@Test
+	public void raise_last_exception_instead_of_resume_when_all_attempts_failed() {
+		when(provider.get()).thenReturn(service);
+		Resume<?> resume = mock(Resume.class);
+		RetryPolicy policy = newRetryPolicy()
+							 .retryOn(OptimisticLockException.class)
+							 .withInitialBackoff(0, MILLISECONDS)
+							 .withMaxAttempts(2)
+							 .build();
+		try {
+			service.run(repository -> { throw new OptimisticLockException(); }, resume, policy);
+			fail("Exception expected");
+		} catch (OptimisticLockException e) {
+			verify(resume,never()).resume(repository);
+		}
+	}
+	
+	@Test
+	public void retry_suspends_transaction_of_caller() throws Exception {
+		Transactional tx = SubtransactionService.class.getMethod("run",Transaction.class,RetryPolicy.class)
+													  .getAnnotation(Transactional.class);
+		assertEquals(NOT_SUPPORTED,tx.value());
+	}
+	
+	@Test
+	public void resume_transaction_if_transaction_failed_with_non_retryable_exception() {
+		when(provider.get()).thenReturn(service);
+		Resume<?> resume = mock(Resume.class);
+		RetryPolicy policy = newRetryPolicy()
+							 .retryOn(OptimisticLockException.class)
+							 .withInitialBackoff(0, MILLISECONDS)
+							 .build();
+		
+		service.run(repository -> { throw new IllegalStateException(); }, resume, policy);
+		
+		verify(resume).resume(repository);
+	}
+	
+	@Test
+	public void process_items_in_chunks() {
+		when(provider.get()).thenReturn(service);
+		List<Integer> processed = new ArrayList<>();
+		Checkpoint checkpoint = Checkpoint.inMemory();
+		
+		ChunkStatistics stats = service.run(asList(1,2,3,4,5), 
+											(repository,item) -> processed.add(item), 
+											2, 
+											checkpoint);
+		
+		assertEquals(asList(1,2,3,4,5),processed);
+		assertEquals(5,stats.getItems());
+		assertEquals(3,stats.getChunks());
+		assertEquals(0,stats.getSkippedItems());
+		assertEquals(5,checkpoint.getCommittedItems(repository));
+	}
+	
+	@Test
+	public void resume_chunk_processing_after_last_committed_chunk() {
+		when(provider.get()).thenReturn(service);
+		List<Integer> processed = new ArrayList<>();
+		Checkpoint checkpoint = Checkpoint.inMemory();
+		
+		try {
+			service.run(asList(1,2,3,4,5), 
+						(repository,item) -> {
+							if(item == 4) {
+								throw new IllegalStateException();
+							}
+							processed.add(item);
+						}, 
+						2, 
+						checkpoint);
+			fail("Exception expected");
+		} catch (IllegalStateException e) {
+			assertEquals(2,checkpoint.getCommittedItems(repository));
+		}
+		processed.clear();
+		
+		ChunkStatistics stats = service.run(asList(1,2,3,4,5), 
+											(repository,item) -> processed.add(item), 
+											2, 
+											checkpoint);
+		assertEquals(asList(3,4,5),processed);
+		assertEquals(2,stats.getSkippedItems());
+		assertEquals(5,checkpoint.getCommittedItems(repository));
+	}
+	
+	@Test
+	public void record_persistent_checkpoint_in_chunk_transaction() {
+		when(provider.get()).thenReturn(service);
+		Query<Long> committedItems = mock(Query.class);
+		when(repository.execute(committedItems)).thenReturn(2L);
+		List<Long> recorded = new ArrayList<>();
+		Checkpoint checkpoint = Checkpoint.persistent(committedItems, 
+													  items -> {
+														  recorded.add(items);
+														  return mock(Update.class);
+													  });
+		List<Integer> processed = new ArrayList<>();
+		
+		ChunkStatistics stats = service.run(asList(1,2,3,4,5), 
+											(repository,item) -> processed.add(item), 
+											2, 
+											checkpoint);
+		
+		assertEquals(asList(3,4,5),processed);
+		assertEquals(2,stats.getSkippedItems());
+		assertEquals(asList(4L,5L),recorded);
+	}
+	
+	@Test
+	public void run_transactions_in_parallel_and_report_outcome() {
+		when(provider.get()).thenReturn(service);
+		IllegalStateException failure = new IllegalStateException();
+		Transaction committed = repository -> {};
+		Transaction failed = repository -> { throw failure; };
+		service.executor = Executors.newFixedThreadPool(2);
+		
+		List<TransactionOutcome> outcomes;
+		try {
+			outcomes = service.run(asList(committed,failed,committed),2);
+		} finally {
+			service.executor.shutdown();
+		}
+		
+		assertEquals(3,outcomes.size());
+		assertTrue(outcomes.get(0).isSucceeded());
+		assertFalse(outcomes.get(1).isSucceeded());
+		assertSame(failed,outcomes.get(1).getTransaction());
+		assertSame(failure,outcomes.get(1).getFailure());
+		assertTrue(outcomes.get(2).isSucceeded());
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void parallel_transactions_require_managed_executor_service() {
+		when(provider.get()).thenReturn(service);
+		service.run(asList(repository -> {}),2);
+	}
+	
+	@Test
+	public void retry_transaction_that_failed_with_retryable_exception() {
+		when(provider.get()).thenReturn(service);
+		RetryPolicy policy = newRetryPolicy()
+							 .retryOn(OptimisticLockException.class)
+							 .withInitialBackoff(0, MILLISECONDS)
+							 .withMaxAttempts(3)
+							 .build();
+		AtomicInteger attempts = new AtomicInteger();
+		service.run(repository -> {
+			if(attempts.incrementAndGet() < 3) {
+				throw new RollbackException(new OptimisticLockException());
+			}
+		}, policy);
+		assertEquals(3,attempts.get());
+	}
+	
+	@Test
+	public void do_not_retry_transaction_that_failed_with_non_retryable_exception() {
+		when(provider.get()).thenReturn(service);
+		RetryPolicy policy = newRetryPolicy()
+							 .retryOn(OptimisticLockException.class)
+							 .withInitialBackoff(0, MILLISECONDS)
+							 .build();
+		AtomicInteger attempts = new AtomicInteger();
+		IllegalStateException failure = new IllegalStateException();
+		try {
+			service.run(repository -> {
+				attempts.incrementAndGet();
+				throw failure;
+			}, policy);
+			fail("Exception expected");
+		} catch (IllegalStateException e) {
+			assertSame(failure,e);
+			assertEquals(1,attempts.get());
+		}
+	}
+	
+	@Test
+	public void raise_last_exception_when_all_attempts_failed() {
+		when(provider.get()).thenReturn(service);
+		RetryPolicy policy = newRetryPolicy()
+							 .retryOnUniqueKeyViolation()
+							 .withInitialBackoff(0, MILLISECONDS)
+							 .withMaxAttempts(2)
+							 .build();
+		AtomicInteger attempts = new AtomicInteger();
+		try {
+			service.run(repository -> {
+				attempts.incrementAndGet();
+				throw new PersistenceException(new SQLException("duplicate key","23505"));
+			}, policy);
+			fail("Exception expected");
+		} catch (PersistenceException e) {
+			assertEquals(2,attempts.get());
+		}
+	}
+	
 }
@@ -0,0 +1,135 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.tx;
+
+import static io.leitstand.commons.metrics.Metrics.counter;
+import static io.leitstand.commons.metrics.Metrics.histogram;
+import static javax.transaction.Status.STATUS_COMMITTED;
+import static javax.transaction.Status.STATUS_ROLLEDBACK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Method;
+
+import javax.interceptor.InvocationContext;
+import javax.persistence.OptimisticLockException;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import io.leitstand.commons.metrics.Metrics;
+import io.leitstand.commons.metrics.TransactionProbe;
+
+public class TransactionTelemetryInterceptorTest {
+
+	private TransactionSynchronizationRegistry registry;
+	private InvocationContext context;
+	private TransactionTelemetryInterceptor interceptor;
+	
+	@Before
+	public void init() throws Exception {
+		Metrics.reset();
+		registry = mock(TransactionSynchronizationRegistry.class);
+		context = mock(InvocationContext.class);
+		Method method = Object.class.getMethod("toString");
+		when(context.getMethod()).thenReturn(method);
+		interceptor = new TransactionTelemetryInterceptor(registry);
+	}
+	
+	@Test
+	public void do_not_record_telemetry_without_transaction() throws Exception {
+		interceptor.record(context);
+		verify(context).proceed();
+		verify(registry,never()).registerInterposedSynchronization(any(Synchronization.class));
+	}
+	
+	@Test
+	public void do_not_record_telemetry_for_joined_transaction() throws Exception {
+		when(registry.getTransactionKey()).thenReturn("tx");
+		when(registry.getResource(any())).thenReturn(new Object());
+		interceptor.record(context);
+		verify(context).proceed();
+		verify(registry,never()).registerInterposedSynchronization(any(Synchronization.class));
+	}
+	
+	@Test
+	public void record_telemetry_of_committed_transaction() throws Exception {
+		when(registry.getTransactionKey()).thenReturn("tx");
+		when(context.proceed()).thenAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) {
+				TransactionProbe.statement();
+				return null;
+			}
+		});
+		interceptor.record(context);
+		
+		ArgumentCaptor<Synchronization> sync = ArgumentCaptor.forClass(Synchronization.class);
+		verify(registry).registerInterposedSynchronization(sync.capture());
+		sync.getValue().afterCompletion(STATUS_COMMITTED);
+		
+		assertEquals(1,counter("transaction.commit").getCount());
+		assertEquals(1,counter("transaction.Object.toString.commit").getCount());
+		assertEquals(1,histogram("transaction.Object.toString").getCount());
+		assertEquals(1,histogram("transaction.Object.toString.first_statement").getCount());
+	}
+	
+	@Test
+	public void record_lock_failure_of_rolled_back_transaction() throws Exception {
+		when(registry.getTransactionKey()).thenReturn("tx");
+		when(context.proceed()).thenThrow(new OptimisticLockException());
+		try {
+			interceptor.record(context);
+			fail("Exception expected");
+		} catch (OptimisticLockException e) {
+			ArgumentCaptor<Synchronization> sync = ArgumentCaptor.forClass(Synchronization.class);
+			verify(registry).registerInterposedSynchronization(sync.capture());
+			sync.getValue().afterCompletion(STATUS_ROLLEDBACK);
+			
+			assertEquals(1,counter("transaction.lock_failure").getCount());
+			assertEquals(1,counter("transaction.rollback").getCount());
+			assertEquals(0,histogram("transaction.Object.toString.first_statement").getCount());
+		}
+	}
+	
+	@Test
+	public void record_commit_failure_of_transaction_rolled_back_at_commit() throws Exception {
+		when(registry.getTransactionKey()).thenReturn("tx");
+		interceptor.record(context);
+		
+		ArgumentCaptor<Synchronization> sync = ArgumentCaptor.forClass(Synchronization.class);
+		verify(registry).registerInterposedSynchronization(sync.capture());
+		sync.getValue().afterCompletion(STATUS_ROLLEDBACK);
+		
+		assertEquals(1,counter("transaction.commit_failure").getCount());
+		assertEquals(1,counter("transaction.Object.toString.commit_failure").getCount());
+		assertEquals(1,counter("transaction.lock_failure").getCount());
+	}
+	
+	@Test
+	public void do_not_record_commit_failure_of_transaction_marked_for_rollback() throws Exception {
+		when(registry.getTransactionKey()).thenReturn("tx");
+		when(registry.getRollbackOnly()).thenReturn(true);
+		interceptor.record(context);
+		
+		ArgumentCaptor<Synchronization> sync = ArgumentCaptor.forClass(Synchronization.class);
+		verify(registry).registerInterposedSynchronization(sync.capture());
+		sync.getValue().afterCompletion(STATUS_ROLLEDBACK);
+		
+		assertEquals(0,counter("transaction.commit_failure").getCount());
+		assertEquals(0,counter("transaction.lock_failure").getCount());
+		assertEquals(1,counter("transaction.rollback").getCount());
+	}
+	
+}
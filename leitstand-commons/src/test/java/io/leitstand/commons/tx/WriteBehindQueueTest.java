@@ -0,0 +1,173 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.tx;
+
+import static java.lang.Thread.State.TIMED_WAITING;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+
+import javax.inject.Provider;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.leitstand.commons.model.Repository;
+import io.leitstand.commons.tx.SubtransactionServiceTest.UnitTestSubtransactionService;
+
+public class WriteBehindQueueTest {
+
+	private SubtransactionService service;
+	private List<String> committed;
+	private CountDownLatch started;
+	private CountDownLatch proceed;
+	private List<Thread> workers;
+	private ThreadFactory threads;
+	
+	@Before
+	public void init() {
+		Provider<SubtransactionService> provider = mock(Provider.class);
+		service = new UnitTestSubtransactionService(provider, mock(Repository.class));
+		when(provider.get()).thenReturn(service);
+		committed = new CopyOnWriteArrayList<>();
+		started = new CountDownLatch(1);
+		proceed = new CountDownLatch(1);
+		workers = new CopyOnWriteArrayList<>();
+		threads = task -> {
+			Thread worker = new Thread(task);
+			workers.add(worker);
+			return worker;
+		};
+	}
+	
+	private Transaction blocking() {
+		return repository -> {
+			started.countDown();
+			try {
+				proceed.await(5,SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+	}
+	
+	private Transaction write(String value) {
+		return repository -> committed.add(value);
+	}
+	
+	@Test
+	public void coalesce_pending_transactions_of_same_key() throws Exception {
+		WriteBehindQueue queue = new WriteBehindQueue(service, 10, 10, 0, threads);
+		queue.submit(blocking());
+		started.await(5,SECONDS);
+		
+		assertTrue(queue.submit("a", write("a1")));
+		assertTrue(queue.submit("b", write("b1")));
+		assertTrue(queue.submit("a", write("a2")));
+		assertEquals(2,queue.getPendingTransactions());
+		
+		proceed.countDown();
+		queue.onShutdown();
+		assertEquals(asList("a2","b1"),committed);
+	}
+	
+	@Test
+	public void shed_transaction_when_queue_is_full() throws Exception {
+		WriteBehindQueue queue = new WriteBehindQueue(service, 1, 10, 0, threads);
+		queue.submit(blocking());
+		started.await(5,SECONDS);
+		
+		assertTrue(queue.submit("a", write("a")));
+		assertFalse(queue.submit("b", write("b")));
+
+		proceed.countDown();
+		queue.onShutdown();
+		assertEquals(asList("a"),committed);
+	}
+	
+	@Test
+	public void execute_transactions_one_by_one_when_batch_failed() throws Exception {
+		WriteBehindQueue queue = new WriteBehindQueue(service, 10, 10, 0, threads);
+		queue.submit(blocking());
+		started.await(5,SECONDS);
+		
+		queue.submit(write("a"));
+		queue.submit(repository -> { throw new IllegalStateException(); });
+		queue.submit(write("b"));
+		
+		proceed.countDown();
+		queue.onShutdown();
+		assertTrue(committed.containsAll(asList("a","b")));
+	}
+	
+	@Test
+	public void reject_transactions_after_shutdown() {
+		WriteBehindQueue queue = new WriteBehindQueue(service, 10, 10, 0, threads);
+		queue.onShutdown();
+		assertFalse(queue.submit(write("a")));
+	}
+	
+	@Test
+	public void start_new_worker_when_worker_failed() throws Exception {
+		WriteBehindQueue queue = new WriteBehindQueue(service, 10, 10, 0, threads);
+		queue.submit(repository -> { throw new Error("Worker failure"); });
+		workers.get(0).join(5000);
+		
+		assertTrue(queue.submit("a", write("a")));
+		queue.onShutdown();
+		
+		assertEquals(2,workers.size());
+		assertEquals(asList("a"),committed);
+	}
+	
+	@Test
+	public void do_not_start_new_worker_after_shutdown() throws Exception {
+		WriteBehindQueue queue = new WriteBehindQueue(service, 10, 1, 0, threads);
+		queue.submit(blocking());
+		started.await(5,SECONDS);
+		queue.submit(repository -> { throw new Error("Worker failure"); });
+		queue.submit(write("a"));
+		
+		Thread shutdown = new Thread(queue::onShutdown);
+		shutdown.start();
+		while(shutdown.getState() != TIMED_WAITING) {
+			Thread.yield();
+		}
+		proceed.countDown();
+		shutdown.join(5000);
+		
+		assertEquals(1,workers.size());
+		assertEquals(0,queue.getPendingTransactions());
+		assertTrue(committed.isEmpty());
+	}
+	
+	@Test
+	public void run_batch_in_new_transaction_without_retry_policy() {
+		SubtransactionService service = mock(SubtransactionService.class);
+		WriteBehindQueue queue = new WriteBehindQueue(service, 10, 10, 0, threads);
+		queue.submit(write("a"));
+		queue.onShutdown();
+		
+		verify(service).run(any(Transaction.class));
+		verify(service,never()).run(any(Transaction.class),any(RetryPolicy.class));
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void write_behind_queue_requires_managed_thread_factory() {
+		new WriteBehindQueue(service, 10, 10, 0, null);
+	}
+	
+}
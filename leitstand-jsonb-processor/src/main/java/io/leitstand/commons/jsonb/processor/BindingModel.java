@@ -0,0 +1,499 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.jsonb.processor;
+
+import static io.leitstand.commons.jsonb.processor.BindingProperty.Kind.ADAPTED;
+import static io.leitstand.commons.jsonb.processor.BindingProperty.Kind.BIG_DECIMAL;
+import static io.leitstand.commons.jsonb.processor.BindingProperty.Kind.BIG_INTEGER;
+import static io.leitstand.commons.jsonb.processor.BindingProperty.Kind.BOOLEAN;
+import static io.leitstand.commons.jsonb.processor.BindingProperty.Kind.DELEGATED;
+import static io.leitstand.commons.jsonb.processor.BindingProperty.Kind.DOUBLE;
+import static io.leitstand.commons.jsonb.processor.BindingProperty.Kind.INT;
+import static io.leitstand.commons.jsonb.processor.BindingProperty.Kind.LONG;
+import static io.leitstand.commons.jsonb.processor.BindingProperty.Kind.STRING;
+import static java.lang.String.format;
+import static java.util.Comparator.comparing;
+import static javax.lang.model.element.ElementKind.CLASS;
+import static javax.lang.model.element.ElementKind.CONSTRUCTOR;
+import static javax.lang.model.element.ElementKind.FIELD;
+import static javax.lang.model.element.ElementKind.METHOD;
+import static javax.lang.model.element.Modifier.ABSTRACT;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.PUBLIC;
+import static javax.lang.model.element.Modifier.STATIC;
+import static javax.lang.model.element.Modifier.TRANSIENT;
+import static javax.lang.model.element.NestingKind.MEMBER;
+import static javax.lang.model.element.NestingKind.TOP_LEVEL;
+import static javax.lang.model.type.TypeKind.DECLARED;
+import static javax.lang.model.type.TypeKind.VOID;
+import static javax.tools.Diagnostic.Kind.ERROR;
+import static javax.tools.Diagnostic.Kind.WARNING;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * The model of a generated JSON-B binding.
+ * <p>
+ * The model mirrors the property discovery of the JSON-B runtime as configured by <code>JsonbDefaults</code>:
+ * All non-static and non-transient fields of the value object and its superclasses are properties.
+ * Public getters without parameters are properties too and are used to read the property value.
+ * Property names are translated to snake case unless a <code>JsonbProperty</code> annotation specifies the name.
+ * All properties are ordered lexicographically.
+ * </p>
+ * <p>
+ * JSON-B customizations that cannot be honored by a generated binding are reported as compilation errors.
+ * </p>
+ */
+final class BindingModel {
+
+	static final String VALUE_OBJECT = "io.leitstand.commons.model.ValueObject";
+	static final String JSONB_ADAPTER = "javax.json.bind.adapter.JsonbAdapter";
+	static final String JSONB_TYPE_ADAPTER = "javax.json.bind.annotation.JsonbTypeAdapter";
+	static final String JSONB_PROPERTY = "javax.json.bind.annotation.JsonbProperty";
+	static final String JSONB_TRANSIENT = "javax.json.bind.annotation.JsonbTransient";
+	static final String JSONB_CREATOR = "javax.json.bind.annotation.JsonbCreator";
+
+	private static final List<String> UNSUPPORTED_PROPERTY_ANNOTATIONS = Arrays.asList("javax.json.bind.annotation.JsonbDateFormat",
+																					  "javax.json.bind.annotation.JsonbNumberFormat",
+																					  "javax.json.bind.annotation.JsonbNillable",
+																					  "javax.json.bind.annotation.JsonbTypeSerializer",
+																					  "javax.json.bind.annotation.JsonbTypeDeserializer");
+
+	private static final List<String> UNSUPPORTED_TYPE_ANNOTATIONS = Arrays.asList("javax.json.bind.annotation.JsonbPropertyOrder",
+																				  "javax.json.bind.annotation.JsonbNillable",
+																				  "javax.json.bind.annotation.JsonbVisibility",
+																				  "javax.json.bind.annotation.JsonbTypeAdapter",
+																				  "javax.json.bind.annotation.JsonbTypeSerializer",
+																				  "javax.json.bind.annotation.JsonbTypeDeserializer");
+
+	/**
+	 * Translates a property name to snake case, as <code>PropertyNamingStrategy.LOWER_CASE_WITH_UNDERSCORES</code> does.
+	 * @param name the property name
+	 * @return the translated property name
+	 */
+	static String snakeCase(String name) {
+		StringBuilder translated = new StringBuilder(name.length()+4);
+		for(int i=0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if(Character.isUpperCase(c)) {
+				if(translated.length() > 0) {
+					translated.append('_');
+				}
+				translated.append(Character.toLowerCase(c));
+			} else {
+				translated.append(c);
+			}
+		}
+		return translated.toString();
+	}
+
+	static String propertyName(ExecutableElement getter) {
+		String name = getter.getSimpleName().toString();
+		String property = name.startsWith("is") ? name.substring(2) : name.substring(3);
+		return Character.toLowerCase(property.charAt(0)) + property.substring(1);
+	}
+
+	private final ProcessingEnvironment env;
+	private final Types types;
+	private final Elements elements;
+	private final Messager messager;
+	private final TypeElement type;
+	private final List<BindingProperty> properties = new ArrayList<>();
+	private ExecutableElement constructor;
+	private boolean valid = true;
+
+	BindingModel(ProcessingEnvironment env, TypeElement type){
+		this.env = env;
+		this.types = env.getTypeUtils();
+		this.elements = env.getElementUtils();
+		this.messager = env.getMessager();
+		this.type = type;
+	}
+
+	TypeElement getType() {
+		return type;
+	}
+
+	List<BindingProperty> getProperties() {
+		return properties;
+	}
+
+	/**
+	 * Returns the default constructor or <code>null</code> if the implicit default constructor is used.
+	 * @return the default constructor
+	 */
+	ExecutableElement getConstructor() {
+		return constructor;
+	}
+
+	Types getTypes() {
+		return types;
+	}
+
+	ProcessingEnvironment getEnvironment() {
+		return env;
+	}
+
+	/**
+	 * Discovers all properties of the bound type.
+	 * @return <code>true</code> if a binding can be generated, <code>false</code> if errors were reported.
+	 */
+	boolean discover() {
+		if(!validateType()) {
+			return false;
+		}
+		Map<String,BindingProperty> discovered = new LinkedHashMap<>();
+		List<String> excluded = new ArrayList<>();
+		DeclaredType bound = (DeclaredType) type.asType();
+		for(TypeElement declaring = type; declaring != null; declaring = superclass(declaring)) {
+			for(Element member : declaring.getEnclosedElements()) {
+				if(member.getKind() == FIELD) {
+					discoverField(bound, declaring, (VariableElement) member, discovered, excluded);
+				} else if(member.getKind() == METHOD) {
+					discoverGetter(bound, (ExecutableElement) member, discovered, excluded);
+				} else if(member.getKind() == CONSTRUCTOR && hasAnnotation(member, JSONB_CREATOR)) {
+					error(member, "@JsonbCreator is not supported by @PrecompiledJsonb bindings.");
+				}
+			}
+		}
+		for(String name : excluded) {
+			discovered.remove(name);
+		}
+		for(BindingProperty property : discovered.values()) {
+			classify(property);
+		}
+		properties.addAll(discovered.values());
+		properties.sort(comparing(BindingProperty::getJsonName));
+		for(int i=1; i < properties.size(); i++) {
+			if(properties.get(i).getJsonName().equals(properties.get(i-1).getJsonName())) {
+				error(type, format("Duplicate JSON property name %s.", properties.get(i).getJsonName()));
+			}
+		}
+		return valid;
+	}
+
+	private boolean validateType() {
+		if(type.getKind() != CLASS || type.getModifiers().contains(ABSTRACT)) {
+			error(type, "@PrecompiledJsonb can only be applied to concrete classes.");
+			return false;
+		}
+		if(!type.getTypeParameters().isEmpty()) {
+			error(type, "@PrecompiledJsonb cannot be applied to generic classes.");
+			return false;
+		}
+		for(Element e = type; e.getKind() == CLASS; e = e.getEnclosingElement()) {
+			TypeElement t = (TypeElement) e;
+			if(t.getModifiers().contains(PRIVATE) ||
+			   (t.getNestingKind() != TOP_LEVEL && (t.getNestingKind() != MEMBER || !t.getModifiers().contains(STATIC)))) {
+				error(type, "@PrecompiledJsonb cannot be applied to private or inner classes.");
+				return false;
+			}
+		}
+		if(type.getSuperclass().getKind() == TypeKind.ERROR) {
+			// Unresolved superclass, reported by the compiler.
+			return false;
+		}
+		TypeElement valueObject = elements.getTypeElement(VALUE_OBJECT);
+		if(valueObject == null || !types.isSubtype(types.erasure(type.asType()), types.erasure(valueObject.asType()))) {
+			error(type, "@PrecompiledJsonb can only be applied to ValueObject and CompositeValue classes.");
+			return false;
+		}
+		for(String annotation : UNSUPPORTED_TYPE_ANNOTATIONS) {
+			if(hasAnnotation(type, annotation)) {
+				error(type, format("@%s is not supported by @PrecompiledJsonb bindings.",simpleName(annotation)));
+			}
+		}
+		if(!type.getModifiers().contains(Modifier.FINAL)) {
+			messager.printMessage(WARNING,
+								  format("%s is not final. Subclasses are serialized by the generated binding of %s unless they are annotated with @PrecompiledJsonb themselves.",
+										 type.getSimpleName(),
+										 type.getSimpleName()),
+								  type);
+		}
+		boolean hasConstructor = false;
+		for(Element member : type.getEnclosedElements()) {
+			if(member.getKind() == CONSTRUCTOR) {
+				hasConstructor = true;
+				ExecutableElement c = (ExecutableElement) member;
+				if(c.getParameters().isEmpty()) {
+					constructor = c;
+				}
+			}
+		}
+		if(hasConstructor && constructor == null) {
+			error(type, "@PrecompiledJsonb requires a default constructor.");
+		}
+		return valid;
+	}
+
+	private void discoverField(DeclaredType bound,
+							   TypeElement declaring,
+							   VariableElement field,
+							   Map<String,BindingProperty> discovered,
+							   List<String> excluded) {
+		if(field.getModifiers().contains(STATIC) || field.getModifiers().contains(TRANSIENT)) {
+			return;
+		}
+		String name = field.getSimpleName().toString();
+		if(hasAnnotation(field, JSONB_TRANSIENT)) {
+			excluded.add(name);
+			return;
+		}
+		checkUnsupportedAnnotations(field);
+		BindingProperty property = discovered.get(name);
+		if(property == null) {
+			property = new BindingProperty(name);
+			discovered.put(name, property);
+		} else if(property.getField() != null) {
+			// Field is hidden by a subclass field of the same name
+			return;
+		}
+		boolean accessible = declaring.equals(type) && !field.getModifiers().contains(PRIVATE);
+		property.setField(field, types.asMemberOf(bound, field), accessible);
+		String jsonName = annotationValue(field, JSONB_PROPERTY);
+		if(jsonName != null && !jsonName.isEmpty()) {
+			property.setJsonName(jsonName);
+		} else if(property.getJsonName() == null) {
+			property.setJsonName(snakeCase(name));
+		}
+	}
+
+	private void discoverGetter(DeclaredType bound,
+								ExecutableElement method,
+								Map<String,BindingProperty> discovered,
+								List<String> excluded) {
+		if(!isGetter(method)) {
+			return;
+		}
+		String name = propertyName(method);
+		if(hasAnnotation(method, JSONB_TRANSIENT)) {
+			excluded.add(name);
+			return;
+		}
+		checkUnsupportedAnnotations(method);
+		BindingProperty property = discovered.get(name);
+		if(property == null) {
+			property = new BindingProperty(name);
+			discovered.put(name, property);
+		} else if(property.getGetter() != null) {
+			// Getter is overridden by a subclass
+			return;
+		}
+		property.setGetter(method, ((ExecutableType) types.asMemberOf(bound, method)).getReturnType());
+		String jsonName = annotationValue(method, JSONB_PROPERTY);
+		if(jsonName != null && !jsonName.isEmpty()) {
+			property.setJsonName(jsonName);
+		} else if(property.getJsonName() == null) {
+			property.setJsonName(snakeCase(name));
+		}
+	}
+
+	private boolean isGetter(ExecutableElement method) {
+		if(!method.getModifiers().contains(PUBLIC) ||
+		   method.getModifiers().contains(STATIC) ||
+		   !method.getParameters().isEmpty() ||
+		   method.getReturnType().getKind() == VOID ||
+		   !method.getTypeParameters().isEmpty()) {
+			return false;
+		}
+		String name = method.getSimpleName().toString();
+		if(name.startsWith("get") && name.length() > 3) {
+			return true;
+		}
+		if(name.startsWith("is") && name.length() > 2) {
+			TypeMirror returnType = method.getReturnType();
+			return returnType.getKind() == TypeKind.BOOLEAN ||
+				   (returnType.getKind() == DECLARED && qualifiedName(returnType).equals("java.lang.Boolean"));
+		}
+		return false;
+	}
+
+	private void classify(BindingProperty property) {
+		TypeMirror adapter = adapter(property);
+		if(adapter != null) {
+			List<? extends TypeMirror> args = adapterTypeArguments(adapter);
+			if(args == null || args.size() != 2 || args.get(0).getKind() != DECLARED || args.get(1).getKind() != DECLARED) {
+				error(element(property), format("Cannot resolve the adapted types of %s.", adapter));
+				return;
+			}
+			property.setAdapter(adapter, args.get(0), args.get(1));
+			property.setKind(ADAPTED, false);
+			return;
+		}
+		TypeMirror propertyType = property.getType();
+		switch(propertyType.getKind()) {
+			case INT:
+			case SHORT:
+			case BYTE:		property.setKind(INT, true); return;
+			case LONG:		property.setKind(LONG, true); return;
+			case DOUBLE:	property.setKind(DOUBLE, true); return;
+			case BOOLEAN:	property.setKind(BOOLEAN, true); return;
+			case DECLARED:	break;
+			default:		property.setKind(DELEGATED, propertyType.getKind().isPrimitive()); return;
+		}
+		switch(qualifiedName(propertyType)) {
+			case "java.lang.String":		property.setKind(STRING, false); return;
+			case "java.lang.Integer":
+			case "java.lang.Short":
+			case "java.lang.Byte":			property.setKind(INT, false); return;
+			case "java.lang.Long":			property.setKind(LONG, false); return;
+			case "java.lang.Double":		property.setKind(DOUBLE, false); return;
+			case "java.lang.Boolean":		property.setKind(BOOLEAN, false); return;
+			case "java.math.BigDecimal":	property.setKind(BIG_DECIMAL, false); return;
+			case "java.math.BigInteger":	property.setKind(BIG_INTEGER, false); return;
+			default:						property.setKind(DELEGATED, false);
+		}
+	}
+
+	private TypeMirror adapter(BindingProperty property) {
+		TypeMirror adapter = null;
+		if(property.getField() != null) {
+			adapter = annotationType(property.getField(), JSONB_TYPE_ADAPTER);
+		}
+		if(adapter == null && property.getGetter() != null) {
+			adapter = annotationType(property.getGetter(), JSONB_TYPE_ADAPTER);
+		}
+		if(adapter == null && property.getType().getKind() == DECLARED) {
+			adapter = annotationType(types.asElement(property.getType()), JSONB_TYPE_ADAPTER);
+		}
+		if(adapter != null) {
+			TypeElement adapterType = (TypeElement) types.asElement(adapter);
+			boolean instantiable = false;
+			for(Element member : adapterType.getEnclosedElements()) {
+				if(member.getKind() == CONSTRUCTOR &&
+				   member.getModifiers().contains(PUBLIC) &&
+				   ((ExecutableElement)member).getParameters().isEmpty()) {
+					instantiable = true;
+				}
+			}
+			if(!instantiable && !hasDeclaredConstructor(adapterType)) {
+				instantiable = adapterType.getModifiers().contains(PUBLIC);
+			}
+			if(!instantiable) {
+				error(element(property), format("%s must provide a public default constructor.", adapterType.getQualifiedName()));
+			}
+		}
+		return adapter;
+	}
+
+	private List<? extends TypeMirror> adapterTypeArguments(TypeMirror adapter) {
+		if(qualifiedName(adapter).equals(JSONB_ADAPTER)) {
+			return ((DeclaredType) adapter).getTypeArguments();
+		}
+		for(TypeMirror supertype : types.directSupertypes(adapter)) {
+			List<? extends TypeMirror> args = adapterTypeArguments(supertype);
+			if(args != null) {
+				return args;
+			}
+		}
+		return null;
+	}
+
+	private static boolean hasDeclaredConstructor(TypeElement type) {
+		for(Element member : type.getEnclosedElements()) {
+			if(member.getKind() == CONSTRUCTOR) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void checkUnsupportedAnnotations(Element element) {
+		for(String annotation : UNSUPPORTED_PROPERTY_ANNOTATIONS) {
+			if(hasAnnotation(element, annotation)) {
+				error(element, format("@%s is not supported by @PrecompiledJsonb bindings.",simpleName(annotation)));
+			}
+		}
+	}
+
+	private TypeElement superclass(TypeElement declaring) {
+		TypeMirror superclass = declaring.getSuperclass();
+		if(superclass.getKind() != DECLARED) {
+			return null;
+		}
+		TypeElement element = (TypeElement) types.asElement(superclass);
+		if(element.getQualifiedName().contentEquals("java.lang.Object")) {
+			return null;
+		}
+		return element;
+	}
+
+	String qualifiedName(TypeMirror type) {
+		Element element = types.asElement(types.erasure(type));
+		if(element instanceof TypeElement) {
+			return ((TypeElement) element).getQualifiedName().toString();
+		}
+		return type.toString();
+	}
+
+	private static Element element(BindingProperty property) {
+		return property.getField() != null ? property.getField() : property.getGetter();
+	}
+
+	private static AnnotationMirror annotation(Element element, String annotation) {
+		for(AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			if(((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation)) {
+				return mirror;
+			}
+		}
+		return null;
+	}
+
+	private static boolean hasAnnotation(Element element, String annotation) {
+		return annotation(element, annotation) != null;
+	}
+
+	private static Object annotationAttribute(Element element, String annotation) {
+		AnnotationMirror mirror = annotation(element, annotation);
+		if(mirror == null) {
+			return null;
+		}
+		for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> attribute : mirror.getElementValues().entrySet()) {
+			if(attribute.getKey().getSimpleName().contentEquals("value")) {
+				return attribute.getValue().getValue();
+			}
+		}
+		return null;
+	}
+
+	private static String annotationValue(Element element, String annotation) {
+		Object value = annotationAttribute(element, annotation);
+		return value instanceof String ? (String) value : null;
+	}
+
+	private static TypeMirror annotationType(Element element, String annotation) {
+		Object value = annotationAttribute(element, annotation);
+		return value instanceof TypeMirror ? (TypeMirror) value : null;
+	}
+
+	private static String simpleName(String annotation) {
+		return annotation.substring(annotation.lastIndexOf('.')+1);
+	}
+
+	private void error(Element element, String message) {
+		messager.printMessage(ERROR, message, element);
+		valid = false;
+	}
+
+}
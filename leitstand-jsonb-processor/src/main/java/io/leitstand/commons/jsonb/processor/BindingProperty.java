@@ -0,0 +1,140 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.jsonb.processor;
+
+import static javax.lang.model.element.Modifier.FINAL;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * A property of a value object bound by a generated JSON-B binding.
+ * <p>
+ * A property is backed by a field, a public getter or both.
+ * The getter is preferred to read the property value, as the JSON-B runtime does.
+ * The property is written to the field, provided that the field is not <code>final</code>.
+ * </p>
+ */
+final class BindingProperty {
+
+	/**
+	 * The way a property is mapped to JSON.
+	 */
+	enum Kind {
+		STRING,
+		INT,
+		LONG,
+		DOUBLE,
+		BOOLEAN,
+		BIG_DECIMAL,
+		BIG_INTEGER,
+		ADAPTED,
+		DELEGATED
+	}
+
+	private final String name;
+	private String jsonName;
+	private VariableElement field;
+	private TypeMirror fieldType;
+	private ExecutableElement getter;
+	private TypeMirror getterType;
+	private TypeMirror adapter;
+	private TypeMirror adapterSourceType;
+	private TypeMirror adapterJsonType;
+	private Kind kind;
+	private boolean primitive;
+	private boolean fieldAccessible;
+
+	BindingProperty(String name){
+		this.name = name;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	String getJsonName() {
+		return jsonName;
+	}
+
+	void setJsonName(String jsonName) {
+		this.jsonName = jsonName;
+	}
+
+	VariableElement getField() {
+		return field;
+	}
+
+	TypeMirror getFieldType() {
+		return fieldType;
+	}
+
+	void setField(VariableElement field, TypeMirror fieldType, boolean accessible) {
+		this.field = field;
+		this.fieldType = fieldType;
+		this.fieldAccessible = accessible;
+	}
+
+	boolean isFieldAccessible() {
+		return fieldAccessible;
+	}
+
+	ExecutableElement getGetter() {
+		return getter;
+	}
+
+	void setGetter(ExecutableElement getter, TypeMirror getterType) {
+		this.getter = getter;
+		this.getterType = getterType;
+	}
+
+	/**
+	 * Returns the type of the property value as read from the value object.
+	 * @return the property type
+	 */
+	TypeMirror getType() {
+		return getter != null ? getterType : fieldType;
+	}
+
+	TypeMirror getAdapter() {
+		return adapter;
+	}
+
+	TypeMirror getAdapterSourceType() {
+		return adapterSourceType;
+	}
+
+	TypeMirror getAdapterJsonType() {
+		return adapterJsonType;
+	}
+
+	void setAdapter(TypeMirror adapter, TypeMirror sourceType, TypeMirror jsonType) {
+		this.adapter = adapter;
+		this.adapterSourceType = sourceType;
+		this.adapterJsonType = jsonType;
+	}
+
+	Kind getKind() {
+		return kind;
+	}
+
+	boolean isPrimitive() {
+		return primitive;
+	}
+
+	void setKind(Kind kind, boolean primitive) {
+		this.kind = kind;
+		this.primitive = primitive;
+	}
+
+	/**
+	 * Returns whether the property can be set when deserializing a value object.
+	 * @return <code>true</code> if the property is backed by a non-final field, <code>false</code> otherwise.
+	 */
+	boolean isWritable() {
+		return field != null && !field.getModifiers().contains(FINAL);
+	}
+
+}
@@ -0,0 +1,420 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.jsonb.processor;
+
+import static io.leitstand.commons.jsonb.processor.BindingProperty.Kind.ADAPTED;
+import static io.leitstand.commons.jsonb.processor.BindingProperty.Kind.DELEGATED;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.type.TypeKind.ARRAY;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+
+/**
+ * Writes the source of a generated JSON-B binding.
+ * <p>
+ * The generated binding reads and writes all accessible fields and getters directly.
+ * Private fields are accessed through <code>Field</code> handles, which are looked up once when the binding is initialized.
+ * </p>
+ */
+final class BindingWriter {
+
+	static final String SUFFIX = "_JsonbBinding";
+
+	/**
+	 * Returns the simple name of the binding generated for the specified type.
+	 * Nested class names are joined by an underscore.
+	 * @param type the bound type
+	 * @return the simple name of the generated binding
+	 */
+	static String bindingName(TypeElement type) {
+		StringBuilder name = new StringBuilder(type.getSimpleName());
+		for(Element e = type.getEnclosingElement(); e instanceof TypeElement; e = e.getEnclosingElement()) {
+			name.insert(0,'_').insert(0,e.getSimpleName());
+		}
+		return name.append(SUFFIX).toString();
+	}
+
+	/**
+	 * Returns the package name of the specified type.
+	 * @param type the type
+	 * @return the package name or an empty string for the unnamed package
+	 */
+	static String packageName(TypeElement type) {
+		Element e = type;
+		while(!(e instanceof PackageElement)) {
+			e = e.getEnclosingElement();
+		}
+		return ((PackageElement) e).getQualifiedName().toString();
+	}
+
+	static String literal(String s) {
+		StringBuilder literal = new StringBuilder(s.length()+2).append('"');
+		for(int i=0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if(c == '"' || c == '\\') {
+				literal.append('\\').append(c);
+			} else if(c < 0x20 || c > 0x7e) {
+				literal.append(String.format("\\u%04x",(int)c));
+			} else {
+				literal.append(c);
+			}
+		}
+		return literal.append('"').toString();
+	}
+
+	private final BindingModel model;
+	private final Types types;
+	private final String bound;
+	private PrintWriter out;
+
+	BindingWriter(BindingModel model){
+		this.model = model;
+		this.types = model.getTypes();
+		this.bound = model.getType().getQualifiedName().toString();
+	}
+
+	/**
+	 * Writes the generated binding.
+	 * @param filer the filer to create the source file
+	 * @return the qualified name of the generated binding
+	 * @throws IOException if the source file cannot be written
+	 */
+	String write(Filer filer) throws IOException {
+		TypeElement type = model.getType();
+		String pkg = packageName(type);
+		String name = bindingName(type);
+		String qualifiedName = pkg.isEmpty() ? name : pkg+"."+name;
+		try(Writer writer = filer.createSourceFile(qualifiedName, type).openWriter()){
+			out = new PrintWriter(writer);
+			writeBinding(pkg, name);
+			out.flush();
+		}
+		return qualifiedName;
+	}
+
+	private void writeBinding(String pkg, String name) {
+		if(!pkg.isEmpty()) {
+			line("package %s;",pkg);
+			line("");
+		}
+		line("import static javax.json.stream.JsonParser.Event.END_OBJECT;");
+		line("import static javax.json.stream.JsonParser.Event.KEY_NAME;");
+		line("import static javax.json.stream.JsonParser.Event.VALUE_NULL;");
+		line("import static javax.json.stream.JsonParser.Event.VALUE_TRUE;");
+		line("");
+		line("import java.lang.reflect.Type;");
+		line("");
+		line("import javax.json.bind.serializer.DeserializationContext;");
+		line("import javax.json.bind.serializer.JsonbDeserializer;");
+		line("import javax.json.bind.serializer.JsonbSerializer;");
+		line("import javax.json.bind.serializer.SerializationContext;");
+		line("import javax.json.stream.JsonGenerator;");
+		line("import javax.json.stream.JsonParser;");
+		line("import javax.json.stream.JsonParser.Event;");
+		line("");
+		line("import io.leitstand.commons.jsonb.GeneratedJsonbBinding;");
+		line("");
+		line("/**");
+		line(" * JSON-B binding of {@link %s}.",bound);
+		line(" * <p>");
+		line(" * Generated by <code>%s</code>. Do not edit.",JsonbBindingProcessor.class.getName());
+		line(" * </p>");
+		line(" */");
+		line("@SuppressWarnings({\"unchecked\",\"rawtypes\"})");
+		line("public final class %s extends GeneratedJsonbBinding<%s> implements JsonbSerializer<%s>, JsonbDeserializer<%s> {",name,bound,bound,bound);
+		line("");
+		writeConstants();
+		line("");
+		line("\t@Override");
+		line("\tpublic Class<%s> getType() {",bound);
+		line("\t\treturn %s.class;",bound);
+		line("\t}");
+		line("");
+		writeSerializer();
+		line("");
+		writeDeserializer();
+		line("");
+		line("}");
+	}
+
+	private void writeConstants() {
+		if(model.getConstructor() != null && model.getConstructor().getModifiers().contains(PRIVATE)) {
+			line("\tprivate static final java.lang.reflect.Constructor<%s> CONSTRUCTOR = constructor(%s.class);",bound,bound);
+		}
+		for(BindingProperty property : model.getProperties()) {
+			if(property.getField() != null) {
+				TypeElement declaring = (TypeElement) property.getField().getEnclosingElement();
+				line("\tprivate static final java.lang.reflect.Field FIELD_%s = field(%s.class,%s);",
+					 property.getName(),
+					 declaring.getQualifiedName(),
+					 literal(property.getName()));
+			}
+			if(property.isWritable() && isDelegatedOnRead(property)) {
+				line("\tprivate static final Type TYPE_%s = FIELD_%s.getGenericType();",
+					 property.getName(),
+					 property.getName());
+			}
+			if(property.getKind() == ADAPTED) {
+				String adapter = typeName(property.getAdapter());
+				line("\tprivate static final %s ADAPTER_%s = new %s();",
+					 adapter,
+					 property.getName(),
+					 adapter);
+			}
+		}
+	}
+
+	private void writeSerializer() {
+		line("\t@Override");
+		line("\tpublic void serialize(%s value, JsonGenerator generator, SerializationContext context) {",bound);
+		line("\t\tgenerator.writeStartObject();");
+		for(BindingProperty property : model.getProperties()) {
+			writeProperty(property);
+		}
+		line("\t\tgenerator.writeEnd();");
+		line("\t}");
+	}
+
+	private void writeProperty(BindingProperty property) {
+		String name = property.getName();
+		String json = literal(property.getJsonName());
+		String read = read(property);
+		switch(property.getKind()) {
+			case INT:
+				writePrimitive(property, json, read, "intValue");
+				return;
+			case LONG:
+				writePrimitive(property, json, read, "longValue");
+				return;
+			case DOUBLE:
+				writePrimitive(property, json, read, "doubleValue");
+				return;
+			case BOOLEAN:
+				writePrimitive(property, json, read, "booleanValue");
+				return;
+			case STRING:
+			case BIG_DECIMAL:
+			case BIG_INTEGER:
+				line("\t\t{");
+				line("\t\t\t%s v = %s;",typeName(property.getType()),read);
+				line("\t\t\tif(v != null) {");
+				line("\t\t\t\tgenerator.write(%s, v);",json);
+				line("\t\t\t}");
+				line("\t\t}");
+				return;
+			case ADAPTED:
+				String jsonType = typeName(property.getAdapterJsonType());
+				line("\t\t{");
+				line("\t\t\t%s v = %s;",typeName(property.getAdapterSourceType()),cast(property.getAdapterSourceType(),read));
+				line("\t\t\tif(v != null) {");
+				line("\t\t\t\t%s adapted;",jsonType);
+				line("\t\t\t\ttry {");
+				line("\t\t\t\t\tadapted = ADAPTER_%s.adaptToJson(v);",name);
+				line("\t\t\t\t} catch (Exception e) {");
+				line("\t\t\t\t\tthrow adapterFailed(%s, e);",literal(name));
+				line("\t\t\t\t}");
+				line("\t\t\t\tif(adapted != null) {");
+				if(jsonType.equals("java.lang.String")) {
+					line("\t\t\t\t\tgenerator.write(%s, adapted);",json);
+				} else {
+					line("\t\t\t\t\tcontext.serialize(%s, adapted, generator);",json);
+				}
+				line("\t\t\t\t}");
+				line("\t\t\t}");
+				line("\t\t}");
+				return;
+			default:
+				line("\t\t{");
+				line("\t\t\tObject v = %s;",read);
+				line("\t\t\tif(v != null) {");
+				line("\t\t\t\tcontext.serialize(%s, v, generator);",json);
+				line("\t\t\t}");
+				line("\t\t}");
+		}
+	}
+
+	private void writePrimitive(BindingProperty property, String json, String read, String unbox) {
+		if(property.isPrimitive()) {
+			if(property.getGetter() == null && !property.isFieldAccessible()) {
+				line("\t\tgenerator.write(%s, ((%s) %s).%s());",json,boxed(property.getType()),read,unbox);
+			} else {
+				line("\t\tgenerator.write(%s, %s);",json,read);
+			}
+			return;
+		}
+		line("\t\t{");
+		line("\t\t\t%s v = %s;",typeName(property.getType()),read);
+		line("\t\t\tif(v != null) {");
+		line("\t\t\t\tgenerator.write(%s, v.%s());",json,unbox);
+		line("\t\t\t}");
+		line("\t\t}");
+	}
+
+	private void writeDeserializer() {
+		line("\t@Override");
+		line("\tpublic %s deserialize(JsonParser parser, DeserializationContext context, Type type) {",bound);
+		if(model.getConstructor() != null && model.getConstructor().getModifiers().contains(PRIVATE)) {
+			line("\t\t%s instance = newInstance(CONSTRUCTOR);",bound);
+		} else {
+			line("\t\t%s instance = new %s();",bound,bound);
+		}
+		line("\t\twhile(parser.hasNext()) {");
+		line("\t\t\tEvent event = parser.next();");
+		line("\t\t\tif(event == END_OBJECT) {");
+		line("\t\t\t\tbreak;");
+		line("\t\t\t}");
+		line("\t\t\tif(event != KEY_NAME) {");
+		line("\t\t\t\tcontinue;");
+		line("\t\t\t}");
+		line("\t\t\tString key = parser.getString();");
+		line("\t\t\tevent = parser.next();");
+		line("\t\t\tswitch(key) {");
+		for(BindingProperty property : model.getProperties()) {
+			if(property.isWritable()) {
+				line("\t\t\t\tcase %s:",literal(property.getJsonName()));
+				writeAssignment(property);
+				line("\t\t\t\t\tbreak;");
+			}
+		}
+		line("\t\t\t\tdefault:");
+		line("\t\t\t\t\tskipValue(parser, event);");
+		line("\t\t\t}");
+		line("\t\t}");
+		line("\t\treturn instance;");
+		line("\t}");
+	}
+
+	private void writeAssignment(BindingProperty property) {
+		if(property.getKind() == ADAPTED) {
+			writeAdaptedAssignment(property);
+			return;
+		}
+		String value = parse(property);
+		if(property.getFieldType().getKind().isPrimitive()) {
+			line("\t\t\t\t\tif(event != VALUE_NULL) {");
+			line("\t\t\t\t\t\t%s",assign(property, value));
+			line("\t\t\t\t\t}");
+		} else {
+			line("\t\t\t\t\t%s",assign(property, "event == VALUE_NULL ? null : "+value));
+		}
+	}
+
+	private String parse(BindingProperty property) {
+		TypeMirror type = property.getFieldType();
+		boolean primitive = type.getKind().isPrimitive();
+		if(isDelegatedOnRead(property)) {
+			return primitive
+				   ? "context.<"+boxed(type)+">deserialize(TYPE_"+property.getName()+", parser)"
+				   : "context.deserialize(TYPE_"+property.getName()+", parser)";
+		}
+		switch(property.getKind()) {
+			case STRING:		return "parser.getString()";
+			case INT:			return intValue(type);
+			case LONG:			return "parser.getLong()";
+			case DOUBLE:		return "parser.getBigDecimal().doubleValue()";
+			case BOOLEAN:		return "event == VALUE_TRUE";
+			case BIG_DECIMAL:	return "parser.getBigDecimal()";
+			case BIG_INTEGER:	return "parser.getBigDecimal().toBigInteger()";
+			default:			throw new IllegalStateException("Unexpected property kind "+property.getKind());
+		}
+	}
+
+	/**
+	 * Returns whether the specified property is deserialized by the JSON-B runtime.
+	 * This applies to all delegated properties and to all properties whose getter type differs from the field type.
+	 * @param property the property
+	 * @return <code>true</code> if the property is deserialized by the JSON-B runtime, <code>false</code> otherwise.
+	 */
+	private boolean isDelegatedOnRead(BindingProperty property) {
+		return property.getKind() == DELEGATED || !typeName(property.getFieldType()).equals(typeName(property.getType()));
+	}
+
+	private String intValue(TypeMirror type) {
+		if(type.getKind() == TypeKind.SHORT || type.getKind() == TypeKind.BYTE) {
+			return "("+typeName(type)+") parser.getInt()";
+		}
+		String name = model.qualifiedName(type);
+		if(name.equals("java.lang.Short")) {
+			return "Short.valueOf((short) parser.getInt())";
+		}
+		if(name.equals("java.lang.Byte")) {
+			return "Byte.valueOf((byte) parser.getInt())";
+		}
+		return type.getKind().isPrimitive() ? "parser.getInt()" : "Integer.valueOf(parser.getInt())";
+	}
+
+	private void writeAdaptedAssignment(BindingProperty property) {
+		String name = property.getName();
+		String jsonType = typeName(property.getAdapterJsonType());
+		String json = jsonType.equals("java.lang.String")
+					  ? "parser.getString()"
+					  : "context.<"+jsonType+">deserialize("+jsonType+".class, parser)";
+		line("\t\t\t\t\ttry {");
+		line("\t\t\t\t\t\t%s",assign(property, "event == VALUE_NULL ? null : ADAPTER_"+name+".adaptFromJson("+json+")"));
+		line("\t\t\t\t\t} catch (Exception e) {");
+		line("\t\t\t\t\t\tthrow adapterFailed(%s, e);",literal(name));
+		line("\t\t\t\t\t}");
+	}
+
+	private String read(BindingProperty property) {
+		if(property.getGetter() != null) {
+			return "value."+property.getGetter().getSimpleName()+"()";
+		}
+		if(property.isFieldAccessible()) {
+			return "value."+property.getName();
+		}
+		TypeMirror type = property.getFieldType();
+		if(type.getKind().isPrimitive()) {
+			return "get(FIELD_"+property.getName()+", value)";
+		}
+		return cast(type, "get(FIELD_"+property.getName()+", value)");
+	}
+
+	private String assign(BindingProperty property, String value) {
+		if(property.isFieldAccessible()) {
+			return "instance."+property.getName()+" = "+value+";";
+		}
+		return "set(FIELD_"+property.getName()+", instance, "+value+");";
+	}
+
+	private String cast(TypeMirror type, String value) {
+		return "(("+typeName(type)+") "+value+")";
+	}
+
+	private String boxed(TypeMirror type) {
+		return types.boxedClass(types.getPrimitiveType(type.getKind())).getQualifiedName().toString();
+	}
+
+	/**
+	 * Returns the source representation of the erasure of the specified type.
+	 * Type arguments and type annotations are omitted.
+	 * @param type the type
+	 * @return the erased type name
+	 */
+	private String typeName(TypeMirror type) {
+		if(type.getKind().isPrimitive()) {
+			return type.getKind().name().toLowerCase();
+		}
+		if(type.getKind() == ARRAY) {
+			return typeName(((ArrayType) type).getComponentType())+"[]";
+		}
+		return model.qualifiedName(type);
+	}
+
+	private void line(String format, Object... args) {
+		out.println(args.length == 0 ? format : String.format(format,args));
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.jsonb.processor;
+
+import static java.lang.String.format;
+import static javax.tools.Diagnostic.Kind.ERROR;
+import static javax.tools.StandardLocation.CLASS_OUTPUT;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.FileObject;
+
+/**
+ * Generates a JSON-B binding for each value object annotated with <code>io.leitstand.commons.jsonb.PrecompiledJsonb</code>.
+ * <p>
+ * The generated <code>&lt;ClassName&gt;_JsonbBinding</code> class is placed in the package of the value object and 
+ * listed in <code>META-INF/services/io.leitstand.commons.jsonb.GeneratedJsonbBinding</code> in order to be registered
+ * by <code>JsonbDefaults</code>.
+ * </p>
+ * <p>
+ * The processor neither depends on the JSON-B API nor on <code>leitstand-commons</code> 
+ * and is added to the annotation processor path:
+ * <pre>
+ * <code>
+ * dependencies {
+ *     annotationProcessor 'io.leitstand:leitstand-jsonb-processor:${version}'
+ * }
+ * </code>
+ * </pre>
+ * </p>
+ */
+@SupportedAnnotationTypes(JsonbBindingProcessor.PRECOMPILED_JSONB)
+public class JsonbBindingProcessor extends AbstractProcessor {
+
+	static final String PRECOMPILED_JSONB = "io.leitstand.commons.jsonb.PrecompiledJsonb";
+	static final String SERVICE_FILE = "META-INF/services/io.leitstand.commons.jsonb.GeneratedJsonbBinding";
+	
+	private final Set<String> bindings = new TreeSet<>();
+	
+	/**
+	 * Returns the latest supported source version, as the processor does not depend on any source level specific features.
+	 * @return the latest supported source version.
+	 */
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+	
+	/**
+	 * Generates the JSON-B bindings of all annotated value objects of the current round
+	 * and writes the service file listing all generated bindings in the final round.
+	 */
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+		for(TypeElement annotation : annotations) {
+			for(Element element : round.getElementsAnnotatedWith(annotation)) {
+				generateBinding((TypeElement) element);
+			}
+		}
+		if(round.processingOver() && !bindings.isEmpty()) {
+			writeServiceFile();
+		}
+		return true;
+	}
+
+	private void generateBinding(TypeElement type) {
+		BindingModel model = new BindingModel(processingEnv, type);
+		if(!model.discover()) {
+			return;
+		}
+		try {
+			bindings.add(new BindingWriter(model).write(processingEnv.getFiler()));
+		} catch (IOException e) {
+			processingEnv.getMessager()
+						 .printMessage(ERROR, 
+								 	   format("Cannot write JSON-B binding of %s: %s", 
+								 			  type.getQualifiedName(), 
+								 			  e.getMessage()), 
+								 	   type);
+		}
+	}
+	
+	private void writeServiceFile() {
+		try {
+			FileObject file = processingEnv.getFiler().createResource(CLASS_OUTPUT, "", SERVICE_FILE);
+			try(Writer writer = file.openWriter()){
+				for(String binding : bindings) {
+					writer.write(binding);
+					writer.write('\n');
+				}
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager()
+						 .printMessage(ERROR, 
+								 	   format("Cannot write %s: %s", 
+								 			  SERVICE_FILE, 
+								 			  e.getMessage()));
+		}
+	}
+	
+}
@@ -0,0 +1,10 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+/**
+ * Contains the annotation processor to generate JSON-B bindings for <code>@PrecompiledJsonb</code> value objects.
+ * <p>
+ * This package must not depend on the JSON-B API, because the JSON-B API is not available on the annotation processor path.
+ * </p>
+ */
+package io.leitstand.commons.jsonb.processor;
@@ -0,0 +1,177 @@
+/*
+ * (c) RtBrick, Inc - All rights reserved, 2015 - 2019
+ */
+package io.leitstand.commons.jsonb.processor;
+
+import static io.leitstand.commons.jsonb.JsonbDefaults.jsonb;
+import static io.leitstand.commons.jsonb.processor.BindingModel.snakeCase;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.readAllLines;
+import static java.nio.file.Files.write;
+import static java.util.Arrays.asList;
+import static javax.json.bind.JsonbBuilder.newBuilder;
+import static javax.json.bind.config.PropertyNamingStrategy.LOWER_CASE_WITH_UNDERSCORES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbConfig;
+import javax.json.bind.serializer.JsonbDeserializer;
+import javax.json.bind.serializer.JsonbSerializer;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.leitstand.commons.jsonb.FieldAccessVisibilityStrategy;
+import io.leitstand.commons.jsonb.GeneratedJsonbBinding;
+
+public class JsonbBindingProcessorTest {
+
+	private static final String NAME =
+			"package sample;\n"+
+			"@javax.json.bind.annotation.JsonbTypeAdapter(NameAdapter.class)\n"+
+			"public class Name extends io.leitstand.commons.model.Scalar<String> {\n"+
+			"  private String value;\n"+
+			"  public Name(String value){ this.value = value; }\n"+
+			"  public static Name valueOf(String value){ return fromString(value,Name::new); }\n"+
+			"  public String getValue(){ return value; }\n"+
+			"}\n";
+
+	private static final String NAME_ADAPTER =
+			"package sample;\n"+
+			"public class NameAdapter implements javax.json.bind.adapter.JsonbAdapter<Name,String> {\n"+
+			"  public String adaptToJson(Name name){ return Name.toString(name); }\n"+
+			"  public Name adaptFromJson(String name){ return Name.valueOf(name); }\n"+
+			"}\n";
+
+	private static final String SETTINGS =
+			"package sample;\n"+
+			"@io.leitstand.commons.jsonb.PrecompiledJsonb\n"+
+			"public final class Settings extends io.leitstand.commons.model.ValueObject {\n"+
+			"  private Name elementName;\n"+
+			"  private String description;\n"+
+			"  private int size;\n"+
+			"  private Long count;\n"+
+			"  private boolean enabled;\n"+
+			"  private java.util.List<Name> aliases;\n"+
+			"  private java.util.Date dateModified;\n"+
+			"  @javax.json.bind.annotation.JsonbTransient private String secret;\n"+
+			"  protected Settings(){}\n"+
+			"  public Name getElementName(){ return elementName; }\n"+
+			"  public boolean isActive(){ return enabled; }\n"+
+			"}\n";
+
+	private static final String INVALID =
+			"package sample;\n"+
+			"@io.leitstand.commons.jsonb.PrecompiledJsonb\n"+
+			"public class Invalid {\n"+
+			"}\n";
+
+	private static final String JSON = "{\"aliases\":[\"leaf-1\",\"leaf-2\"],"+
+									   "\"count\":42,"+
+									   "\"date_modified\":\"2019-04-26T19:32:05.150Z\","+
+									   "\"description\":\"Gr\u00fc\u00dfe\","+
+									   "\"element_name\":\"leaf\","+
+									   "\"enabled\":true,"+
+									   "\"secret\":\"ignored\","+
+									   "\"size\":7,"+
+									   "\"unknown\":{\"nested\":[1,2,3]}}";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File sources;
+	private File classes;
+
+	@Before
+	public void initFolders() throws IOException {
+		sources = folder.newFolder("src");
+		classes = folder.newFolder("classes");
+	}
+
+	private boolean compile(DiagnosticCollector<JavaFileObject> diagnostics, String... units) throws IOException {
+		List<File> files = new ArrayList<>();
+		for(String unit : units) {
+			String name = unit.substring(unit.indexOf("class ")+6).split("[ <]")[0];
+			Path source = new File(sources,name+".java").toPath();
+			write(source,unit.getBytes(UTF_8));
+			files.add(source.toFile());
+		}
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		try(StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, UTF_8)){
+			List<String> options = asList("-classpath", System.getProperty("java.class.path"),
+										  "-d", classes.getAbsolutePath(),
+										  "-s", classes.getAbsolutePath());
+			JavaCompiler.CompilationTask task = compiler.getTask(null,
+																 fileManager,
+																 diagnostics,
+																 options,
+																 null,
+																 fileManager.getJavaFileObjectsFromFiles(files));
+			task.setProcessors(asList(new JsonbBindingProcessor()));
+			return task.call();
+		}
+	}
+
+	@Test
+	public void translate_property_names_to_snake_case() {
+		assertEquals("element_name",snakeCase("elementName"));
+		assertEquals("element_i_d",snakeCase("elementID"));
+		assertEquals("name",snakeCase("Name"));
+		assertEquals("size",snakeCase("size"));
+	}
+
+	@Test
+	public void generated_binding_matches_reflective_binding() throws Exception {
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		assertTrue(diagnostics.getDiagnostics().toString(),
+				   compile(diagnostics, NAME, NAME_ADAPTER, SETTINGS));
+
+		File services = new File(classes,JsonbBindingProcessor.SERVICE_FILE);
+		assertEquals(asList("sample.Settings_JsonbBinding"),readAllLines(services.toPath(),UTF_8));
+
+		try(URLClassLoader loader = new URLClassLoader(new URL[] {classes.toURI().toURL()},getClass().getClassLoader())){
+			Class<?> settings = loader.loadClass("sample.Settings");
+			GeneratedJsonbBinding<?> binding = (GeneratedJsonbBinding<?>) loader.loadClass("sample.Settings_JsonbBinding").newInstance();
+			assertEquals(settings,binding.getType());
+
+			Jsonb generated = newBuilder().withConfig(new JsonbConfig()
+														.withPropertyVisibilityStrategy(new FieldAccessVisibilityStrategy())
+														.withPropertyNamingStrategy(LOWER_CASE_WITH_UNDERSCORES)
+														.withDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", null)
+														.withSerializers(new JsonbSerializer<?>[] {binding})
+														.withDeserializers(new JsonbDeserializer<?>[] {binding}))
+										  .build();
+
+			Object reflective = jsonb().fromJson(JSON, settings);
+			Object precompiled = generated.fromJson(JSON, settings);
+
+			assertEquals(reflective,precompiled);
+			assertEquals(jsonb().toJson(reflective),generated.toJson(precompiled));
+		}
+	}
+
+	@Test
+	public void report_error_for_non_value_object() throws Exception {
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		assertFalse(compile(diagnostics, INVALID));
+		assertTrue(diagnostics.getDiagnostics().toString().contains("@PrecompiledJsonb can only be applied to ValueObject and CompositeValue classes."));
+	}
+
+}